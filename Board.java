@@ -0,0 +1,192 @@
+/**
+ * Bitboard representation of an N x N tic-tac-toe position (N = 3..6).
+ * Cell (row, col) maps to bit {@code row * size + col}, so a 6x6 board
+ * still fits in a single long per player. A player wins by filling a whole
+ * row, column or diagonal. {@link GamePanel} plays on one of these too.
+ */
+public class Board {
+    public static final int X = 1;
+    public static final int O = 2;
+
+    private static final long[][] LINES_BY_SIZE = new long[7][];
+
+    static {
+        for (int n = 3; n <= 6; n++) {
+            LINES_BY_SIZE[n] = buildLines(n);
+        }
+    }
+
+    private final int size;
+    private final int cells;
+    private final long[] lines;
+    private long xBits;
+    private long oBits;
+    private int moveCount;
+
+    public Board(int size) {
+        if (size < 3 || size > 6) {
+            throw new IllegalArgumentException("Unsupported board size: " + size);
+        }
+        this.size = size;
+        this.cells = size * size;
+        this.lines = LINES_BY_SIZE[size];
+    }
+
+    /**
+     * Creates a board from raw bitmasks, e.g. when restoring a recorded position.
+     */
+    public Board(int size, long xBits, long oBits) {
+        this(size);
+        this.xBits = xBits;
+        this.oBits = oBits;
+        this.moveCount = Long.bitCount(xBits) + Long.bitCount(oBits);
+    }
+
+    public Board copy() {
+        return new Board(size, xBits, oBits);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int cells() {
+        return cells;
+    }
+
+    public long xBits() {
+        return xBits;
+    }
+
+    public long oBits() {
+        return oBits;
+    }
+
+    public int moveCount() {
+        return moveCount;
+    }
+
+    /**
+     * X always moves first, so the side to move follows from the move count.
+     */
+    public int sideToMove() {
+        return (moveCount & 1) == 0 ? X : O;
+    }
+
+    public long emptyMask() {
+        return ~(xBits | oBits) & fullMask();
+    }
+
+    public long fullMask() {
+        return cells == 64 ? -1L : (1L << cells) - 1;
+    }
+
+    public boolean isEmpty(int cell) {
+        return ((xBits | oBits) & (1L << cell)) == 0;
+    }
+
+    public int get(int cell) {
+        long bit = 1L << cell;
+        if ((xBits & bit) != 0) return X;
+        if ((oBits & bit) != 0) return O;
+        return 0;
+    }
+
+    /**
+     * Places the side to move on {@code cell}. The caller checks that the cell is empty.
+     */
+    public void play(int cell) {
+        long bit = 1L << cell;
+        if ((moveCount & 1) == 0) {
+            xBits ^= bit;
+        } else {
+            oBits ^= bit;
+        }
+        moveCount++;
+    }
+
+    /**
+     * Takes back the last move, which must have been played on {@code cell}.
+     */
+    public void undo(int cell) {
+        moveCount--;
+        long bit = 1L << cell;
+        if ((moveCount & 1) == 0) {
+            xBits ^= bit;
+        } else {
+            oBits ^= bit;
+        }
+    }
+
+    public void clear() {
+        xBits = 0;
+        oBits = 0;
+        moveCount = 0;
+    }
+
+    public boolean hasWon(int player) {
+        long bits = player == X ? xBits : oBits;
+        for (long line : lines) {
+            if ((bits & line) == line) return true;
+        }
+        return false;
+    }
+
+    public boolean isFull() {
+        return moveCount == cells;
+    }
+
+    /**
+     * @return X or O if someone has completed a line, otherwise 0
+     */
+    public int winner() {
+        if (hasWon(X)) return X;
+        if (hasWon(O)) return O;
+        return 0;
+    }
+
+    public boolean isGameOver() {
+        return isFull() || winner() != 0;
+    }
+
+    /**
+     * Returns the winning line masks (rows, columns, both diagonals) for a board size.
+     * The array is shared, callers must not modify it.
+     */
+    public static long[] winningLines(int size) {
+        return LINES_BY_SIZE[size];
+    }
+
+    private static long[] buildLines(int n) {
+        long[] result = new long[2 * n + 2];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            long row = 0, col = 0;
+            for (int j = 0; j < n; j++) {
+                row |= 1L << (i * n + j);
+                col |= 1L << (j * n + i);
+            }
+            result[k++] = row;
+            result[k++] = col;
+        }
+        long diag1 = 0, diag2 = 0;
+        for (int i = 0; i < n; i++) {
+            diag1 |= 1L << (i * n + i);
+            diag2 |= 1L << (i * n + (n - 1 - i));
+        }
+        result[k++] = diag1;
+        result[k] = diag2;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < cells; i++) {
+            int v = get(i);
+            sb.append(v == X ? 'X' : v == O ? 'O' : '.');
+            if (i % size == size - 1 && i != cells - 1) sb.append('/');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,160 @@
+import java.util.Random;
+
+/**
+ * Computer opponent driven by {@link Search} within a {@link Difficulty} budget.
+ *
+ * The bot deepens one ply at a time, scoring every root move at each depth,
+ * and keeps the scores of the deepest iteration that finished inside the node
+ * budget. Gaussian noise is then added to those scores before picking the best.
+ * Levels without noise only need the best move, so they use a cheaper
+ * alpha-beta search over the root instead. Under a game clock the search also
+ * stops at a time budget, whichever of the two runs out first.
+ *
+ * Only {@link Difficulty#PERFECT} uses the process-wide
+ * {@link EvaluationCache}. The capped levels each get a small cache of their
+ * own that is cleared before every move, so they never read a score from a
+ * deeper or unbudgeted search and play the same whatever else ran before.
+ * Not thread-safe; use one bot per thread.
+ */
+public class Bot implements Engine {
+    /**
+     * Size of the capped levels' private caches. It is cleared before every
+     * move, so it stays small enough for the clear to cost next to nothing.
+     */
+    private static final long PRIVATE_CACHE_BYTES = 64 * 1024;
+
+    private final Difficulty difficulty;
+    private final EvaluationCache cache;
+    private final boolean clearEveryMove;
+    private final Search search;
+    private final Random random;
+    private long lastNodes;
+    private int lastDepth;
+
+    public Bot(Difficulty difficulty) {
+        this(difficulty, new Random());
+    }
+
+    public Bot(Difficulty difficulty, Random random) {
+        this(difficulty, random, difficulty == Difficulty.PERFECT ? EvaluationCache.shared() : privateCache(difficulty), null);
+    }
+
+    /**
+     * A bot on a cache and evaluator of its own, for headless runs such as
+     * {@link SpsaTuner}. Capped levels clear the cache before every move.
+     * @param evaluator null for the default evaluation of the board size
+     */
+    Bot(Difficulty difficulty, Random random, EvaluationCache cache, Evaluator evaluator) {
+        this.difficulty = difficulty;
+        this.cache = cache;
+        this.clearEveryMove = difficulty != Difficulty.PERFECT && cache != EvaluationCache.shared();
+        this.search = new Search(cache, evaluator);
+        this.random = random;
+    }
+
+    /** A private cache, no bigger than one move's node budget can fill. */
+    static EvaluationCache privateCache(Difficulty difficulty) {
+        long budgetBytes = difficulty.nodeBudget() * EvaluationCache.BYTES_PER_ENTRY;
+        return new EvaluationCache(Math.min(PRIVATE_CACHE_BYTES, budgetBytes));
+    }
+
+    public Difficulty difficulty() {
+        return difficulty;
+    }
+
+    @Override
+    public String name() {
+        return difficulty.label();
+    }
+
+    /**
+     * Picks a move for the side to move. The board is left unchanged.
+     * @return the chosen cell
+     */
+    public int chooseMove(Board board) {
+        return chooseMove(board, Long.MAX_VALUE);
+    }
+
+    /**
+     * Picks a move spending at most about {@code timeBudgetNanos}, on top of
+     * the level's node budget. The board is left unchanged.
+     * @return the chosen cell
+     */
+    @Override
+    public int chooseMove(Board board, long timeBudgetNanos) {
+        if (clearEveryMove) cache.clear();
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        search.setDeadline(deadline < System.nanoTime() ? Long.MAX_VALUE : deadline); // overflowed: no limit
+        if (difficulty.noise() == 0) return chooseBestMove(board);
+
+        long empty = board.emptyMask();
+        int moveCount = Long.bitCount(empty);
+        int[] cells = new int[moveCount];
+        for (int k = 0; k < moveCount; k++) {
+            cells[k] = Long.numberOfTrailingZeros(empty);
+            empty &= empty - 1;
+        }
+
+        int[] scores = new int[moveCount];
+        int[] iteration = new int[moveCount];
+        long used = 0;
+        lastDepth = 0;
+        int maxDepth = Math.min(difficulty.depthCap(), moveCount);
+        deepening:
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            boolean decided = true;
+            for (int k = 0; k < moveCount; k++) {
+                search.setNodeLimit(difficulty.nodeBudget() - used);
+                iteration[k] = search.scoreMove(board, cells[k], depth);
+                used += search.nodes();
+                if (search.wasAborted()) break deepening;
+                if (Math.abs(iteration[k]) <= Search.WIN_THRESHOLD) decided = false;
+            }
+            System.arraycopy(iteration, 0, scores, 0, moveCount);
+            lastDepth = depth;
+            if (decided) break; // every move is a proven win or loss, deeper search changes nothing
+        }
+        lastNodes = used;
+
+        int best = 0;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < moveCount; k++) {
+            double value = scores[k] + random.nextGaussian() * difficulty.noise();
+            if (value > bestValue) {
+                bestValue = value;
+                best = k;
+            }
+        }
+        return cells[best];
+    }
+
+    private int chooseBestMove(Board board) {
+        long used = 0;
+        int move = Long.numberOfTrailingZeros(board.emptyMask());
+        lastDepth = 0;
+        int maxDepth = Math.min(difficulty.depthCap(), board.cells() - board.moveCount());
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            search.setNodeLimit(difficulty.nodeBudget() - used);
+            Search.Result result = search.bestMove(board, depth);
+            used += result.nodes;
+            if (search.wasAborted()) break;
+            move = result.move;
+            lastDepth = depth;
+            if (result.isWin() || result.isLoss()) break;
+        }
+        lastNodes = used;
+        return move;
+    }
+
+    /** Nodes searched for the last move. */
+    @Override
+    public long lastNodes() {
+        return lastNodes;
+    }
+
+    /** Deepest completed iteration for the last move, 0 if even depth 1 ran out of budget. */
+    @Override
+    public int lastDepth() {
+        return lastDepth;
+    }
+}
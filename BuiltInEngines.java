@@ -0,0 +1,96 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The engines that ship with the game: one search {@link Bot} per
+ * {@link Difficulty} level, plus two baselines that do not search, for
+ * calibrating the others in a {@link Tournament}.
+ */
+public class BuiltInEngines implements EngineProvider {
+    public static final String GREEDY = "Greedy";
+    public static final String RANDOM = "Random";
+
+    @Override
+    public List<String> engineNames() {
+        List<String> names = new ArrayList<>();
+        for (Difficulty d : Difficulty.values()) {
+            names.add(d.label());
+        }
+        names.add(GREEDY);
+        names.add(RANDOM);
+        return names;
+    }
+
+    @Override
+    public Engine create(String name, Random random) {
+        if (name.equals(GREEDY)) return new GreedyEngine(random);
+        if (name.equals(RANDOM)) return new RandomEngine(random);
+        for (Difficulty d : Difficulty.values()) {
+            if (d.label().equals(name)) return new Bot(d, random);
+        }
+        throw new IllegalArgumentException("Unknown engine: " + name);
+    }
+
+    /**
+     * Plays a winning move if there is one, otherwise the move the static
+     * evaluation likes best, ties broken at random.
+     */
+    static final class GreedyEngine implements Engine {
+        private final Random random;
+
+        GreedyEngine(Random random) {
+            this.random = random;
+        }
+
+        @Override
+        public String name() {
+            return GREEDY;
+        }
+
+        @Override
+        public int chooseMove(Board board, long timeBudgetNanos) {
+            Evaluator evaluator = Evaluator.forSize(board.size());
+            int mover = board.sideToMove();
+            int best = -1;
+            int bestScore = Integer.MIN_VALUE;
+            int ties = 0;
+            for (long m = board.emptyMask(); m != 0; m &= m - 1) {
+                int cell = Long.numberOfTrailingZeros(m);
+                board.play(cell);
+                int score = board.hasWon(mover) ? Search.WIN : -evaluator.evaluate(board);
+                board.undo(cell);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = cell;
+                    ties = 1;
+                } else if (score == bestScore && random.nextInt(++ties) == 0) {
+                    best = cell;
+                }
+            }
+            return best;
+        }
+    }
+
+    static final class RandomEngine implements Engine {
+        private final Random random;
+
+        RandomEngine(Random random) {
+            this.random = random;
+        }
+
+        @Override
+        public String name() {
+            return RANDOM;
+        }
+
+        @Override
+        public int chooseMove(Board board, long timeBudgetNanos) {
+            long empty = board.emptyMask();
+            for (int n = random.nextInt(Long.bitCount(empty)); n > 0; n--) {
+                empty &= empty - 1;
+            }
+            return Long.numberOfTrailingZeros(empty);
+        }
+    }
+}
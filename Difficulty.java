@@ -0,0 +1,60 @@
+/**
+ * Singleplayer difficulty levels. Each level is a search budget rather than a
+ * separate algorithm: weaker levels search fewer nodes to a shallower depth
+ * and add more noise to their move scores, so they are also cheaper to run.
+ *
+ * Measured strength and think time per level come from {@link DifficultyBenchmark}.
+ */
+public enum Difficulty {
+    EASY("Easy", 1_000, 1, 12),
+    MEDIUM("Medium", 20_000, 3, 4),
+    HARD("Hard", 200_000, 6, 0),
+    PERFECT("Perfect", 5_000_000, 64, 0);
+
+    private final String label;
+    private final long nodeBudget;
+    private final int depthCap;
+    private final int noise;
+
+    Difficulty(String label, long nodeBudget, int depthCap, int noise) {
+        this.label = label;
+        this.nodeBudget = nodeBudget;
+        this.depthCap = depthCap;
+        this.noise = noise;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /** Maximum number of search nodes spent on one move. */
+    public long nodeBudget() {
+        return nodeBudget;
+    }
+
+    /** Deepest iteration the bot will start, in plies. */
+    public int depthCap() {
+        return depthCap;
+    }
+
+    /** Standard deviation of the Gaussian noise added to each root move score. */
+    public int noise() {
+        return noise;
+    }
+
+    /**
+     * Looks a level up by its label as stored in the settings database.
+     * Unknown or missing labels fall back to {@link #MEDIUM}.
+     */
+    public static Difficulty fromLabel(String label) {
+        for (Difficulty d : values()) {
+            if (d.label.equals(label)) return d;
+        }
+        return MEDIUM;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
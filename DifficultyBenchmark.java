@@ -0,0 +1,94 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures every {@link Difficulty} level against the perfect bot: win, draw
+ * and loss rates plus average think time and nodes per move.
+ *
+ * Games are played in pairs from the same random opening move, once with the
+ * level as X and once as O. Games run one at a time so think times are not
+ * distorted by other games competing for the CPU. The bots are created
+ * through {@link Engines} like everywhere else; {@link Tournament} compares
+ * arbitrary engines. The opponent searches on a cache of its own, and the
+ * shared cache is cleared before every game, so each game starts cold and
+ * no level is measured on work another one did. (In the game, Perfect gets
+ * cheaper as its shared cache warms up.)
+ *
+ * Usage: {@code java DifficultyBenchmark [gamesPerSize] [sizes...] [levels...]},
+ * e.g. {@code java DifficultyBenchmark 200 3 4} or, for one level per JVM,
+ * {@code java DifficultyBenchmark 200 3 4 Medium}
+ */
+public class DifficultyBenchmark {
+    private static final long OPPONENT_CACHE_BYTES = 32L * 1024 * 1024;
+    /** Untimed games first, so the JIT's warm-up is not charged to the first level measured. */
+    private static final int WARMUP_GAMES = 20;
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        List<Integer> sizes = new ArrayList<>();
+        List<Difficulty> levels = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].chars().allMatch(Character::isDigit)) {
+                sizes.add(Integer.parseInt(args[i]));
+                continue;
+            }
+            Difficulty level = Difficulty.fromLabel(args[i]);
+            if (!level.label().equals(args[i])) {
+                System.err.println("Unknown level: " + args[i]);
+                System.exit(1);
+            }
+            levels.add(level);
+        }
+        if (sizes.isEmpty()) sizes = List.of(3, 4);
+        if (levels.isEmpty()) levels = List.of(Difficulty.values());
+
+        for (int size : sizes) {
+            System.out.printf("== %dx%d, %d games per level against Perfect ==%n", size, size, games);
+            System.out.printf("%-8s %6s %6s %6s %12s %12s%n", "Level", "Win%", "Draw%", "Loss%", "ms/move", "nodes/move");
+            for (Difficulty level : levels) {
+                run(level, size, WARMUP_GAMES, new Random(1), false);
+                // Seeded per level and size, so a level measured on its own plays the same games
+                run(level, size, games, new Random(42L * 31 * 31 + size * 31 + level.ordinal()), true);
+            }
+        }
+    }
+
+    private static void run(Difficulty level, int size, int games, Random random, boolean report) {
+        Engine candidate = Engines.create(level.label(), new Random(random.nextLong()));
+        EvaluationCache perfectCache = new EvaluationCache(OPPONENT_CACHE_BYTES);
+        Engine perfect = new Bot(Difficulty.PERFECT, new Random(random.nextLong()), perfectCache, null);
+        int wins = 0, draws = 0, losses = 0;
+        long thinkNanos = 0, nodes = 0, moves = 0;
+        int opening = 0;
+
+        for (int g = 0; g < games; g++) {
+            if (g % 2 == 0) opening = random.nextInt(size * size);
+            EvaluationCache.shared().clear();
+            perfectCache.clear();
+            int candidateSide = g % 2 == 0 ? Board.X : Board.O;
+            Board board = new Board(size);
+            board.play(opening);
+            while (!board.isGameOver()) {
+                if (board.sideToMove() == candidateSide) {
+                    long start = System.nanoTime();
+                    int move = candidate.chooseMove(board, Long.MAX_VALUE);
+                    thinkNanos += System.nanoTime() - start;
+                    nodes += candidate.lastNodes();
+                    moves++;
+                    board.play(move);
+                } else {
+                    board.play(perfect.chooseMove(board, Long.MAX_VALUE));
+                }
+            }
+            int winner = board.winner();
+            if (winner == 0) draws++;
+            else if (winner == candidateSide) wins++;
+            else losses++;
+        }
+        if (!report) return;
+        System.out.printf("%-8s %6.1f %6.1f %6.1f %12.3f %12d%n", level.label(),
+                100.0 * wins / games, 100.0 * draws / games, 100.0 * losses / games,
+                moves == 0 ? 0 : thinkNanos / 1e6 / moves, moves == 0 ? 0 : nodes / moves);
+    }
+}
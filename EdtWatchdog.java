@@ -0,0 +1,199 @@
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects slow events on the Swing event dispatch thread. Installed as the
+ * system event queue, it timestamps every dispatched event; a daemon thread
+ * samples the EDT's stack while an event runs past the threshold, and when the
+ * event finally completes the stall is logged with its duration, the listener
+ * that was running and the call site the samples point at.
+ *
+ * Events that are fast cost two {@code nanoTime} calls and a few field writes,
+ * so the watchdog can stay on in normal use. Configure with
+ * {@code -Dttt.edt.thresholdMs=100}; disable with {@code -Dttt.edt.watchdog=false}.
+ */
+public final class EdtWatchdog extends EventQueue {
+    private static final int MAX_NESTING = 32;
+    private static final int MAX_SAMPLES = 64;
+
+    private final long thresholdNanos;
+    private final long sampleIntervalMillis;
+
+    // Dispatch stack, only touched by the EDT. Modal dialogs dispatch events from inside an event.
+    private final long[] seqStack = new long[MAX_NESTING];
+    private final long[] startStack = new long[MAX_NESTING];
+    private final boolean[] nestedStack = new boolean[MAX_NESTING];
+    private int depth;
+    private long nextSeq = 1;
+
+    // The innermost running event, published for the watchdog thread; seq 0 means idle
+    private volatile long currentSeq;
+    private volatile long currentStart;
+    private volatile Thread edt;
+
+    private final Map<Long, List<StackTraceElement[]>> samples = new ConcurrentHashMap<>();
+
+    private EdtWatchdog(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.sampleIntervalMillis = Math.max(5, thresholdMillis / 4);
+    }
+
+    /**
+     * Replaces the system event queue with a watchdog unless disabled by
+     * {@code -Dttt.edt.watchdog=false}. Call once, before the UI is built.
+     */
+    public static void install() {
+        if (!Boolean.parseBoolean(System.getProperty("ttt.edt.watchdog", "true"))) return;
+        EdtWatchdog watchdog = new EdtWatchdog(Long.getLong("ttt.edt.thresholdMs", 100));
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog);
+        Thread sampler = new Thread(watchdog::sampleLoop, "edt-watchdog");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        if (depth >= MAX_NESTING) {
+            super.dispatchEvent(event);
+            return;
+        }
+        if (edt == null) edt = Thread.currentThread();
+        if (depth > 0) nestedStack[depth - 1] = true;
+        long seq = nextSeq++;
+        long start = System.nanoTime();
+        seqStack[depth] = seq;
+        startStack[depth] = start;
+        nestedStack[depth] = false;
+        depth++;
+        currentStart = start;
+        currentSeq = seq;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long duration = System.nanoTime() - start;
+            depth--;
+            boolean hadNestedLoop = nestedStack[depth];
+            if (depth > 0) {
+                currentStart = startStack[depth - 1];
+                currentSeq = seqStack[depth - 1];
+            } else {
+                currentSeq = 0;
+            }
+            Metrics.EDT_EVENT.record(duration);
+            List<StackTraceElement[]> stuck = samples.isEmpty() ? null : samples.remove(seq);
+            if (depth == 0 && !samples.isEmpty()) {
+                samples.clear(); // samples the watchdog took just as their event ended
+            }
+            // A modal dialog keeps its opening event alive; only report it if the EDT was seen busy
+            if (duration > thresholdNanos && (!hadNestedLoop || stuck != null)) {
+                Metrics.EDT_STALL.record(duration);
+                report(event, duration, hadNestedLoop, stuck);
+            }
+        }
+    }
+
+    private void sampleLoop() {
+        while (true) {
+            try {
+                Thread.sleep(sampleIntervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long seq = currentSeq;
+            Thread thread = edt;
+            if (seq == 0 || thread == null || System.nanoTime() - currentStart < thresholdNanos) continue;
+
+            StackTraceElement[] stack = thread.getStackTrace();
+            // The VM may return no frames, e.g. while the thread is starting or exiting
+            if (stack.length == 0 || seq != currentSeq || isWaitingInNestedLoop(stack)) continue;
+            List<StackTraceElement[]> list = samples.computeIfAbsent(seq, k -> new ArrayList<>());
+            synchronized (list) {
+                if (list.size() < MAX_SAMPLES) list.add(stack);
+            }
+        }
+    }
+
+    /**
+     * True when the EDT is idle inside a modal dialog's event loop rather than
+     * busy in application code.
+     */
+    private static boolean isWaitingInNestedLoop(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            if (!isPlatformFrame(frame)) return false;
+            if (frame.getClassName().equals("java.awt.EventQueue") && frame.getMethodName().equals("getNextEvent")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void report(AWTEvent event, long durationNanos, boolean modal, List<StackTraceElement[]> stuck) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("EDT stall: %d ms in %s", TimeUnit.NANOSECONDS.toMillis(durationNanos), describe(event)));
+        if (modal) sb.append(" (includes time in a modal dialog)");
+        if (stuck == null || stuck.isEmpty()) {
+            sb.append(System.lineSeparator()).append("    no stack samples (stall shorter than one sampling interval)");
+            System.err.println(sb);
+            return;
+        }
+
+        Map<String, Integer> callSites = new HashMap<>();
+        String listener = null;
+        synchronized (stuck) {
+            for (StackTraceElement[] stack : stuck) {
+                int top = firstApplicationFrame(stack);
+                if (top < 0) continue;
+                callSites.merge(stack[top].toString(), 1, Integer::sum);
+                // The deepest application frame is the listener the event was delivered to
+                for (int i = stack.length - 1; i >= 0; i--) {
+                    if (!isPlatformFrame(stack[i])) {
+                        listener = stack[i].toString();
+                        break;
+                    }
+                }
+            }
+        }
+        if (listener != null) {
+            sb.append(System.lineSeparator()).append("    listener: ").append(listener);
+        }
+        int total = stuck.size();
+        callSites.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(3)
+                .forEach(e -> sb.append(System.lineSeparator()).append("    at ").append(e.getKey())
+                        .append(" (").append(e.getValue()).append('/').append(total).append(" samples)"));
+        if (callSites.isEmpty()) {
+            sb.append(System.lineSeparator()).append("    at ").append(stuck.get(0)[0]).append(" (platform code only)");
+        }
+        System.err.println(sb);
+    }
+
+    private static String describe(AWTEvent event) {
+        Object source = event.getSource();
+        String sourceName = source == null ? "null" : source.getClass().getSimpleName();
+        if (source instanceof javax.swing.AbstractButton) {
+            sourceName += " \"" + ((javax.swing.AbstractButton) source).getText() + "\"";
+        }
+        return event.getClass().getSimpleName() + " from " + sourceName;
+    }
+
+    private static int firstApplicationFrame(StackTraceElement[] stack) {
+        for (int i = 0; i < stack.length; i++) {
+            if (!isPlatformFrame(stack[i])) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isPlatformFrame(StackTraceElement frame) {
+        String c = frame.getClassName();
+        return c.startsWith("java.") || c.startsWith("javax.") || c.startsWith("sun.")
+                || c.startsWith("jdk.") || c.startsWith("com.sun.") || c.equals(EdtWatchdog.class.getName());
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * A computer player. The host (the game screen, {@link Tournament} or a
+ * benchmark) calls {@link #chooseMove} whenever it is the engine's turn and
+ * plays the returned cell; the engine never touches the UI or the clock.
+ *
+ * Engines are found through {@link EngineProvider} and created with
+ * {@link Engines#create}. An engine may keep state between moves and is
+ * only ever called from one thread at a time. Engines that hold on to
+ * outside resources, such as an {@link ExternalEngine} process, release
+ * them in {@link #close}.
+ */
+public interface Engine extends AutoCloseable {
+    /** The name the engine was created under, as shown in the settings. */
+    String name();
+
+    /**
+     * Picks a move for the side to move. The board must be left unchanged.
+     * @param timeBudgetNanos how long the engine may think, {@code Long.MAX_VALUE} for no limit
+     * @return an empty cell
+     */
+    int chooseMove(Board board, long timeBudgetNanos);
+
+    /** Search nodes spent on the last move, 0 for engines that do not search. */
+    default long lastNodes() {
+        return 0;
+    }
+
+    /** Deepest completed search iteration for the last move, 0 if unknown. */
+    default int lastDepth() {
+        return 0;
+    }
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,19 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Service interface for adding engines. Implementations are listed in
+ * {@code META-INF/services/EngineProvider} and found with
+ * {@link java.util.ServiceLoader}, so an engine in another jar on the class
+ * path shows up in the settings and in {@link Tournament} without any change here.
+ */
+public interface EngineProvider {
+    /** Names of the engines this provider creates, unique across providers. */
+    List<String> engineNames();
+
+    /**
+     * Creates a new engine. Each game or thread gets its own instance.
+     * @param random source of randomness, seeded by the caller for reproducible runs
+     */
+    Engine create(String name, Random random);
+}
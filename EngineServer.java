@@ -0,0 +1,138 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves one of this game's engines over a line-based text protocol on
+ * stdin/stdout, modelled on UCI, so it can be driven from another process.
+ * {@link ExternalEngine} is the other end. Every command and reply is one
+ * line of space-separated words; cells are numbered {@code row * size + col}.
+ *
+ * <pre>
+ * host:   ttt                          engine: id name &lt;name&gt;
+ *                                              tttok
+ * host:   isready                      engine: readyok
+ * host:   newgame
+ * host:   position &lt;size&gt; [moves c1 c2 ...]
+ * host:   go [movetime &lt;ms&gt;]           engine: info depth &lt;d&gt; nodes &lt;n&gt; time &lt;ms&gt;
+ *                                              bestmove &lt;cell&gt;
+ * host:   stop
+ * host:   quit
+ * </pre>
+ *
+ * Without {@code movetime} the engine searches within its own budget. Moves
+ * in {@code position} alternate starting with X. Unknown commands are ignored
+ * and malformed ones answered with {@code info string error ...}, as in UCI.
+ * The server exits on {@code quit} or when stdin closes.
+ *
+ * Usage: {@code java EngineServer [engine]}, e.g. {@code java EngineServer Perfect}
+ */
+public class EngineServer {
+    private final Engine engine;
+    private final Writer out;
+    private Board board = new Board(3);
+
+    public EngineServer(Engine engine, Writer out) {
+        this.engine = engine;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String name = args.length > 0 ? args[0] : Engines.DEFAULT;
+        if (!Engines.exists(name)) {
+            System.err.println("Unknown engine: " + name + " (available: " + Engines.names() + ")");
+            System.exit(1);
+        }
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try (Engine engine = Engines.create(name)) {
+            new EngineServer(engine, out).run(in);
+        }
+    }
+
+    public void run(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line.trim())) break;
+        }
+    }
+
+    /**
+     * Executes one command and flushes any reply.
+     * @return false once the host has asked the server to quit
+     */
+    public boolean handle(String line) throws IOException {
+        String[] words = line.split("\\s+");
+        try {
+            switch (words[0]) {
+                case "ttt":
+                    send("id name " + engine.name());
+                    send("tttok");
+                    break;
+                case "isready":
+                    send("readyok");
+                    break;
+                case "newgame":
+                    board = new Board(board.size());
+                    break;
+                case "position":
+                    board = parsePosition(words);
+                    break;
+                case "go":
+                    go(words);
+                    break;
+                case "quit":
+                    return false;
+                default:
+                    // "stop" and anything unknown: searches here always end on their own budget
+                    break;
+            }
+        } catch (IllegalArgumentException e) {
+            send("info string error " + e.getMessage());
+        }
+        out.flush();
+        return true;
+    }
+
+    private static Board parsePosition(String[] words) {
+        if (words.length < 2) throw new IllegalArgumentException("position needs a board size");
+        Board position = new Board(Integer.parseInt(words[1]));
+        if (words.length > 2) {
+            if (!words[2].equals("moves")) throw new IllegalArgumentException("expected 'moves' but got " + words[2]);
+            for (int i = 3; i < words.length; i++) {
+                int cell = Integer.parseInt(words[i]);
+                if (cell < 0 || cell >= position.cells() || !position.isEmpty(cell) || position.isGameOver()) {
+                    throw new IllegalArgumentException("illegal move " + cell);
+                }
+                position.play(cell);
+            }
+        }
+        return position;
+    }
+
+    private void go(String[] words) throws IOException {
+        long budget = Long.MAX_VALUE;
+        for (int i = 1; i + 1 < words.length; i += 2) {
+            if (words[i].equals("movetime")) budget = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(words[i + 1]));
+        }
+        if (board.isGameOver()) {
+            send("bestmove none");
+            return;
+        }
+        long start = System.nanoTime();
+        int move = engine.chooseMove(board, budget);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        send("info depth " + engine.lastDepth() + " nodes " + engine.lastNodes() + " time " + millis);
+        send("bestmove " + move);
+    }
+
+    private void send(String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+    }
+}
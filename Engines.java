@@ -0,0 +1,61 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.ServiceLoader;
+
+/**
+ * Registry of every engine on the class path, discovered once through
+ * {@link ServiceLoader}.
+ */
+public final class Engines {
+    public static final String DEFAULT = "Medium";
+
+    private static final Map<String, EngineProvider> PROVIDERS = new LinkedHashMap<>();
+
+    static {
+        for (EngineProvider provider : ServiceLoader.load(EngineProvider.class)) {
+            for (String name : provider.engineNames()) {
+                if (PROVIDERS.putIfAbsent(name, provider) != null) {
+                    System.err.println("Duplicate engine name ignored: " + name + " from " + provider.getClass().getName());
+                }
+            }
+        }
+        if (PROVIDERS.isEmpty()) {
+            // Running from a classpath without META-INF, e.g. classes compiled to another directory
+            EngineProvider builtIn = new BuiltInEngines();
+            for (String name : builtIn.engineNames()) {
+                PROVIDERS.put(name, builtIn);
+            }
+        }
+    }
+
+    private Engines() {
+    }
+
+    public static List<String> names() {
+        return Collections.unmodifiableList(new ArrayList<>(PROVIDERS.keySet()));
+    }
+
+    public static boolean exists(String name) {
+        return PROVIDERS.containsKey(name);
+    }
+
+    public static Engine create(String name) {
+        return create(name, new Random());
+    }
+
+    /**
+     * Creates the named engine.
+     * @throws IllegalArgumentException if no provider offers it
+     */
+    public static Engine create(String name, Random random) {
+        EngineProvider provider = PROVIDERS.get(name);
+        if (provider == null) {
+            throw new IllegalArgumentException("Unknown engine: " + name + " (available: " + PROVIDERS.keySet() + ")");
+        }
+        return provider.create(name, random);
+    }
+}
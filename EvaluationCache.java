@@ -0,0 +1,242 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide cache of search results, shared by every game, bot and headless
+ * run in the JVM so positions that keep coming back are only searched once.
+ *
+ * The table is split into lock-striped segments. Each segment is a set of
+ * 8-way buckets; when a bucket is full the victim is chosen with the CLOCK
+ * (second chance) algorithm, so recently hit entries survive. Memory is
+ * bounded up front: all arrays are allocated once and never grow.
+ *
+ * Entries are keyed by the exact position (both bitmasks plus the board
+ * size), so there are no false hits.
+ */
+public final class EvaluationCache {
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    /** Returned by {@link #probe} when the position is not cached. */
+    public static final long MISS = -1L;
+
+    // 8 + 8 bytes of key, 4 bytes of score, 2 bytes of meta data, 1 reference bit
+    static final int BYTES_PER_ENTRY = 23;
+    private static final int WAYS = 8;
+    private static final int SEGMENTS = 64;
+    private static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    private static volatile EvaluationCache shared;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int bucketMask;
+    private final long capacity;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxBytes hard upper bound for the table's memory use
+     */
+    public EvaluationCache(long maxBytes) {
+        long entriesPerSegment = Math.max(WAYS, maxBytes / BYTES_PER_ENTRY / SEGMENTS);
+        int buckets = Integer.highestOneBit((int) Math.min(1 << 24, entriesPerSegment / WAYS));
+        this.bucketMask = buckets - 1;
+        this.capacity = (long) buckets * WAYS * SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(buckets * WAYS);
+        }
+    }
+
+    /**
+     * Returns the cache shared by the whole process. Its size can be set with
+     * {@code -Dttt.cache.mb=<megabytes>}.
+     */
+    public static EvaluationCache shared() {
+        EvaluationCache cache = shared;
+        if (cache == null) {
+            synchronized (EvaluationCache.class) {
+                cache = shared;
+                if (cache == null) {
+                    long mb = Long.getLong("ttt.cache.mb", DEFAULT_MAX_BYTES / (1024 * 1024));
+                    cache = new EvaluationCache(mb * 1024 * 1024);
+                    shared = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Looks up a position.
+     * @return the packed entry (decode with {@link #score}, {@link #depth},
+     *         {@link #flag} and {@link #move}) or {@link #MISS}
+     */
+    public long probe(Board board) {
+        long a = board.xBits();
+        long b = keyB(board);
+        long h = mix(a, b);
+        Segment seg = segments[(int) (h >>> 58)];
+        int base = ((int) h & bucketMask) * WAYS;
+        synchronized (seg) {
+            for (int i = base; i < base + WAYS; i++) {
+                if (seg.keyB[i] == b && seg.keyA[i] == a) {
+                    seg.referenced[i] = 1;
+                    hits.increment();
+                    return ((long) (seg.meta[i] & 0xFFFF) << 32) | (seg.score[i] & 0xFFFFFFFFL);
+                }
+            }
+        }
+        misses.increment();
+        return MISS;
+    }
+
+    /**
+     * Stores a search result. An existing entry for the same position is only
+     * replaced by a result searched at least as deep.
+     */
+    public void store(Board board, int score, int depth, int flag, int move) {
+        long a = board.xBits();
+        long b = keyB(board);
+        long h = mix(a, b);
+        Segment seg = segments[(int) (h >>> 58)];
+        int base = ((int) h & bucketMask) * WAYS;
+        short packed = (short) ((depth & 0x3F) | (flag & 0x3) << 6 | (move & 0x3F) << 8);
+        synchronized (seg) {
+            int free = -1;
+            for (int i = base; i < base + WAYS; i++) {
+                if (seg.keyB[i] == b && seg.keyA[i] == a) {
+                    if (depth >= (seg.meta[i] & 0x3F)) {
+                        seg.score[i] = score;
+                        seg.meta[i] = packed;
+                    }
+                    seg.referenced[i] = 1;
+                    return;
+                }
+                if (free < 0 && seg.keyB[i] == 0) free = i;
+            }
+            if (free < 0) {
+                free = clockVictim(seg, base);
+                evictions.increment();
+            }
+            seg.keyA[free] = a;
+            seg.keyB[free] = b;
+            seg.score[free] = score;
+            seg.meta[free] = packed;
+            seg.referenced[free] = 0;
+        }
+        stores.increment();
+    }
+
+    /**
+     * Sweeps the bucket's clock hand, clearing reference bits until an entry
+     * that has not been hit since the last sweep is found.
+     */
+    private static int clockVictim(Segment seg, int base) {
+        int bucket = base / WAYS;
+        int hand = seg.hands[bucket];
+        while (seg.referenced[base + hand] != 0) {
+            seg.referenced[base + hand] = 0;
+            hand = (hand + 1) & (WAYS - 1);
+        }
+        seg.hands[bucket] = (byte) ((hand + 1) & (WAYS - 1));
+        return base + hand;
+    }
+
+    public void clear() {
+        for (Segment seg : segments) {
+            synchronized (seg) {
+                java.util.Arrays.fill(seg.keyA, 0L);
+                java.util.Arrays.fill(seg.keyB, 0L);
+                java.util.Arrays.fill(seg.referenced, (byte) 0);
+            }
+        }
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 32) & 0x3F;
+    }
+
+    public static int flag(long entry) {
+        return (int) (entry >>> 38) & 0x3;
+    }
+
+    public static int move(long entry) {
+        return (int) (entry >>> 40) & 0x3F;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long stores() {
+        return stores.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    public long memoryBytes() {
+        return capacity * BYTES_PER_ENTRY;
+    }
+
+    /**
+     * @return fraction of probes that were hits, 0 when nothing was probed yet
+     */
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EvaluationCache[capacity=%d, %d KB, hits=%d, misses=%d, hitRate=%.1f%%, stores=%d, evictions=%d]",
+                capacity, memoryBytes() / 1024, hits(), misses(), hitRate() * 100, stores(), evictions());
+    }
+
+    // The size lives above the O bits so 3x3 and 4x4 positions with equal masks never collide.
+    private static long keyB(Board board) {
+        return board.oBits() | ((long) board.size() << 40);
+    }
+
+    private static long mix(long a, long b) {
+        long h = a * 0x9E3779B97F4A7C15L ^ b * 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 31;
+        h *= 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 29);
+    }
+
+    private static final class Segment {
+        final long[] keyA;
+        final long[] keyB;
+        final int[] score;
+        final short[] meta;
+        final byte[] referenced;
+        final byte[] hands;
+
+        Segment(int entries) {
+            keyA = new long[entries];
+            keyB = new long[entries];
+            score = new int[entries];
+            meta = new short[entries];
+            referenced = new byte[entries];
+            hands = new byte[entries / WAYS];
+        }
+    }
+}
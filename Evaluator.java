@@ -0,0 +1,27 @@
+/**
+ * Static evaluation used by {@link Search} at the depth horizon.
+ * Scores are from the point of view of the side to move and must stay well
+ * inside {@code ±Search.WIN_THRESHOLD}.
+ */
+public interface Evaluator {
+    int evaluate(Board board);
+
+    /**
+     * A score that stands for a clear advantage, for scaling displays such as
+     * the ANALYZE heatmap.
+     */
+    default int clearAdvantage() {
+        return 20;
+    }
+
+    /**
+     * Picks the evaluator for a board size: the hand-written
+     * {@link LineEvaluator}, with tuned weights if there are some. The trained
+     * {@link NTupleNetwork} has not beaten it in a measured match yet, so it
+     * only plays on 5x5 and 6x6 when asked for with {@code -Dttt.eval=ntuple}.
+     */
+    static Evaluator forSize(int size) {
+        Evaluator network = NTupleNetwork.SELECTED && size >= 5 ? NTupleNetwork.forSize(size) : null;
+        return network != null ? network : LineEvaluator.forSize(size);
+    }
+}
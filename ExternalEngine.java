@@ -0,0 +1,235 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An engine running in a separate process, driven over the text protocol
+ * described in {@link EngineServer}. The process gets its own heap and cores
+ * and may be written in any language; it is started on construction and
+ * told to quit on {@link #close}.
+ *
+ * Replies are read by a daemon thread into a queue so a silent or dead
+ * engine can be timed out: a move that takes longer than its budget plus
+ * {@value #GRACE_MILLIS} ms gets a {@code stop}, and if the engine still does
+ * not answer {@link #chooseMove} throws {@link IllegalStateException}.
+ *
+ * {@code java ExternalEngine <moves> <command...>} measures the round trip,
+ * e.g. {@code java ExternalEngine 10000 java EngineServer Random}.
+ */
+public class ExternalEngine implements Engine {
+    private static final long HANDSHAKE_MILLIS = 10_000;
+    private static final long GRACE_MILLIS = 2_000;
+    private static final String EOF = "\u0000eof";
+
+    private final String name;
+    private final Process process;
+    private final Writer toEngine;
+    private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+    private final StringBuilder command = new StringBuilder();
+    private long lastNodes;
+    private int lastDepth;
+
+    public ExternalEngine(String name, List<String> commandLine) throws IOException {
+        this.name = name;
+        this.process = new ProcessBuilder(commandLine).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        this.toEngine = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        BufferedReader fromEngine = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        Thread reader = new Thread(() -> {
+            try {
+                String line;
+                while ((line = fromEngine.readLine()) != null) {
+                    replies.add(line);
+                }
+            } catch (IOException e) {
+                // the process went away; reported as end of stream below
+            }
+            replies.add(EOF);
+        }, "engine-" + name);
+        reader.setDaemon(true);
+        reader.start();
+
+        String ok;
+        try {
+            send("ttt");
+            ok = await("tttok", TimeUnit.MILLISECONDS.toNanos(HANDSHAKE_MILLIS));
+        } catch (IllegalStateException e) {
+            ok = null;
+        }
+        if (ok == null) {
+            close();
+            throw new IOException("Engine " + name + " did not answer the handshake: " + commandLine);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java ExternalEngine <moves> <command...>");
+            System.exit(1);
+        }
+        int moves = Integer.parseInt(args[0]);
+        try (ExternalEngine engine = new ExternalEngine("bench", Arrays.asList(args).subList(1, args.length))) {
+            Board board = new Board(6);
+            long[] nanos = new long[moves];
+            for (int i = 0; i < moves; i++) {
+                if (board.isGameOver()) board.clear();
+                long start = System.nanoTime();
+                board.play(engine.chooseMove(board, TimeUnit.SECONDS.toNanos(1)));
+                nanos[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            long warm = moves / 10; // leave out JIT warm-up on both sides
+            double mean = Arrays.stream(nanos, 0, (int) (moves - warm)).average().orElse(0);
+            System.out.printf("%d moves: mean %.1f us, p50 %.1f us, p99 %.1f us, max %.1f us%n", moves,
+                    mean / 1e3, nanos[moves / 2] / 1e3, nanos[(int) (moves * 0.99)] / 1e3, nanos[moves - 1] / 1e3);
+        }
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int chooseMove(Board board, long timeBudgetNanos) {
+        // Drop a late answer to a move that already timed out, but keep the end-of-stream marker
+        for (String stale; (stale = replies.poll()) != null; ) {
+            if (stale == EOF) {
+                replies.add(EOF);
+                break;
+            }
+        }
+        command.setLength(0);
+        command.append("position ").append(board.size());
+        if (board.moveCount() > 0) command.append(" moves");
+        // Any interleaving of the X and O cells reaches the same position
+        long x = board.xBits(), o = board.oBits();
+        while (x != 0 || o != 0) {
+            if (x != 0) {
+                command.append(' ').append(Long.numberOfTrailingZeros(x));
+                x &= x - 1;
+            }
+            if (o != 0) {
+                command.append(' ').append(Long.numberOfTrailingZeros(o));
+                o &= o - 1;
+            }
+        }
+        command.append('\n');
+        long wait = Long.MAX_VALUE;
+        if (timeBudgetNanos == Long.MAX_VALUE) {
+            command.append("go");
+        } else {
+            command.append("go movetime ").append(Math.max(1, TimeUnit.NANOSECONDS.toMillis(timeBudgetNanos)));
+            wait = timeBudgetNanos + TimeUnit.MILLISECONDS.toNanos(GRACE_MILLIS);
+        }
+        send(command.toString());
+
+        String reply = await("bestmove", wait);
+        if (reply == null) {
+            send("stop");
+            reply = await("bestmove", TimeUnit.MILLISECONDS.toNanos(500));
+        }
+        if (reply == null) throw new IllegalStateException("Engine " + name + " did not reply in time");
+        String[] words = reply.split("\\s+");
+        if (words.length < 2) throw new IllegalStateException("Engine " + name + " sent a malformed reply: " + reply);
+        int move;
+        try {
+            move = Integer.parseInt(words[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Engine " + name + " sent a malformed reply: " + reply);
+        }
+        if (move < 0 || move >= board.cells() || !board.isEmpty(move)) {
+            throw new IllegalStateException("Engine " + name + " played an illegal move: " + reply);
+        }
+        return move;
+    }
+
+    /**
+     * Waits for a reply starting with {@code keyword}, picking up search
+     * statistics from {@code info} lines on the way.
+     * @return the reply, or null on timeout
+     */
+    private String await(String keyword, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        lastNodes = 0;
+        lastDepth = 0;
+        try {
+            while (true) {
+                long left = timeoutNanos == Long.MAX_VALUE ? Long.MAX_VALUE : deadline - System.nanoTime();
+                String line = replies.poll(left, TimeUnit.NANOSECONDS);
+                if (line == null) return null;
+                if (line == EOF) {
+                    replies.add(EOF); // later calls fail fast too
+                    throw new IllegalStateException("Engine " + name + " exited with code " + exitCode());
+                }
+                if (line.startsWith(keyword)) return line;
+                if (line.startsWith("info ")) parseInfo(line);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void parseInfo(String line) {
+        String[] words = line.split("\\s+");
+        for (int i = 1; i + 1 < words.length; i++) {
+            try {
+                if (words[i].equals("nodes")) lastNodes = Long.parseLong(words[i + 1]);
+                else if (words[i].equals("depth")) lastDepth = Integer.parseInt(words[i + 1]);
+            } catch (NumberFormatException e) {
+                // info lines are advisory
+            }
+        }
+    }
+
+    private String exitCode() {
+        try {
+            return process.waitFor(1, TimeUnit.SECONDS) ? String.valueOf(process.exitValue()) : "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+
+    private void send(String text) {
+        try {
+            toEngine.write(text);
+            toEngine.write('\n');
+            toEngine.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Engine " + name + " is not accepting input: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long lastNodes() {
+        return lastNodes;
+    }
+
+    @Override
+    public int lastDepth() {
+        return lastDepth;
+    }
+
+    @Override
+    public void close() {
+        try {
+            send("quit");
+            if (!process.waitFor(500, TimeUnit.MILLISECONDS)) process.destroy();
+        } catch (IllegalStateException e) {
+            process.destroy();
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
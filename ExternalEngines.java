@@ -0,0 +1,64 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Makes engines in other processes selectable like built-in ones. Each line
+ * of {@code engines.txt} (or the file named by {@code -Dttt.engines}) maps an
+ * engine name to the command that starts it, for example
+ *
+ * <pre>
+ * # name = command
+ * Perfect (process) = java -cp . EngineServer Perfect
+ * </pre>
+ *
+ * Commands are split on whitespace; arguments cannot contain spaces. They
+ * run in the game's working directory.
+ */
+public class ExternalEngines implements EngineProvider {
+    private final Map<String, String> commands = new LinkedHashMap<>();
+
+    public ExternalEngines() {
+        Path file = Paths.get(System.getProperty("ttt.engines", "engines.txt"));
+        if (!Files.exists(file)) return;
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                line = line.trim();
+                int split = line.indexOf('=');
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                if (split <= 0 || split == line.length() - 1) {
+                    System.err.println("Ignoring malformed line in " + file + ": " + line);
+                    continue;
+                }
+                commands.put(line.substring(0, split).trim(), line.substring(split + 1).trim());
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to read " + file + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<String> engineNames() {
+        return new ArrayList<>(commands.keySet());
+    }
+
+    @Override
+    public Engine create(String name, Random random) {
+        String command = commands.get(name);
+        if (command == null) throw new IllegalArgumentException("Unknown engine: " + name);
+        try {
+            return new ExternalEngine(name, Arrays.asList(command.split("\\s+")));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start engine " + name, e);
+        }
+    }
+}
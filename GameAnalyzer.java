@@ -0,0 +1,204 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command-line miner for recorded games. Streams {@link GameRecord} lines from
+ * disk, re-evaluates every position with the engine on all cores and prints a
+ * report per board size: results, average length, most played openings and
+ * blunders (moves that threw away a forced win or walked into a forced loss).
+ *
+ * Only a bounded window of games is in flight at any time and the engine cache
+ * has a fixed size, so memory use does not depend on the size of the input.
+ *
+ * Usage: {@code java GameAnalyzer [games.txt] [--depth N] [--threads N]}
+ */
+public class GameAnalyzer {
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final int depth;
+    private final Map<Integer, SizeReport> reports = new TreeMap<>();
+    private final AtomicLong gamesDone = new AtomicLong();
+    private final AtomicLong positionsDone = new AtomicLong();
+    private final AtomicLong malformed = new AtomicLong();
+    private final ThreadLocal<Search> searches = ThreadLocal.withInitial(Search::new);
+
+    /**
+     * @param depth search depth per position, 0 to search every position to the end
+     */
+    public GameAnalyzer(int depth) {
+        this.depth = depth;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path file = GameRecorder.GAMES_FILE;
+        int depth = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--depth": depth = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                default: file = Paths.get(args[i]);
+            }
+        }
+        if (!Files.exists(file)) {
+            System.err.println("Game file not found: " + file.toAbsolutePath());
+            System.exit(1);
+        }
+
+        GameAnalyzer analyzer = new GameAnalyzer(depth);
+        long start = System.nanoTime();
+        analyzer.run(file, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        analyzer.printReport(System.out);
+        System.out.printf("Analysed %d games (%d positions) in %.2f s: %.0f games/s, %.0f positions/s%n",
+                analyzer.gamesDone.get(), analyzer.positionsDone.get(), seconds,
+                analyzer.gamesDone.get() / seconds, analyzer.positionsDone.get() / seconds);
+        if (analyzer.malformed.get() > 0) {
+            System.out.println("Skipped " + analyzer.malformed.get() + " malformed lines");
+        }
+        System.out.println(EvaluationCache.shared());
+    }
+
+    /**
+     * Streams the file through a pool of {@code threads} workers. The reader
+     * runs a game itself when the work queue is full, which keeps the number
+     * of games held in memory bounded.
+     */
+    public void run(Path file, int threads) throws IOException, InterruptedException {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 64), new ThreadPoolExecutor.CallerRunsPolicy());
+        long start = System.nanoTime();
+        long nextProgress = start + PROGRESS_INTERVAL_NANOS;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String record = line;
+                pool.execute(() -> analyze(record));
+                long now = System.nanoTime();
+                if (now >= nextProgress) {
+                    double seconds = (now - start) / 1e9;
+                    System.err.printf("... %d games, %.0f games/s%n", gamesDone.get(), gamesDone.get() / seconds);
+                    nextProgress = now + PROGRESS_INTERVAL_NANOS;
+                }
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+    }
+
+    private void analyze(String line) {
+        GameRecord game;
+        try {
+            game = GameRecord.parse(line);
+        } catch (IllegalArgumentException e) {
+            if (malformed.incrementAndGet() <= 5) System.err.println(e.getMessage());
+            return;
+        }
+        if (game.size() < 3 || game.size() > 6) {
+            malformed.incrementAndGet();
+            return;
+        }
+
+        Search search = searches.get();
+        Board board = new Board(game.size());
+        int searchDepth = depth > 0 ? depth : board.cells();
+        int blunders = 0;
+        for (int i = 0; i < game.moveCount(); i++) {
+            int move = game.move(i);
+            if (board.isGameOver() || !board.isEmpty(move)) {
+                malformed.incrementAndGet();
+                return;
+            }
+            Search.Result best = search.bestMove(board, searchDepth);
+            int played = search.scoreMove(board, move, searchDepth);
+            if (isBlunder(best.score, played)) blunders++;
+            board.play(move);
+        }
+        positionsDone.addAndGet(game.moveCount());
+        report(game.size()).add(game, blunders);
+        gamesDone.incrementAndGet();
+    }
+
+    /**
+     * A blunder changes the proven outcome: a forced win that is no longer
+     * one, or a position that was not lost turning into a forced loss.
+     */
+    static boolean isBlunder(int bestScore, int playedScore) {
+        if (bestScore > Search.WIN_THRESHOLD) return playedScore <= Search.WIN_THRESHOLD;
+        return bestScore >= -Search.WIN_THRESHOLD && playedScore < -Search.WIN_THRESHOLD;
+    }
+
+    private SizeReport report(int size) {
+        synchronized (reports) {
+            return reports.computeIfAbsent(size, SizeReport::new);
+        }
+    }
+
+    public void printReport(java.io.PrintStream out) {
+        synchronized (reports) {
+            for (SizeReport report : reports.values()) {
+                report.print(out);
+            }
+        }
+    }
+
+    /**
+     * Running totals for one board size.
+     */
+    private static final class SizeReport {
+        private final int size;
+        private final long[] openingCounts;
+        private final long[] results = new long[3];
+        private long games;
+        private long moves;
+        private long blunders;
+        private long gamesWithBlunders;
+
+        SizeReport(int size) {
+            this.size = size;
+            this.openingCounts = new long[size * size];
+        }
+
+        synchronized void add(GameRecord game, int gameBlunders) {
+            games++;
+            moves += game.moveCount();
+            results[game.result()]++;
+            blunders += gameBlunders;
+            if (gameBlunders > 0) gamesWithBlunders++;
+            if (game.moveCount() > 0) openingCounts[game.move(0)]++;
+        }
+
+        synchronized void print(java.io.PrintStream out) {
+            out.printf("== %dx%d: %d games ==%n", size, size, games);
+            if (games == 0) return;
+            out.printf("  X wins %d, O wins %d, draws %d%n", results[Board.X], results[Board.O], results[GameRecord.DRAW]);
+            out.printf("  average length %.2f moves%n", (double) moves / games);
+            out.printf("  blunders %d (%.1f%% of games have one)%n", blunders, 100.0 * gamesWithBlunders / games);
+            out.print("  top openings:");
+            boolean[] shown = new boolean[openingCounts.length];
+            for (int k = 0; k < 5; k++) {
+                int best = -1;
+                for (int c = 0; c < openingCounts.length; c++) {
+                    if (!shown[c] && openingCounts[c] > 0 && (best < 0 || openingCounts[c] > openingCounts[best])) best = c;
+                }
+                if (best < 0) break;
+                shown[best] = true;
+                out.printf(" (%d,%d) %.1f%%", best / size, best % size, 100.0 * openingCounts[best] / games);
+            }
+            out.println();
+        }
+    }
+}
@@ -0,0 +1,639 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary archive for very large numbers of finished games.
+ *
+ * Each game is an 11-bit header (board size - 3, mode, result, move count)
+ * followed by its cells bit-packed at the narrowest width that fits the
+ * board: 4 bits on 3x3 and 4x4, 5 on 5x5 and 6 on 6x6. A typical 3x3 game
+ * takes about 5 bytes against 25 as a line of {@code games.txt}. Games are
+ * packed back to back into blocks of {@value #BLOCK_GAMES}, and every block is
+ * deflated on its own so any block can be read without the ones before it.
+ *
+ * <pre>
+ * archive:  int magic "TTTA", int version, int games per block
+ *           per block: int raw length, int compressed length, int games, deflated bits
+ *           footer: long offset of every block, long games, int blocks, int magic
+ * index:    int magic "TTTI", int version, int blocks
+ *           per block: short n, then n x (short key, int count)
+ * </pre>
+ *
+ * The sidecar index ({@code <archive>.idx}) counts the games of every block
+ * by board size, result and first move, so counts come straight from the
+ * index and queries only inflate blocks that can contain a match. The reader
+ * memory-maps the archive, which keeps queries over hundreds of millions of
+ * games off the Java heap.
+ *
+ * Usage:
+ * <pre>
+ * java GameArchive pack  [games.txt] [games.tttar]
+ * java GameArchive query [games.tttar] [--size N] [--result X|O|D] [--opening 4,0]
+ * java GameArchive cat   [games.tttar] [first] [count]
+ * </pre>
+ */
+public final class GameArchive {
+    public static final int BLOCK_GAMES = 1024;
+    public static final String SINGLEPLAYER = "Singleplayer";
+    public static final String MULTIPLAYER = "Multiplayer";
+
+    private static final int MAGIC = 0x54545441; // "TTTA"
+    private static final int INDEX_MAGIC = 0x54545449; // "TTTI"
+    private static final int VERSION = 1;
+    private static final int FOOTER_BYTES = 16;
+    private static final int NO_MOVE = 63;
+    private static final long MAX_MAPPING = 1L << 30;
+
+    private GameArchive() {
+    }
+
+    public static Path indexFile(Path archive) {
+        return archive.resolveSibling(archive.getFileName() + ".idx");
+    }
+
+    /** Bits per cell index for a board size: 4, 4, 5 or 6. */
+    public static int moveBits(int size) {
+        return 32 - Integer.numberOfLeadingZeros(size * size - 1);
+    }
+
+    /** Index key: board size, result and the first move (or none). */
+    private static int key(int size, int result, int firstMove) {
+        return (size - 3) << 8 | result << 6 | firstMove;
+    }
+
+    /**
+     * Receives games while an archive is read. The moves array is reused for
+     * the next game, so a visitor that keeps it must copy it.
+     */
+    public interface GameVisitor {
+        void visit(long index, int size, String mode, int result, byte[] moves, int moveCount);
+    }
+
+    /**
+     * Games to visit: any combination of board size, result and opening
+     * moves. Null fields match everything.
+     */
+    public static final class Query {
+        final Integer size;
+        final Integer result;
+        final byte[] opening;
+
+        public Query(Integer size, Integer result, byte[] opening) {
+            this.size = size;
+            this.result = result;
+            this.opening = opening == null ? new byte[0] : opening.clone();
+        }
+
+        public static Query all() {
+            return new Query(null, null, null);
+        }
+
+        boolean matchesKey(int key) {
+            int s = (key >> 8) + 3;
+            int r = key >> 6 & 3;
+            int first = key & 63;
+            return (size == null || size == s) && (result == null || result == r)
+                    && (opening.length == 0 || opening[0] == first);
+        }
+
+        boolean matchesHeader(int s, int r, int moveCount) {
+            return (size == null || size == s) && (result == null || result == r) && opening.length <= moveCount;
+        }
+
+        boolean matchesOpening(byte[] moves) {
+            for (int i = 0; i < opening.length; i++) {
+                if (moves[i] != opening[i]) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Appends games to a new archive and writes the index on {@link #close}.
+     */
+    public static final class Writer implements Closeable {
+        private final Path indexFile;
+        private final DataOutputStream out;
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        private final List<Long> blockOffsets = new ArrayList<>();
+        private final List<int[]> blockKeyCounts = new ArrayList<>();
+        private final int[] keyCounts = new int[1024];
+        private byte[] compressed = new byte[64 * 1024];
+        private final BitWriter bits = new BitWriter();
+        private long offset;
+        private long games;
+        private int blockGames;
+
+        public Writer(Path archive) throws IOException {
+            this.indexFile = indexFile(archive);
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(archive), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(BLOCK_GAMES);
+            offset = 12;
+        }
+
+        public void add(GameRecord game) throws IOException {
+            byte[] moves = game.moves();
+            add(game.size(), game.mode(), game.result(), moves, moves.length);
+        }
+
+        /**
+         * @throws IllegalArgumentException for a mode other than single or multiplayer,
+         *         or a game that does not fit the board
+         */
+        public void add(int size, String mode, int result, byte[] moves, int moveCount) throws IOException {
+            if (size < 3 || size > 6 || moveCount < 0 || moveCount > size * size || result < 0 || result > 2) {
+                throw new IllegalArgumentException("Game does not fit a " + size + "x" + size + " board");
+            }
+            // Checked before anything is written, since a bad move would shift every later game in the block
+            for (int i = 0; i < moveCount; i++) {
+                if (moves[i] < 0 || moves[i] >= size * size) {
+                    throw new IllegalArgumentException("Move " + moves[i] + " is off a " + size + "x" + size + " board");
+                }
+            }
+            boolean multiplayer;
+            if (mode.equals(SINGLEPLAYER)) multiplayer = false;
+            else if (mode.equals(MULTIPLAYER)) multiplayer = true;
+            else throw new IllegalArgumentException("Unknown game mode: " + mode);
+
+            int width = moveBits(size);
+            bits.write(size - 3, 2);
+            bits.write(multiplayer ? 1 : 0, 1);
+            bits.write(result, 2);
+            bits.write(moveCount, 6);
+            for (int i = 0; i < moveCount; i++) {
+                bits.write(moves[i], width);
+            }
+            keyCounts[key(size, result, moveCount > 0 ? moves[0] : NO_MOVE)]++;
+            games++;
+            if (++blockGames == BLOCK_GAMES) flushBlock();
+        }
+
+        public long games() {
+            return games;
+        }
+
+        private void flushBlock() throws IOException {
+            if (blockGames == 0) return;
+            byte[] raw = bits.bytes();
+            int rawLength = bits.length();
+            deflater.reset();
+            deflater.setInput(raw, 0, rawLength);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            blockOffsets.add(offset);
+            out.writeInt(rawLength);
+            out.writeInt(length);
+            out.writeInt(blockGames);
+            out.write(compressed, 0, length);
+            offset += 12 + length;
+
+            int n = 0;
+            for (int count : keyCounts) {
+                if (count > 0) n++;
+            }
+            int[] entries = new int[n * 2];
+            for (int k = 0, e = 0; k < keyCounts.length; k++) {
+                if (keyCounts[k] > 0) {
+                    entries[e++] = k;
+                    entries[e++] = keyCounts[k];
+                }
+            }
+            blockKeyCounts.add(entries);
+            Arrays.fill(keyCounts, 0);
+            bits.clear();
+            blockGames = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushBlock();
+            for (long blockOffset : blockOffsets) {
+                out.writeLong(blockOffset);
+            }
+            out.writeLong(games);
+            out.writeInt(blockOffsets.size());
+            out.writeInt(MAGIC);
+            out.close();
+            deflater.end();
+
+            try (DataOutputStream index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)))) {
+                index.writeInt(INDEX_MAGIC);
+                index.writeInt(VERSION);
+                index.writeInt(blockKeyCounts.size());
+                for (int[] entries : blockKeyCounts) {
+                    index.writeShort(entries.length / 2);
+                    for (int e = 0; e < entries.length; e += 2) {
+                        index.writeShort(entries[e]);
+                        index.writeInt(entries[e + 1]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Read-only view of an archive, memory-mapped. Supports streaming every
+     * game, index-assisted queries and random access by game number. Not
+     * thread-safe; open one reader per thread.
+     */
+    public static final class Reader implements Closeable {
+        private final FileChannel channel;
+        private final long games;
+        private final int blockGames;
+        private final long[] blockOffsets;
+        private final MappedByteBuffer[] mappings;
+        private final long[] mappingOffsets;
+        private final int[] blockMapping;
+        private final int[][] index; // per block: key, count, key, count...; null without a sidecar
+        private final Inflater inflater = new Inflater();
+        private final BitReader bits = new BitReader();
+        private final byte[] moves = new byte[36];
+        private byte[] raw = new byte[64 * 1024];
+        private int cachedBlock = -1;
+
+        public Reader(Path archive) throws IOException {
+            channel = FileChannel.open(archive, StandardOpenOption.READ);
+            long fileSize = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(12);
+            readFully(header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not a game archive: " + archive);
+            }
+            blockGames = header.getInt(8);
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+            readFully(footer, fileSize - FOOTER_BYTES);
+            if (footer.getInt(12) != MAGIC) {
+                throw new IOException("Game archive is truncated (no footer): " + archive);
+            }
+            games = footer.getLong(0);
+            int blocks = footer.getInt(8);
+            long tableStart = fileSize - FOOTER_BYTES - 8L * blocks;
+            ByteBuffer table = ByteBuffer.allocate(8 * blocks);
+            readFully(table, tableStart);
+            blockOffsets = new long[blocks + 1];
+            for (int b = 0; b < blocks; b++) {
+                blockOffsets[b] = table.getLong(8 * b);
+            }
+            blockOffsets[blocks] = tableStart;
+
+            // Map the file in pieces under 1 GB, never splitting a block
+            List<MappedByteBuffer> maps = new ArrayList<>();
+            List<Long> starts = new ArrayList<>();
+            blockMapping = new int[blocks];
+            int first = 0;
+            while (first < blocks) {
+                int last = first;
+                while (last + 1 < blocks && blockOffsets[last + 2] - blockOffsets[first] <= MAX_MAPPING) last++;
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY,
+                        blockOffsets[first], blockOffsets[last + 1] - blockOffsets[first]);
+                for (int b = first; b <= last; b++) blockMapping[b] = maps.size();
+                maps.add(map);
+                starts.add(blockOffsets[first]);
+                first = last + 1;
+            }
+            mappings = maps.toArray(new MappedByteBuffer[0]);
+            mappingOffsets = starts.stream().mapToLong(Long::longValue).toArray();
+            index = readIndex(indexFile(archive), blocks);
+        }
+
+        private void readFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Unexpected end of archive");
+            }
+        }
+
+        private static int[][] readIndex(Path file, int blocks) throws IOException {
+            if (!Files.exists(file)) return null;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != INDEX_MAGIC || in.readInt() != VERSION || in.readInt() != blocks) {
+                    System.err.println("Ignoring stale or unknown index " + file);
+                    return null;
+                }
+                int[][] result = new int[blocks][];
+                for (int b = 0; b < blocks; b++) {
+                    int n = in.readShort();
+                    result[b] = new int[n * 2];
+                    for (int e = 0; e < n * 2; e += 2) {
+                        result[b][e] = in.readShort();
+                        result[b][e + 1] = in.readInt();
+                    }
+                }
+                return result;
+            }
+        }
+
+        public long games() {
+            return games;
+        }
+
+        public int blocks() {
+            return blockMapping.length;
+        }
+
+        /**
+         * Visits every game in archive order.
+         */
+        public void forEach(GameVisitor visitor) throws IOException {
+            query(Query.all(), visitor);
+        }
+
+        /**
+         * Visits the games matching {@code query}, skipping blocks the index
+         * shows to have none.
+         * @return the number of games visited
+         */
+        public long query(Query query, GameVisitor visitor) throws IOException {
+            long matched = 0;
+            for (int b = 0; b < blockMapping.length; b++) {
+                if (index != null && !blockMayMatch(b, query)) continue;
+                int count = loadBlock(b);
+                long first = (long) b * blockGames;
+                for (int g = 0; g < count; g++) {
+                    int size = bits.read(2) + 3;
+                    String mode = bits.read(1) == 0 ? SINGLEPLAYER : MULTIPLAYER;
+                    int result = bits.read(2);
+                    int moveCount = bits.read(6);
+                    int width = moveBits(size);
+                    if (!query.matchesHeader(size, result, moveCount)) {
+                        bits.skip(moveCount * width);
+                        continue;
+                    }
+                    for (int i = 0; i < moveCount; i++) {
+                        moves[i] = (byte) bits.read(width);
+                    }
+                    if (query.matchesOpening(moves)) {
+                        matched++;
+                        visitor.visit(first + g, size, mode, result, moves, moveCount);
+                    }
+                }
+            }
+            return matched;
+        }
+
+        private boolean blockMayMatch(int block, Query query) {
+            int[] entries = index[block];
+            for (int e = 0; e < entries.length; e += 2) {
+                if (query.matchesKey(entries[e])) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Counts matching games. Queries on size, result and at most one
+         * opening move are answered from the index alone.
+         */
+        public long count(Query query) throws IOException {
+            if (index == null || query.opening.length > 1) {
+                return query(query, (i, s, m, r, mv, n) -> { });
+            }
+            long total = 0;
+            for (int[] entries : index) {
+                for (int e = 0; e < entries.length; e += 2) {
+                    if (query.matchesKey(entries[e])) total += entries[e + 1];
+                }
+            }
+            return total;
+        }
+
+        /**
+         * Reads a single game by its position in the archive.
+         */
+        public GameRecord game(long number) throws IOException {
+            if (number < 0 || number >= games) throw new IndexOutOfBoundsException("No game " + number);
+            int block = (int) (number / blockGames);
+            loadBlock(block);
+            int skip = (int) (number % blockGames);
+            for (int g = 0; g < skip; g++) {
+                int size = bits.read(2) + 3;
+                bits.skip(3);
+                bits.skip(bits.read(6) * moveBits(size));
+            }
+            int size = bits.read(2) + 3;
+            String mode = bits.read(1) == 0 ? SINGLEPLAYER : MULTIPLAYER;
+            int result = bits.read(2);
+            byte[] cells = new byte[bits.read(6)];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = (byte) bits.read(moveBits(size));
+            }
+            return new GameRecord(size, mode, result, cells);
+        }
+
+        /**
+         * Inflates a block (unless it is the one already inflated) and
+         * positions the bit reader at its first game.
+         * @return the number of games in the block
+         */
+        private int loadBlock(int block) throws IOException {
+            MappedByteBuffer map = mappings[blockMapping[block]];
+            int position = (int) (blockOffsets[block] - mappingOffsets[blockMapping[block]]);
+            int rawLength = map.getInt(position);
+            int length = map.getInt(position + 4);
+            int count = map.getInt(position + 8);
+            if (block != cachedBlock) {
+                if (raw.length < rawLength + 8) raw = new byte[rawLength + 8];
+                ByteBuffer input = map.duplicate();
+                input.position(position + 12).limit(position + 12 + length);
+                inflater.reset();
+                inflater.setInput(input);
+                try {
+                    int n = 0;
+                    while (n < rawLength) {
+                        int got = inflater.inflate(raw, n, rawLength - n);
+                        if (got == 0 && (inflater.finished() || inflater.needsInput())) break;
+                        n += got;
+                    }
+                    if (n != rawLength) throw new IOException("Corrupt block " + block);
+                } catch (DataFormatException e) {
+                    throw new IOException("Corrupt block " + block + ": " + e.getMessage(), e);
+                }
+                cachedBlock = block;
+            }
+            bits.reset(raw);
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            channel.close();
+        }
+    }
+
+    /** Appends bit fields, most significant bit first, to a growing byte array. */
+    private static final class BitWriter {
+        private byte[] bytes = new byte[16 * 1024];
+        private int length;
+        private long pending;
+        private int pendingBits;
+
+        void write(int value, int width) {
+            pending = pending << width | value;
+            pendingBits += width;
+            while (pendingBits >= 8) {
+                pendingBits -= 8;
+                if (length == bytes.length) bytes = Arrays.copyOf(bytes, length * 2);
+                bytes[length++] = (byte) (pending >>> pendingBits);
+            }
+        }
+
+        /** Pads the last byte with zero bits and returns the buffer. */
+        byte[] bytes() {
+            if (pendingBits > 0) write(0, 8 - pendingBits);
+            return bytes;
+        }
+
+        int length() {
+            return length;
+        }
+
+        void clear() {
+            length = 0;
+            pending = 0;
+            pendingBits = 0;
+        }
+    }
+
+    /** Reads bit fields written by {@link BitWriter}. */
+    private static final class BitReader {
+        private byte[] bytes;
+        private long bitPosition;
+
+        void reset(byte[] bytes) {
+            this.bytes = bytes;
+            this.bitPosition = 0;
+        }
+
+        int read(int width) {
+            int byteIndex = (int) (bitPosition >>> 3);
+            // Fields are at most 6 bits, so three bytes always cover one; the buffer has slack at the end
+            int window = (bytes[byteIndex] & 0xFF) << 16 | (bytes[byteIndex + 1] & 0xFF) << 8 | bytes[byteIndex + 2] & 0xFF;
+            int shift = 24 - (int) (bitPosition & 7) - width;
+            bitPosition += width;
+            return window >>> shift & ((1 << width) - 1);
+        }
+
+        void skip(int width) {
+            bitPosition += width;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java GameArchive pack|query|cat [options]");
+            System.exit(1);
+        }
+        switch (args[0]) {
+            case "pack": pack(args); break;
+            case "query": query(args); break;
+            case "cat": cat(args); break;
+            default:
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(1);
+        }
+    }
+
+    private static void pack(String[] args) throws IOException {
+        Path input = Paths.get(args.length > 1 ? args[1] : GameRecorder.GAMES_FILE.toString());
+        Path output = Paths.get(args.length > 2 ? args[2] : "games.tttar");
+        long start = System.nanoTime();
+        long skipped = 0;
+        long games;
+        try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             Writer writer = new Writer(output)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
+                try {
+                    writer.add(GameRecord.parse(line));
+                } catch (IllegalArgumentException e) {
+                    skipped++;
+                }
+            }
+            games = writer.games();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long bytes = Files.size(output);
+        System.out.printf("Packed %d games in %.2f s: %d bytes (%.2f bytes/game, text was %d bytes), index %d bytes%n",
+                games, seconds, bytes, games == 0 ? 0 : (double) bytes / games,
+                Files.size(input), Files.size(indexFile(output)));
+        if (skipped > 0) System.out.println("Skipped " + skipped + " malformed lines");
+    }
+
+    private static void query(String[] args) throws IOException {
+        Path archive = Paths.get("games.tttar");
+        Integer size = null, result = null;
+        byte[] opening = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size": size = Integer.parseInt(args[++i]); break;
+                case "--result":
+                    String r = args[++i];
+                    if (r.equals("X")) result = Board.X;
+                    else if (r.equals("O")) result = Board.O;
+                    else if (r.equals("D")) result = GameRecord.DRAW;
+                    else {
+                        System.err.println("--result must be X, O or D, not " + r);
+                        System.exit(1);
+                    }
+                    break;
+                case "--opening":
+                    String[] cells = args[++i].split(",");
+                    opening = new byte[cells.length];
+                    for (int c = 0; c < cells.length; c++) opening[c] = Byte.parseByte(cells[c]);
+                    break;
+                default: archive = Paths.get(args[i]);
+            }
+        }
+        try (Reader reader = new Reader(archive)) {
+            Query q = new Query(size, result, opening);
+            long start = System.nanoTime();
+            long[] byResult = new long[3];
+            long[] totalMoves = new long[1];
+            long matched = reader.query(q, (index, s, mode, r, moves, n) -> {
+                byResult[r]++;
+                totalMoves[0] += n;
+            });
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d of %d games match: X %d, O %d, draws %d, average length %.1f%n",
+                    matched, reader.games(), byResult[Board.X], byResult[Board.O], byResult[GameRecord.DRAW],
+                    matched == 0 ? 0 : (double) totalMoves[0] / matched);
+            System.out.printf("Scanned in %.3f s (%.0f games/s of archive)%n", seconds, reader.games() / seconds);
+        }
+    }
+
+    private static void cat(String[] args) throws IOException {
+        Path archive = Paths.get(args.length > 1 ? args[1] : "games.tttar");
+        try (Reader reader = new Reader(archive)) {
+            long first = args.length > 2 ? Long.parseLong(args[2]) : 0;
+            long count = args.length > 3 ? Long.parseLong(args[3]) : 10;
+            for (long g = first; g < Math.min(reader.games(), first + count); g++) {
+                System.out.println(reader.game(g));
+            }
+        }
+    }
+}
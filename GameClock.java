@@ -0,0 +1,181 @@
+import javax.swing.Timer;
+import java.awt.event.ActionListener;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two players' clocks for one game, measured with {@link System#nanoTime}
+ * so they never drift however late the display refreshes. Only the side to
+ * move is charged; {@link #press} ends a move, adds the increment and starts
+ * the opponent's clock. Confined to the EDT.
+ *
+ * Display refresh for every clock comes from one shared Swing timer, see
+ * {@link #addTickListener}; it only runs while some clock is on screen.
+ */
+public class GameClock {
+    private static final int TICK_MILLIS = 50;
+    private static final Timer TICKER = new Timer(TICK_MILLIS, null);
+
+    private TimeControl control = TimeControl.UNTIMED;
+    private final long[] remaining = new long[3]; // indexed by Board.X and Board.O
+    private int side;       // player whose clock runs, 0 once the game is over
+    private boolean counting;
+    private long turnStart;
+    private long moveUsed;
+    private long elapsed;
+
+    /**
+     * Calls {@code listener} on the EDT every {@value #TICK_MILLIS} ms until removed.
+     */
+    public static void addTickListener(ActionListener listener) {
+        TICKER.removeActionListener(listener);
+        TICKER.addActionListener(listener);
+        if (!TICKER.isRunning()) TICKER.start();
+    }
+
+    public static void removeTickListener(ActionListener listener) {
+        TICKER.removeActionListener(listener);
+        if (TICKER.getActionListeners().length == 0) TICKER.stop();
+    }
+
+    /**
+     * Starts a new game under {@code control} with X to move. The clock stays
+     * paused until {@link #resume}.
+     */
+    public void reset(TimeControl control) {
+        restore(control, 0, control.initialMillis(), control.initialMillis(), Board.X);
+    }
+
+    /**
+     * Sets the clocks to a saved state with {@code side} to move, paused.
+     */
+    public void restore(TimeControl control, long elapsedMillis, long xRemainingMillis, long oRemainingMillis, int side) {
+        this.control = control;
+        this.elapsed = TimeUnit.MILLISECONDS.toNanos(elapsedMillis);
+        remaining[Board.X] = TimeUnit.MILLISECONDS.toNanos(xRemainingMillis);
+        remaining[Board.O] = TimeUnit.MILLISECONDS.toNanos(oRemainingMillis);
+        this.side = side;
+        this.counting = false;
+        this.moveUsed = 0;
+    }
+
+    public TimeControl control() {
+        return control;
+    }
+
+    public void resume() {
+        if (counting || side == 0) return;
+        turnStart = System.nanoTime();
+        counting = true;
+    }
+
+    public void pause() {
+        if (!counting) return;
+        charge(System.nanoTime());
+        counting = false;
+    }
+
+    /**
+     * Ends the current move: adds the increment and starts the other side's clock.
+     */
+    public void press() {
+        if (side == 0) return;
+        long now = System.nanoTime();
+        if (counting) charge(now);
+        remaining[side] += TimeUnit.MILLISECONDS.toNanos(control.incrementMillis());
+        side = side == Board.X ? Board.O : Board.X;
+        moveUsed = 0;
+        turnStart = now;
+    }
+
+    /**
+     * Gives the move to {@code side} without adding an increment, as when
+     * moves are taken back. Time already used stays used. A stopped clock
+     * starts again once {@link #resume}d.
+     */
+    public void takeBack(int side) {
+        long now = System.nanoTime();
+        if (counting) charge(now);
+        this.side = side;
+        moveUsed = 0;
+        turnStart = now;
+    }
+
+    /**
+     * Freezes both clocks, e.g. when the game ends. They stay frozen until
+     * {@link #takeBack} and {@link #resume} continue a game whose last moves
+     * were taken back, or {@link #reset}.
+     */
+    public void stop() {
+        pause();
+        side = 0;
+    }
+
+    private void charge(long now) {
+        long used = now - turnStart;
+        remaining[side] -= used;
+        moveUsed += used;
+        elapsed += used;
+        turnStart = now;
+    }
+
+    private long running() {
+        return counting ? System.nanoTime() - turnStart : 0;
+    }
+
+    /** Time left on {@code player}'s game clock. */
+    public long remainingNanos(int player) {
+        return remaining[player] - (player == side ? running() : 0);
+    }
+
+    /** Time left for the current move under a per-move limit. */
+    public long moveRemainingNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(control.moveLimitMillis()) - moveUsed - running();
+    }
+
+    /** Total time both players have spent thinking. */
+    public long elapsedNanos() {
+        return elapsed + running();
+    }
+
+    /**
+     * @return the side to move if it has run out of time, otherwise 0
+     */
+    public int flagged() {
+        if (side == 0) return 0;
+        if (control.initialMillis() > 0 && remainingNanos(side) <= 0) return side;
+        if (control.moveLimitMillis() > 0 && moveRemainingNanos() <= 0) return side;
+        return 0;
+    }
+
+    /**
+     * How long the side to move may think about this move: an even share of
+     * its clock over the moves it still has to make, plus most of the
+     * increment, never more than half the clock or most of the move limit.
+     * @param movesLeft moves the side to move can still make in this game
+     */
+    public long thinkBudgetNanos(int movesLeft) {
+        if (side == 0 || !control.isTimed()) return Long.MAX_VALUE;
+        long budget = Long.MAX_VALUE;
+        if (control.initialMillis() > 0) {
+            long left = Math.max(0, remainingNanos(side));
+            long increment = TimeUnit.MILLISECONDS.toNanos(control.incrementMillis());
+            budget = Math.min(left / 2, left / Math.max(1, movesLeft) + increment * 3 / 4);
+        }
+        if (control.moveLimitMillis() > 0) {
+            budget = Math.min(budget, Math.max(0, moveRemainingNanos()) * 3 / 4);
+        }
+        return budget;
+    }
+
+    /**
+     * Formats a clock reading: minutes and seconds, with tenths under 20 seconds.
+     */
+    public static String format(long nanos) {
+        long millis = Math.max(0, TimeUnit.NANOSECONDS.toMillis(nanos));
+        if (millis < 20_000) {
+            return String.format("%d.%d", millis / 1000, millis / 100 % 10);
+        }
+        long seconds = millis / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+}
@@ -1,16 +1,33 @@
 import javax.swing.*;
 import javax.swing.border.Border;
+import javax.swing.event.ChangeEvent;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.File;
-import java.io.IOException;
+import java.awt.event.HierarchyEvent;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import javax.sound.sampled.*;
 
 public class GamePanel extends JPanel {
+    // Bot searches run here so a long think never freezes the window
+    private static final ExecutorService BOT_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "bot");
+        t.setDaemon(true);
+        return t;
+    });
+    // Proof searches for 5x5 and 6x6 run one at a time, apart from the bot
+    private static final ExecutorService SOLVER_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "solver");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final long SOLVE_SECONDS = 10;
+    private static final long SOLVER_TABLE_BYTES = 32L * 1024 * 1024;
+
     private static final Color BACKGROUND_DARK = new Color(15, 12, 28);
     private static final Color CARD_BACKGROUND = new Color(33, 29, 55);
     private static final Color NEON_BLUE = new Color(0, 255, 255);
@@ -21,124 +38,92 @@ public class GamePanel extends JPanel {
     private static final Color PIXEL_WHITE = new Color(255, 255, 255);
     private static final Color RETRO_PURPLE = new Color(138, 43, 226);
 
-    private Font pixelFont;
-    private Font headerFont;
-    private Font buttonFont;
+    private final GameResources resources;
 
     private JButton[][] buttons;
-    private boolean playerX = true;
+    private boolean gameOver = false;
     private JLabel statusLabel;
-    private int size;
-
-    private int spotsTaken = 0;
+    private final int size;
+
+    // The position on screen; the buttons only ever show it
+    private final Board board;
+    // Every move of the game, including any taken back and not yet replayed past board.moveCount()
+    private final List<Integer> moveHistory = new ArrayList<>();
+    private JButton undoButton;
+    private JButton redoButton;
+    private JSlider timeline;
+    private boolean updatingTimeline = false;
+    private boolean flagFell = false;
+    // Set once this game's result is recorded. Only a game's first result counts: finishing it again
+    // after an undo, even with a different result, is neither recorded nor scored
+    private boolean resultRecorded = false;
     private JLabel spotsTakenLabel;
     private int humanWins = 0;
     private JLabel humanWinsLabel;
     private int botWins = 0;
     private JLabel botWinsLabel;
 
-    private Timer gameTimer;
-    private int secondsElapsed = 0;
+    private final Settings settings;
+    private final GameClock clock = new GameClock();
+    private final ActionListener clockTick;
     private JLabel timerLabel;
 
-    private Clip backgroundMusicClip;
     private JButton musicToggleButton;
-    private boolean musicMuted = false;
 
     private JButton restartButton;
 
-    private Clip humanMoveSoundClip;
-    private Clip botMoveSoundClip;
-    private Clip hoverSoundClip;
+    private Engine bot; // only touched on the bot thread
+    private int gameGeneration = 0;
+
+    private JButton analysisButton;
+    private boolean analysisEnabled = false;
+    private final PositionAnalyzer analyzer = new PositionAnalyzer();
+    private volatile int analysisGeneration = 0; // read by the solver thread
+    private JLabel boardTitle;
+    private volatile ProofSolver solver; // created on the solver thread, stopped from the EDT
+
+    /**
+     * Builds the game screen for one board size. Panels are created on demand
+     * and kept by {@link TicTacToeApp}, so each size is only ever built once.
+     */
+    public GamePanel(TicTacToeApp app, int size) {
+        this.size = size;
+        this.board = new Board(size);
+        this.resources = GameResources.get();
+        this.settings = app.getSettings();
+        this.clockTick = e -> onClockTick(app);
 
-    public GamePanel(TicTacToeApp app) {
-        this.size = app.getSettings().getBoardSize();
-
-        initializeFonts();
-        loadGameSoundClips();
-        loadButtonHoverSound();
         setupMainLayout();
         setupTopPanel(app);
         setupGameBoard(app);
-        setupBottomPanel();
+        setupBottomPanel(app);
         setupStyling();
 
         resetGame();
-        playBackgroundMusic("resources/music.wav");
-
-    }
-
-    private void initializeFonts() {
-        try {
-            pixelFont = new Font(Font.MONOSPACED, Font.BOLD, 14);
-            headerFont = new Font(Font.DIALOG, Font.BOLD, 16);
-            if (size > 3) {
-                buttonFont = new Font(Font.DIALOG, Font.BOLD, 20);
-            } else {
-                buttonFont = new Font(Font.DIALOG, Font.BOLD, 28);
-            }
-
-        } catch (Exception e) {
-            System.err.println("Error loading custom fonts (using fallback): " + e.getMessage());
-            pixelFont = new Font(Font.MONOSPACED, Font.BOLD, 14);
-            headerFont = new Font(Font.DIALOG, Font.BOLD, 16);
-            if (size > 3) {
-                buttonFont = new Font(Font.DIALOG, Font.BOLD, 20);
-            } else {
-                buttonFont = new Font(Font.DIALOG, Font.BOLD, 28);
-            }
-        }
-    }
-
-    private void loadGameSoundClips() {
-        try {
-            File humanMoveFile = new File("resources/humanMove.wav");
-            if (humanMoveFile.exists()) {
-                AudioInputStream humanAudioStream = AudioSystem.getAudioInputStream(humanMoveFile);
-                humanMoveSoundClip = AudioSystem.getClip();
-                humanMoveSoundClip.open(humanAudioStream);
-            } else {
-                System.err.println("Human move sound file not found: " + humanMoveFile.getAbsolutePath());
-            }
-
-            File botMoveFile = new File("resources/botMove.wav");
-            if (botMoveFile.exists()) {
-                AudioInputStream botAudioStream = AudioSystem.getAudioInputStream(botMoveFile);
-                botMoveSoundClip = AudioSystem.getClip();
-                botMoveSoundClip.open(botAudioStream);
-            } else {
-                System.err.println("Bot move sound file not found: " + botMoveFile.getAbsolutePath());
+        restoreSnapshot(app);
+
+        // A pooled panel keeps its game while another size is shown, but its clock and analysis pause
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                if (isShowing()) {
+                    if (!gameOver) clock.resume();
+                    GameClock.addTickListener(clockTick);
+                    updateTimerDisplay();
+                    refreshAnalysis();
+                } else {
+                    clock.pause();
+                    GameClock.removeTickListener(clockTick);
+                    saveSnapshot();
+                    analysisGeneration++;
+                    analyzer.cancel();
+                    stopSolver();
+                }
             }
-
-        } catch (UnsupportedAudioFileException e) {
-            System.err.println("UNSUPPORTED AUDIO FORMAT. Convert to WAV. Error: " + e.getMessage());
-            e.printStackTrace();
-        } catch (IOException e) {
-            System.err.println("I/O Error loading move sound file: " + e.getMessage());
-            e.printStackTrace();
-        } catch (LineUnavailableException e) {
-            System.err.println("Audio line unavailable for move sound playback: " + e.getMessage());
-            e.printStackTrace();
-        } catch (Exception e) {
-            System.err.println("Error loading move sounds: " + e.getMessage());
-            e.printStackTrace();
-        }
+        });
     }
 
-    private void loadButtonHoverSound() {
-        try {
-            File hoverFile = new File("resources/button.wav");
-            if (hoverFile.exists()) {
-                AudioInputStream hoverAudioStream = AudioSystem.getAudioInputStream(hoverFile);
-                hoverSoundClip = AudioSystem.getClip();
-                hoverSoundClip.open(hoverAudioStream);
-            } else {
-                System.err.println("Button hover sound file not found: " + hoverFile.getAbsolutePath());
-            }
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
-            System.err.println("Error loading button hover sound: " + e.getMessage());
-            e.printStackTrace();
-        }
+    public int boardSize() {
+        return size;
     }
 
     private void setupMainLayout() {
@@ -184,7 +169,7 @@ public class GamePanel extends JPanel {
 
     private JLabel createStatCard(String text, Color accentColor) {
         JLabel card = new JLabel(text, JLabel.CENTER);
-        card.setFont(pixelFont);
+        card.setFont(resources.pixelFont());
         card.setForeground(PIXEL_WHITE);
         card.setOpaque(true);
         card.setBackground(CARD_BACKGROUND);
@@ -208,18 +193,44 @@ public class GamePanel extends JPanel {
         controlPanel.add(homeButton);
 
         musicToggleButton = createStyledButton("\u266B", NEON_PINK);
-        musicToggleButton.addActionListener(e -> toggleMusic());
+        musicToggleButton.addActionListener(e -> resources.toggleMusic());
+        musicToggleButton.setEnabled(resources.hasMusic());
         controlPanel.add(musicToggleButton);
 
+        analysisButton = createStyledButton("ANALYZE", NEON_YELLOW);
+        analysisButton.setToolTipText("Color each empty cell by how good it is for the side to move");
+        analysisButton.addActionListener(e -> toggleAnalysis());
+        controlPanel.add(analysisButton);
+
         return controlPanel;
     }
 
-    private void setupBottomPanel() {
-        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 10));
+    private void setupBottomPanel(TicTacToeApp app) {
+        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 8, 10));
         bottomPanel.setBackground(BACKGROUND_DARK);
 
+        undoButton = createStyledButton("\u25C0 UNDO", NEON_BLUE);
+        undoButton.addActionListener(e -> undo(app));
+        bottomPanel.add(undoButton);
+
+        timeline = new JSlider(0, 0, 0);
+        timeline.setBackground(BACKGROUND_DARK);
+        timeline.setForeground(NEON_BLUE);
+        timeline.setFocusable(false);
+        timeline.setPreferredSize(new Dimension(220, 30));
+        timeline.setToolTipText("Scrub through the moves of this game");
+        timeline.addChangeListener(e -> onTimelineMoved(e, app));
+        bottomPanel.add(timeline);
+
+        redoButton = createStyledButton("REDO \u25B6", NEON_BLUE);
+        redoButton.addActionListener(e -> redo(app));
+        bottomPanel.add(redoButton);
+
         restartButton = createStyledButton("RESTART GAME", NEON_GREEN);
-        restartButton.addActionListener(e -> resetGame());
+        restartButton.addActionListener(e -> {
+            resetGame();
+            saveSnapshot();
+        });
         bottomPanel.add(restartButton);
 
         add(bottomPanel, BorderLayout.SOUTH);
@@ -228,7 +239,7 @@ public class GamePanel extends JPanel {
 
     private JButton createStyledButton(String text, Color accentColor) {
         JButton button = new JButton(text);
-        button.setFont(headerFont);
+        button.setFont(resources.headerFont());
         button.setForeground(PIXEL_WHITE);
         button.setBackground(CARD_BACKGROUND);
         button.setBorder(BorderFactory.createCompoundBorder(
@@ -242,11 +253,7 @@ public class GamePanel extends JPanel {
             @Override
             public void mouseEntered(java.awt.event.MouseEvent e) {
                 button.setBackground(accentColor.darker());
-                if (hoverSoundClip != null) {
-                    hoverSoundClip.stop();
-                    hoverSoundClip.setFramePosition(0);
-                    hoverSoundClip.start();
-                }
+                playClip(resources.hoverSound());
             }
 
             @Override
@@ -262,8 +269,8 @@ public class GamePanel extends JPanel {
         JPanel boardContainer = new JPanel(new BorderLayout());
         boardContainer.setBackground(BACKGROUND_DARK);
 
-        JLabel boardTitle = new JLabel("Tic-tac-toe", JLabel.CENTER);
-        boardTitle.setFont(new Font("Dialog", Font.BOLD, 24));
+        boardTitle = new JLabel("Tic-tac-toe", JLabel.CENTER);
+        boardTitle.setFont(resources.titleFont());
         boardTitle.setForeground(NEON_BLUE);
         boardTitle.setBorder(BorderFactory.createEmptyBorder(10, 0, 15, 0));
         boardContainer.add(boardTitle, BorderLayout.NORTH);
@@ -281,7 +288,9 @@ public class GamePanel extends JPanel {
             for (int j = 0; j < size; j++) {
                 buttons[i][j] = createGameButton();
                 int row = i, col = j;
-                buttons[i][j].addActionListener(e -> makeMove(row, col, app));
+                buttons[i][j].addActionListener(e -> {
+                    if (!isBotTurn(app)) makeMove(row, col, app);
+                });
                 boardPanel.add(buttons[i][j]);
             }
         }
@@ -292,7 +301,7 @@ public class GamePanel extends JPanel {
 
     private JButton createGameButton() {
         JButton button = new JButton();
-        button.setFont(buttonFont);
+        button.setFont(resources.boardFont(size));
         button.setBackground(CARD_BACKGROUND);
         button.setForeground(PIXEL_WHITE);
         button.setBorder(BorderFactory.createCompoundBorder(
@@ -317,18 +326,15 @@ public class GamePanel extends JPanel {
                             BorderFactory.createLineBorder(NEON_PINK, 2),
                             BorderFactory.createEmptyBorder(10, 10, 10, 10)
                     ));
-                    if (hoverSoundClip != null) {
-                        hoverSoundClip.stop();
-                        hoverSoundClip.setFramePosition(0);
-                        hoverSoundClip.start();
-                    }
+                    playClip(resources.hoverSound());
                 }
             }
 
             @Override
             public void mouseExited(java.awt.event.MouseEvent e) {
                 if (button.getText().isEmpty()) {
-                    button.setBackground(CARD_BACKGROUND);
+                    Color heat = (Color) button.getClientProperty("heat");
+                    button.setBackground(heat != null ? heat : CARD_BACKGROUND);
                     button.setBorder(BorderFactory.createCompoundBorder(
                             BorderFactory.createLineBorder(RETRO_PURPLE, 2),
                             BorderFactory.createEmptyBorder(10, 10, 10, 10)
@@ -347,212 +353,464 @@ public class GamePanel extends JPanel {
         ));
     }
 
-    private void startGameTimer() {
-        secondsElapsed = 0;
-        updateTimerDisplay();
-        if (gameTimer != null) {
-            gameTimer.stop();
+    private void updateTimerDisplay() {
+        TimeControl control = clock.control();
+        if (!control.isTimed()) {
+            timerLabel.setText("\u23F1 " + TimeUnit.NANOSECONDS.toSeconds(clock.elapsedNanos()) + "s");
+        } else if (control.initialMillis() > 0) {
+            timerLabel.setText("X " + GameClock.format(clock.remainingNanos(Board.X))
+                    + "  O " + GameClock.format(clock.remainingNanos(Board.O)));
+        } else {
+            timerLabel.setText("\u23F1 " + GameClock.format(clock.moveRemainingNanos()));
         }
-        gameTimer = new Timer(1000, e -> {
-            secondsElapsed++;
-            updateTimerDisplay();
-        });
-        gameTimer.start();
     }
 
-    private void updateTimerDisplay() {
-        timerLabel.setText("\u23F1 " + secondsElapsed + "s");
+    /**
+     * Runs on the shared clock tick while this panel is on screen.
+     */
+    private void onClockTick(TicTacToeApp app) {
+        updateTimerDisplay();
+        int loser = gameOver ? 0 : clock.flagged();
+        if (loser != 0) loseOnTime(app, loser);
     }
 
-    private void stopGameTimer() {
-        if (gameTimer != null) {
-            gameTimer.stop();
+    private void loseOnTime(TicTacToeApp app, int loser) {
+        int winner = loser == Board.X ? Board.O : Board.X;
+        statusLabel.setText((winner == Board.X ? "X" : "O") + " WINS ON TIME!");
+        statusLabel.setForeground(NEON_GREEN);
+        disableBoard();
+        clock.stop();
+        gameOver = true;
+        flagFell = true; // a loss on time stands, so the moves can no longer be taken back
+        gameGeneration++; // a bot move still being searched must not land
+        if (!resultRecorded) {
+            recordGame(app, winner);
+            countWin(winner);
         }
+        updateTimerDisplay();
+        updateTimeline();
+        saveSnapshot();
+        refreshAnalysis();
     }
 
-    private void playBackgroundMusic(String filePath) {
-        try {
-            File audioFile = new File(filePath);
-            AudioInputStream audioStream = AudioSystem.getAudioInputStream(audioFile);
-            backgroundMusicClip = AudioSystem.getClip();
-            backgroundMusicClip.open(audioStream);
-            backgroundMusicClip.loop(Clip.LOOP_CONTINUOUSLY);
-            musicToggleButton.setText("\u266B");
-            musicMuted = false;
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
-            System.err.println("MUSIC NOT WORKING: " + e.getMessage());
-            musicToggleButton.setEnabled(false);
+    private void countWin(int winner) {
+        if (winner == Board.X) {
+            humanWins++;
+            humanWinsLabel.setText("\u2605 " + humanWins);
+        } else {
+            botWins++;
+            botWinsLabel.setText("\u2699 " + botWins);
         }
     }
 
-    private void stopMusic() {
-        if (backgroundMusicClip != null && backgroundMusicClip.isRunning()) {
-            backgroundMusicClip.stop();
-            backgroundMusicClip.close();
-        }
+    /**
+     * Restarts a short sound effect from the beginning.
+     */
+    private void playClip(Clip clip) {
+        if (clip == null) return;
+        long start = System.nanoTime();
+        clip.stop();
+        clip.setFramePosition(0);
+        clip.start();
+        Metrics.AUDIO_TRIGGER.recordSince(start);
     }
 
-    private void toggleMusic() {
-        if (backgroundMusicClip == null) return;
+    private void makeMove(int i, int j, TicTacToeApp app) {
+        int cell = i * size + j;
+        if (gameOver || !board.isEmpty(cell)) return;
+        int flagged = clock.flagged();
+        if (flagged != 0) {
+            // Time ran out before the next clock tick noticed
+            loseOnTime(app, flagged);
+            return;
+        }
+        long moveStart = System.nanoTime();
 
-        if (musicMuted) {
-            backgroundMusicClip.start();
-            backgroundMusicClip.loop(Clip.LOOP_CONTINUOUSLY);
-            musicToggleButton.setText("\u266B");
-            musicMuted = false;
+        if (xToMove()) {
+            playClip(resources.humanMoveSound());
+        }
+        placeMark(cell);
+
+        updateStatus();
+        if (gameOver) {
+            clock.stop();
+            int winner = board.winner();
+            if (!resultRecorded) {
+                recordGame(app, winner);
+                if (winner != 0) countWin(winner);
+            }
         } else {
-            backgroundMusicClip.stop();
-            musicToggleButton.setText("\u266B");
-            musicMuted = true;
+            clock.press();
+            scheduleBotMove(app);
         }
+        updateTimerDisplay();
+        updateTimeline();
+        saveSnapshot();
+        refreshAnalysis();
+
+        // The repaint requests above are already queued, so this runs once the move is on screen
+        SwingUtilities.invokeLater(() -> Metrics.MOVE_TO_RENDER.recordSince(moveStart));
     }
 
-    public void closeGamePanelAudio() {
-        stopMusic();
-        if (humanMoveSoundClip != null) {
-            humanMoveSoundClip.stop();
-            humanMoveSoundClip.close();
-            humanMoveSoundClip = null;
-        }
-        if (botMoveSoundClip != null) {
-            botMoveSoundClip.stop();
-            botMoveSoundClip.close();
-            botMoveSoundClip = null;
+    private boolean xToMove() {
+        return board.sideToMove() == Board.X;
+    }
+
+    /**
+     * Plays the side to move on the board and shows it, without sound or win
+     * checks. Moves that were taken back and not replayed are dropped.
+     */
+    private void placeMark(int cell) {
+        int played = board.moveCount();
+        if (played < moveHistory.size()) moveHistory.subList(played, moveHistory.size()).clear();
+        board.play(cell);
+        moveHistory.add(cell);
+        paintCell(cell);
+        spotsTakenLabel.setText("\u25A0 " + board.moveCount() + "/" + (size * size));
+    }
+
+    /**
+     * Makes one button show what the board holds in its cell.
+     */
+    private void paintCell(int cell) {
+        JButton button = buttons[cell / size][cell % size];
+        int player = board.get(cell);
+        if (player == 0) {
+            button.setText("");
+            button.setForeground(PIXEL_WHITE);
+            button.setBackground(CARD_BACKGROUND);
+            button.setBorder(BorderFactory.createCompoundBorder(
+                    BorderFactory.createLineBorder(RETRO_PURPLE, 2),
+                    BorderFactory.createEmptyBorder(10, 10, 10, 10)
+            ));
+            return;
         }
-        if (hoverSoundClip != null) {
-            hoverSoundClip.stop();
-            hoverSoundClip.close();
-            hoverSoundClip = null;
+        Color color = player == Board.X ? NEON_BLUE : NEON_PINK;
+        button.setText(player == Board.X ? "X" : "O");
+        button.setForeground(color);
+        button.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(color, 3),
+                BorderFactory.createEmptyBorder(10, 10, 10, 10)
+        ));
+    }
+
+    /**
+     * Shows whose turn it is or how the game ended, and enables the board to match.
+     */
+    private void updateStatus() {
+        int winner = board.winner();
+        gameOver = board.isGameOver();
+        if (winner != 0) {
+            statusLabel.setText((winner == Board.X ? "X" : "O") + " WINS!");
+            statusLabel.setForeground(NEON_GREEN);
+        } else if (gameOver) {
+            statusLabel.setText("DRAW GAME!");
+            statusLabel.setForeground(NEON_YELLOW);
+        } else {
+            statusLabel.setText((xToMove() ? "X" : "O") + "'s Turn");
+            statusLabel.setForeground(xToMove() ? NEON_BLUE : NEON_PINK);
         }
-        System.out.println("GamePanel audio resources closed.");
+        if (gameOver) disableBoard();
+        else enableBoard();
     }
 
+    /**
+     * Takes back the last move, or in single player the last move of each side.
+     */
+    private void undo(TicTacToeApp app) {
+        int target = board.moveCount() - 1;
+        if (isSingleplayer(app) && target % 2 == 1) target--;
+        if (target >= 0) jumpTo(target, app);
+    }
 
-    private void makeMove(int i, int j, TicTacToeApp app) {
-        if (!buttons[i][j].getText().isEmpty()) return;
+    private void redo(TicTacToeApp app) {
+        int target = board.moveCount() + 1;
+        if (isSingleplayer(app) && target % 2 == 1 && target < moveHistory.size()) target++;
+        if (target <= moveHistory.size()) jumpTo(target, app);
+    }
 
-        String symbol = playerX ? "X" : "O";
-        buttons[i][j].setText(symbol);
+    private void onTimelineMoved(ChangeEvent e, TicTacToeApp app) {
+        if (updatingTimeline) return;
+        int target = timeline.getValue();
+        // Against the bot, stop only where the human is to move or at the very end
+        if (isSingleplayer(app) && target % 2 == 1 && target < moveHistory.size()) target--;
+        if (target != board.moveCount()) jumpTo(target, app);
+        else updateTimeline();
+    }
 
-        if (playerX && humanMoveSoundClip != null) {
-            humanMoveSoundClip.stop();
-            humanMoveSoundClip.setFramePosition(0);
-            humanMoveSoundClip.start();
+    /**
+     * Moves the game to the position after {@code target} moves of the
+     * history by unmaking or remaking only the moves in between, and
+     * repaints only the cells that differ. The game goes on from there,
+     * but a game that already ended keeps its first result, however it
+     * ends the second time.
+     */
+    private void jumpTo(int target, TicTacToeApp app) {
+        if (flagFell) return;
+        gameGeneration++; // a bot move still being searched must not land
+        long xBefore = board.xBits(), oBefore = board.oBits();
+        while (board.moveCount() > target) board.undo(moveHistory.get(board.moveCount() - 1));
+        while (board.moveCount() < target) board.play(moveHistory.get(board.moveCount()));
+        for (long changed = (xBefore ^ board.xBits()) | (oBefore ^ board.oBits()); changed != 0; changed &= changed - 1) {
+            paintCell(Long.numberOfTrailingZeros(changed));
         }
+        spotsTakenLabel.setText("\u25A0 " + board.moveCount() + "/" + (size * size));
 
-        if (playerX) {
-            buttons[i][j].setForeground(NEON_BLUE);
-            buttons[i][j].setBorder(BorderFactory.createCompoundBorder(
-                    BorderFactory.createLineBorder(NEON_BLUE, 3),
-                    BorderFactory.createEmptyBorder(10, 10, 10, 10)
-            ));
+        updateStatus();
+        if (gameOver) {
+            clock.stop();
         } else {
-            buttons[i][j].setForeground(NEON_PINK);
-            buttons[i][j].setBorder(BorderFactory.createCompoundBorder(
-                    BorderFactory.createLineBorder(NEON_PINK, 3),
-                    BorderFactory.createEmptyBorder(10, 10, 10, 10)
-            ));
+            clock.takeBack(board.sideToMove());
+            if (isShowing()) clock.resume();
+            // Only continue for the bot at the end of the history, so a redo is still possible
+            if (board.moveCount() == moveHistory.size()) scheduleBotMove(app);
         }
+        updateTimerDisplay();
+        updateTimeline();
+        saveSnapshot();
+        refreshAnalysis();
+    }
 
-        spotsTaken++;
-        spotsTakenLabel.setText("\u25A0 " + spotsTaken + "/" + (size * size));
+    private void updateTimeline() {
+        updatingTimeline = true;
+        timeline.setMaximum(moveHistory.size());
+        timeline.setValue(board.moveCount());
+        timeline.setEnabled(!flagFell && !moveHistory.isEmpty());
+        updatingTimeline = false;
+        undoButton.setEnabled(!flagFell && board.moveCount() > 0);
+        redoButton.setEnabled(!flagFell && board.moveCount() < moveHistory.size());
+    }
 
+    private void scheduleBotMove(TicTacToeApp app) {
+        if (!isBotTurn(app)) return;
+        int generation = gameGeneration;
+        Timer botDelay = new Timer(800, e -> {
+            if (generation == gameGeneration) botMove(app);
+            ((Timer)e.getSource()).stop();
+        });
+        botDelay.setRepeats(false);
+        botDelay.start();
+    }
 
-        if (checkWin(symbol)) {
-            statusLabel.setText(symbol + " WINS!");
-            statusLabel.setForeground(NEON_GREEN);
-            disableBoard();
-            stopGameTimer();
-
-            if (symbol.equals("X")) {
-                humanWins++;
-                humanWinsLabel.setText("\u2605 " + humanWins);
-            } else {
-                botWins++;
-                botWinsLabel.setText("\u2699 " + botWins);
-            }
-        } else if (spotsTaken == size * size) {
-            statusLabel.setText("DRAW GAME!");
-            statusLabel.setForeground(NEON_YELLOW);
-            disableBoard();
-            stopGameTimer();
-        } else {
-            playerX = !playerX;
-            statusLabel.setText((playerX ? "X" : "O") + "'s Turn");
-            statusLabel.setForeground(playerX ? NEON_BLUE : NEON_PINK);
-
-            if (app.getSettings().getMode().equals("Singleplayer") && !playerX) {
-                Timer botDelay = new Timer(800, e -> {
-                    botMove(app);
-                    ((Timer)e.getSource()).stop();
-                });
-                botDelay.setRepeats(false);
-                botDelay.start();
-            }
+    /** The moves that lead to the position on the board. */
+    private byte[] movesPlayed() {
+        byte[] moves = new byte[board.moveCount()];
+        for (int k = 0; k < moves.length; k++) {
+            moves[k] = (byte) (int) moveHistory.get(k);
         }
+        return moves;
     }
 
-    private void botMove(TicTacToeApp app) {
-        if (botMoveSoundClip != null) {
-            botMoveSoundClip.stop();
-            botMoveSoundClip.setFramePosition(0);
-            botMoveSoundClip.start();
+    /**
+     * Saves the game in progress, clock and scores in the background.
+     */
+    public void saveSnapshot() {
+        GameSnapshot.save(new GameSnapshot(size, movesPlayed(), gameOver, clock, humanWins, botWins));
+    }
+
+    /**
+     * Continues the game saved for this board size, if any. A finished game
+     * only brings back the scores; the board starts fresh.
+     */
+    private void restoreSnapshot(TicTacToeApp app) {
+        GameSnapshot saved = GameSnapshot.load(size);
+        if (saved == null) return;
+        humanWins = saved.humanWins();
+        botWins = saved.botWins();
+        humanWinsLabel.setText("\u2605 " + humanWins);
+        botWinsLabel.setText("\u2699 " + botWins);
+        if (saved.isFinished() || saved.board().isGameOver()) return;
+
+        for (int k = 0; k < saved.moveCount(); k++) {
+            placeMark(saved.move(k));
         }
+        updateStatus();
+        clock.restore(saved.timeControl(), saved.elapsedMillis(), saved.remainingMillis(Board.X),
+                saved.remainingMillis(Board.O), board.sideToMove());
+        timerLabel.setToolTipText(saved.timeControl().label());
+        updateTimerDisplay();
+        updateTimeline();
+        scheduleBotMove(app);
+        refreshAnalysis();
+    }
 
-        List<Point> empty = new ArrayList<>();
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (buttons[i][j].getText().isEmpty()) {
-                    empty.add(new Point(i, j));
+    private boolean isSingleplayer(TicTacToeApp app) {
+        return app.getSettings().getMode().equals("Singleplayer");
+    }
+
+    private boolean isBotTurn(TicTacToeApp app) {
+        return isSingleplayer(app) && !xToMove();
+    }
+
+    /**
+     * Lets the bot search on the background thread and plays its move on the
+     * EDT, unless the game was restarted in the meantime. Under a time control
+     * the bot's share of its remaining clock caps how long it searches.
+     *
+     * The engine is created and used only on the bot thread, since starting an
+     * external engine process takes a while. If the engine fails, the move
+     * comes from the default engine instead so the game can go on.
+     */
+    private void botMove(TicTacToeApp app) {
+        String engine = app.getSettings().getEngine();
+        Board board = currentBoard();
+        long timeBudget = clock.thinkBudgetNanos((size * size - board.moveCount() + 1) / 2);
+        int generation = gameGeneration;
+        BOT_EXECUTOR.execute(() -> {
+            long start = System.nanoTime();
+            int move;
+            try {
+                if (bot == null || !bot.name().equals(engine)) {
+                    if (bot != null) bot.close();
+                    bot = Engines.create(engine);
+                }
+                move = bot.chooseMove(board, timeBudget);
+                Metrics.botMoved(System.nanoTime() - start, bot.lastNodes());
+            } catch (RuntimeException e) {
+                System.err.println("Engine " + engine + " failed, playing this move with " + Engines.DEFAULT + ": " + e.getMessage());
+                if (bot != null) bot.close();
+                bot = null;
+                try (Engine fallback = Engines.create(Engines.DEFAULT)) {
+                    move = fallback.chooseMove(board, timeBudget);
                 }
             }
-        }
+            int cell = move;
+            SwingUtilities.invokeLater(() -> {
+                if (generation != gameGeneration) return;
+                playClip(resources.botMoveSound());
+                makeMove(cell / size, cell % size, app);
+            });
+        });
+    }
 
-        if (!empty.isEmpty()) {
-            Point move = empty.get(new Random().nextInt(empty.size()));
-            makeMove(move.x, move.y, app);
-        }
+    private void recordGame(TicTacToeApp app, int result) {
+        resultRecorded = true;
+        GameRecorder.record(new GameRecord(size, app.getSettings().getMode(), result, movesPlayed()));
+        Metrics.gameFinished();
     }
 
-    private boolean checkWin(String symbol) {
-        for (int i = 0; i < size; i++) {
-            if (checkRow(i, symbol)) return true;
-        }
+    /**
+     * A copy of the position on the board for another thread to search.
+     */
+    private Board currentBoard() {
+        return board.copy();
+    }
+
+    private void toggleAnalysis() {
+        analysisEnabled = !analysisEnabled;
+        analysisButton.setText(analysisEnabled ? "ANALYZE \u2713" : "ANALYZE");
+        refreshAnalysis();
+    }
 
-        for (int j = 0; j < size; j++) {
-            if (checkColumn(j, symbol)) return true;
+    /**
+     * Restarts the per-cell analysis for the position on the board. Results
+     * arrive on pool threads and are only applied if no move was made since.
+     */
+    private void refreshAnalysis() {
+        analysisGeneration++;
+        clearHeatmap();
+        stopSolver();
+        if (!analysisEnabled) {
+            analyzer.cancel();
+            return;
         }
+        int generation = analysisGeneration;
+        if (size >= 5) solvePosition(generation);
+        int maxDepth = size <= 4 ? size * size : 8; // 5x5 and 6x6 cannot be searched to the end
+        analyzer.analyze(currentBoard(), maxDepth, (cell, depth, score, exact) ->
+                SwingUtilities.invokeLater(() -> {
+                    if (generation == analysisGeneration) {
+                        showCellAnalysis(cell, depth, score, exact);
+                    }
+                }));
+    }
 
-        return checkDiagonals(symbol);
+    /**
+     * Searches for the exact value of the position in the background and
+     * shows it in the board title; the heatmap only has depth-limited scores
+     * on the larger boards.
+     */
+    private void solvePosition(int generation) {
+        Board position = currentBoard();
+        if (position.isGameOver()) return;
+        boardTitle.setText("SOLVING...");
+        boardTitle.setToolTipText(null);
+        SOLVER_EXECUTOR.submit(() -> {
+            // Skip solves superseded while they waited behind another one
+            if (generation != analysisGeneration) return;
+            if (solver == null) solver = new ProofSolver(size, SOLVER_TABLE_BYTES);
+            // Checked by the solver as it goes, since a stop() sent just before the solve began is lost
+            ProofSolver.Result result = solver.solve(position, TimeUnit.SECONDS.toNanos(SOLVE_SECONDS),
+                    () -> generation != analysisGeneration);
+            SwingUtilities.invokeLater(() -> {
+                if (generation == analysisGeneration) showSolution(position, result);
+            });
+        });
     }
 
-    private boolean checkRow(int row, String symbol) {
-        for (int j = 0; j < size; j++) {
-            if (!buttons[row][j].getText().equals(symbol)) return false;
+    private void showSolution(Board position, ProofSolver.Result result) {
+        String mover = position.sideToMove() == Board.X ? "X" : "O";
+        String other = position.sideToMove() == Board.X ? "O" : "X";
+        switch (result.value) {
+            case ProofSolver.WIN: boardTitle.setText(mover + " WINS (PROVED)"); break;
+            case ProofSolver.LOSS: boardTitle.setText(other + " WINS (PROVED)"); break;
+            case ProofSolver.DRAW: boardTitle.setText("DRAW (PROVED)"); break;
+            default: boardTitle.setText("UNSOLVED"); break;
         }
-        return true;
+        boardTitle.setToolTipText(result.toString());
     }
 
-    private boolean checkColumn(int col, String symbol) {
-        for (int i = 0; i < size; i++) {
-            if (!buttons[i][col].getText().equals(symbol)) return false;
-        }
-        return true;
+    private void stopSolver() {
+        boardTitle.setText("Tic-tac-toe");
+        boardTitle.setToolTipText(null);
+        ProofSolver running = solver;
+        if (running != null) running.stop();
     }
 
-    private boolean checkDiagonals(String symbol) {
-        boolean diag1 = true;
-        boolean diag2 = true;
+    private void showCellAnalysis(int cell, int depth, int score, boolean exact) {
+        JButton button = buttons[cell / size][cell % size];
+        if (!board.isEmpty(cell)) return;
+
+        Color heat;
+        String description;
+        if (score > Search.WIN_THRESHOLD) {
+            heat = NEON_GREEN;
+            description = "Wins in " + ((Search.WIN - score) / 2 + 1) + " move(s)";
+        } else if (score < -Search.WIN_THRESHOLD) {
+            heat = NEON_PINK;
+            description = "Loses in " + ((Search.WIN + score) / 2 + 1) + " move(s)";
+        } else if (exact) {
+            heat = NEON_YELLOW;
+            description = "Draw";
+        } else {
+            // Scaled to the evaluator, since the network's scores run far wider than the line heuristic's
+            float t = Math.max(-1f, Math.min(1f, score / (float) Evaluator.forSize(size).clearAdvantage()));
+            heat = t >= 0 ? blend(NEON_YELLOW, NEON_GREEN, t) : blend(NEON_YELLOW, NEON_PINK, -t);
+            description = "Score " + score + " (depth " + depth + ")";
+        }
+        heat = blend(CARD_BACKGROUND, heat, 0.45f);
+        button.putClientProperty("heat", heat);
+        button.setBackground(heat);
+        button.setToolTipText(description);
+    }
 
-        for (int i = 0; i < size; i++) {
-            if (!buttons[i][i].getText().equals(symbol)) {
-                diag1 = false;
-            }
-            if (!buttons[i][size - 1 - i].getText().equals(symbol)) {
-                diag2 = false;
+    private void clearHeatmap() {
+        for (JButton[] row : buttons) {
+            for (JButton btn : row) {
+                btn.putClientProperty("heat", null);
+                btn.setToolTipText(null);
+                if (btn.getText().isEmpty()) {
+                    btn.setBackground(CARD_BACKGROUND);
+                }
             }
         }
-        return diag1 || diag2;
+    }
+
+    private static Color blend(Color from, Color to, float t) {
+        return new Color(
+                (int) (from.getRed() + (to.getRed() - from.getRed()) * t),
+                (int) (from.getGreen() + (to.getGreen() - from.getGreen()) * t),
+                (int) (from.getBlue() + (to.getBlue() - from.getBlue()) * t));
     }
 
     private void disableBoard() {
@@ -563,6 +821,14 @@ public class GamePanel extends JPanel {
         }
     }
 
+    private void enableBoard() {
+        for (JButton[] row : buttons) {
+            for (JButton btn : row) {
+                btn.setEnabled(true);
+            }
+        }
+    }
+
     public void resetGame() {
         for (int i = 0; i < size; i++) {
             for (int j = 0; j < size; j++) {
@@ -576,14 +842,22 @@ public class GamePanel extends JPanel {
                 ));
             }
         }
-        playerX = true;
-        spotsTaken = 0;
+        board.clear();
+        gameOver = false;
+        flagFell = false;
+        resultRecorded = false;
+        gameGeneration++;
+        moveHistory.clear();
 
         statusLabel.setText("X's Turn");
         statusLabel.setForeground(NEON_BLUE);
         spotsTakenLabel.setText("\u25A0 0/" + (size * size));
 
-        stopGameTimer();
-        startGameTimer();
+        clock.reset(settings.getTimeControl());
+        if (isShowing()) clock.resume();
+        timerLabel.setToolTipText(clock.control().label());
+        updateTimerDisplay();
+        updateTimeline();
+        refreshAnalysis();
     }
 }
\ No newline at end of file
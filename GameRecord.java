@@ -0,0 +1,112 @@
+import java.util.Arrays;
+
+/**
+ * A finished game: board size, game mode, result and the cells played in order.
+ * Stored one game per line as {@code size mode result cell,cell,...}, e.g.
+ * {@code 3 Singleplayer X 4,0,8,2,6,7,1}, where the result is X, O or D (draw).
+ */
+public final class GameRecord {
+    public static final int DRAW = 0;
+
+    private final int size;
+    private final String mode;
+    private final int result;
+    private final byte[] moves;
+
+    public GameRecord(int size, String mode, int result, byte[] moves) {
+        this.size = size;
+        this.mode = mode;
+        this.result = result;
+        this.moves = moves;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String mode() {
+        return mode;
+    }
+
+    /**
+     * @return {@link Board#X}, {@link Board#O} or {@link #DRAW}
+     */
+    public int result() {
+        return result;
+    }
+
+    public int moveCount() {
+        return moves.length;
+    }
+
+    public int move(int index) {
+        return moves[index];
+    }
+
+    public byte[] moves() {
+        return Arrays.copyOf(moves, moves.length);
+    }
+
+    /**
+     * Replays the game on a fresh board and returns the final position.
+     */
+    public Board replay() {
+        Board board = new Board(size);
+        for (byte move : moves) {
+            board.play(move);
+        }
+        return board;
+    }
+
+    public String format() {
+        StringBuilder sb = new StringBuilder(16 + moves.length * 3);
+        sb.append(size).append(' ').append(mode).append(' ')
+                .append(result == Board.X ? 'X' : result == Board.O ? 'O' : 'D').append(' ');
+        for (int i = 0; i < moves.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(moves[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parses a line written by {@link #format()}.
+     * @throws IllegalArgumentException if the line is malformed
+     */
+    public static GameRecord parse(String line) {
+        String[] parts = line.trim().split(" ");
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Malformed game record: " + line);
+        }
+        try {
+            int size = Integer.parseInt(parts[0]);
+            int result;
+            switch (parts[2]) {
+                case "X": result = Board.X; break;
+                case "O": result = Board.O; break;
+                case "D": result = DRAW; break;
+                default: throw new IllegalArgumentException("Unknown result in game record: " + line);
+            }
+            byte[] moves = new byte[0];
+            if (parts.length > 3 && !parts[3].isEmpty()) {
+                String[] cells = parts[3].split(",");
+                moves = new byte[cells.length];
+                for (int i = 0; i < cells.length; i++) {
+                    int cell = Integer.parseInt(cells[i]);
+                    if (cell < 0 || cell >= size * size) {
+                        throw new IllegalArgumentException("Cell out of range in game record: " + line);
+                    }
+                    moves[i] = (byte) cell;
+                }
+            }
+            return new GameRecord(size, parts[1], result, moves);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed game record: " + line, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
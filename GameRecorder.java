@@ -0,0 +1,37 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Appends finished games to {@code games.txt} on a background thread so the
+ * EDT never waits for the disk.
+ */
+public final class GameRecorder {
+    public static final Path GAMES_FILE = Paths.get("games.txt");
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "game-recorder");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private GameRecorder() {
+    }
+
+    public static void record(GameRecord game) {
+        String line = game.format() + System.lineSeparator();
+        WRITER.execute(() -> {
+            try {
+                Files.write(GAMES_FILE, line.getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.err.println("Failed to record game: " + e.getMessage());
+            }
+        });
+    }
+}
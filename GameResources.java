@@ -0,0 +1,123 @@
+import javax.sound.sampled.*;
+import java.awt.Font;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Fonts and audio shared by every {@link GamePanel}. They are loaded once, the
+ * first time a game screen is built, so switching board sizes only builds a new
+ * grid of buttons and never reopens the sound files or recreates the fonts.
+ */
+public final class GameResources {
+    private static GameResources instance;
+
+    private final Font pixelFont = new Font(Font.MONOSPACED, Font.BOLD, 14);
+    private final Font headerFont = new Font(Font.DIALOG, Font.BOLD, 16);
+    private final Font titleFont = new Font(Font.DIALOG, Font.BOLD, 24);
+    private final Font smallBoardFont = new Font(Font.DIALOG, Font.BOLD, 28);
+    private final Font largeBoardFont = new Font(Font.DIALOG, Font.BOLD, 20);
+
+    private final Clip humanMoveSoundClip;
+    private final Clip botMoveSoundClip;
+    private final Clip hoverSoundClip;
+    private final Clip backgroundMusicClip;
+    private boolean musicMuted = false;
+
+    private GameResources() {
+        humanMoveSoundClip = loadClip("resources/humanMove.wav", "Human move sound");
+        botMoveSoundClip = loadClip("resources/botMove.wav", "Bot move sound");
+        hoverSoundClip = loadClip("resources/button.wav", "Button hover sound");
+        backgroundMusicClip = loadClip("resources/music.wav", "Background music");
+        if (backgroundMusicClip != null) {
+            backgroundMusicClip.loop(Clip.LOOP_CONTINUOUSLY);
+        }
+    }
+
+    /**
+     * Returns the shared resources, loading them on first use. Call on the EDT.
+     */
+    public static synchronized GameResources get() {
+        if (instance == null) {
+            instance = new GameResources();
+        }
+        return instance;
+    }
+
+    private static Clip loadClip(String path, String description) {
+        File file = new File(path);
+        if (!file.exists()) {
+            System.err.println(description + " file not found: " + file.getAbsolutePath());
+            return null;
+        }
+        try (AudioInputStream stream = AudioSystem.getAudioInputStream(file)) {
+            Clip clip = AudioSystem.getClip();
+            clip.open(stream);
+            return clip;
+        } catch (UnsupportedAudioFileException e) {
+            System.err.println("UNSUPPORTED AUDIO FORMAT. Convert to WAV. Error: " + e.getMessage());
+        } catch (IOException | LineUnavailableException | IllegalArgumentException e) {
+            System.err.println("Error loading " + description.toLowerCase() + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    public Font pixelFont() {
+        return pixelFont;
+    }
+
+    public Font headerFont() {
+        return headerFont;
+    }
+
+    public Font titleFont() {
+        return titleFont;
+    }
+
+    /**
+     * Font for the X and O marks; bigger boards get smaller marks.
+     */
+    public Font boardFont(int size) {
+        return size > 3 ? largeBoardFont : smallBoardFont;
+    }
+
+    public Clip humanMoveSound() {
+        return humanMoveSoundClip;
+    }
+
+    public Clip botMoveSound() {
+        return botMoveSoundClip;
+    }
+
+    public Clip hoverSound() {
+        return hoverSoundClip;
+    }
+
+    public boolean hasMusic() {
+        return backgroundMusicClip != null;
+    }
+
+    public boolean isMusicMuted() {
+        return musicMuted;
+    }
+
+    public void toggleMusic() {
+        if (backgroundMusicClip == null) return;
+        if (musicMuted) {
+            backgroundMusicClip.start();
+            backgroundMusicClip.loop(Clip.LOOP_CONTINUOUSLY);
+        } else {
+            backgroundMusicClip.stop();
+        }
+        musicMuted = !musicMuted;
+    }
+
+    public void close() {
+        for (Clip clip : new Clip[] {humanMoveSoundClip, botMoveSoundClip, hoverSoundClip, backgroundMusicClip}) {
+            if (clip != null) {
+                clip.stop();
+                clip.close();
+            }
+        }
+        System.out.println("GamePanel audio resources closed.");
+    }
+}
@@ -0,0 +1,254 @@
+import com.sun.management.OperatingSystemMXBean;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hosts games against an engine over TCP, one virtual thread per
+ * connection, with a line protocol in the style of {@link EngineServer}:
+ *
+ * <pre>
+ * client: new &lt;size&gt; [o]              server: game &lt;id&gt;, then move &lt;cell&gt; if the engine opens
+ * client: move &lt;cell&gt;                  server: move &lt;cell&gt; | over &lt;x|o|draw&gt; [&lt;cell&gt;]
+ * client: stats                        server: stats cpu &lt;ns&gt; heap &lt;bytes&gt; connections &lt;n&gt; games &lt;n&gt; moves &lt;n&gt;
+ * client: quit
+ * </pre>
+ *
+ * The client plays X unless it asks for {@code o}. {@code over} carries the
+ * engine's last move when that move ended the game. Malformed or illegal
+ * commands are answered with {@code error <message>} and change nothing.
+ * {@code stats} reports this process's CPU time and heap so a load test can
+ * watch the server from outside.
+ *
+ * When given a {@link SpectatorHub}, every game is opened there too, so
+ * {@link SpectatorServer} can stream it.
+ *
+ * Usage: {@code java GameServer [--port N] [--engine name] [--ms N] [--spectate-port N]}
+ */
+public class GameServer implements AutoCloseable {
+    private final String engineName;
+    private final long moveBudgetNanos;
+    private final SpectatorHub hub;
+    private final ServerSocket server;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger nextGameId = new AtomicInteger();
+    private final AtomicInteger open = new AtomicInteger();
+    private final LongAdder games = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final AtomicLong seeds = new AtomicLong(1);
+
+    /**
+     * Starts accepting on the loopback interface.
+     * @param port the port, or 0 for any free one
+     * @param hub  where to publish games for spectators, or null
+     */
+    public GameServer(int port, String engineName, long moveBudgetNanos, SpectatorHub hub) throws IOException {
+        this.engineName = engineName;
+        this.moveBudgetNanos = moveBudgetNanos;
+        this.hub = hub;
+        this.server = new ServerSocket(port, 4096, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "game-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        connections.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 7878;
+        int spectatePort = -1;
+        String engine = BuiltInEngines.GREEDY;
+        long millis = 10;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--engine": engine = args[++i]; break;
+                case "--ms": millis = Long.parseLong(args[++i]); break;
+                case "--spectate-port": spectatePort = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        if (!Engines.exists(engine)) {
+            System.err.println("Unknown engine: " + engine + " (available: " + Engines.names() + ")");
+            System.exit(1);
+        }
+        SpectatorHub hub = spectatePort < 0 ? null : new SpectatorHub(64, 3);
+        SpectatorServer spectators = hub == null ? null : new SpectatorServer(hub, spectatePort);
+        GameServer server = new GameServer(port, engine, TimeUnit.MILLISECONDS.toNanos(millis), hub);
+        // LoadTest waits for this line before it connects
+        System.out.println("listening " + server.port() + (spectators == null ? "" : " spectators " + spectators.port()));
+        System.out.flush();
+        Thread.currentThread().join();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                connections.submit(() -> serve(socket));
+            } catch (IOException e) {
+                if (!server.isClosed()) System.err.println("Game server: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        open.incrementAndGet();
+        try (socket;
+             Engine engine = Engines.create(engineName, new Random(seeds.getAndIncrement()))) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+            Session session = new Session(engine, out);
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (!session.handle(line.trim())) break;
+                    out.flush();
+                }
+            } finally {
+                session.finishGame(-1);
+            }
+        } catch (SocketException e) {
+            // The client went away
+        } catch (IOException e) {
+            System.err.println("Game server connection: " + e.getMessage());
+        } finally {
+            open.decrementAndGet();
+        }
+    }
+
+    /** One connection's current game. */
+    private final class Session {
+        final Engine engine;
+        final Writer out;
+        Board board;
+        SpectatorHub.Channel channel;
+
+        Session(Engine engine, Writer out) {
+            this.engine = engine;
+            this.out = out;
+        }
+
+        /** @return false once the client has asked to quit */
+        boolean handle(String line) throws IOException {
+            String[] words = line.split("\\s+");
+            try {
+                switch (words[0]) {
+                    case "new":
+                        newGame(words);
+                        break;
+                    case "move":
+                        move(words);
+                        break;
+                    case "stats":
+                        stats();
+                        break;
+                    case "quit":
+                        return false;
+                    default:
+                        throw new IllegalArgumentException("unknown command " + words[0]);
+                }
+            } catch (IllegalArgumentException e) {
+                send("error " + e.getMessage());
+            }
+            return true;
+        }
+
+        private void newGame(String[] words) throws IOException {
+            if (words.length < 2) throw new IllegalArgumentException("new needs a board size");
+            int size = Integer.parseInt(words[1]);
+            if (size < 3 || size > 6) throw new IllegalArgumentException("board size must be 3 to 6");
+            boolean clientIsO = words.length > 2 && words[2].equalsIgnoreCase("o");
+            finishGame(-1);
+            board = new Board(size);
+            int id = nextGameId.getAndIncrement();
+            channel = hub == null ? null : hub.open(id, size);
+            games.increment();
+            send("game " + id);
+            if (clientIsO) send("move " + engineMove());
+        }
+
+        private void move(String[] words) throws IOException {
+            if (board == null || board.isGameOver()) throw new IllegalArgumentException("no game in progress");
+            if (words.length < 2) throw new IllegalArgumentException("move needs a cell");
+            int cell = Integer.parseInt(words[1]);
+            if (cell < 0 || cell >= board.cells() || !board.isEmpty(cell)) {
+                throw new IllegalArgumentException("illegal move " + cell);
+            }
+            play(cell);
+            if (board.isGameOver()) {
+                send("over " + result());
+                return;
+            }
+            int reply = engineMove();
+            send(board.isGameOver() ? "over " + result() + " " + reply : "move " + reply);
+        }
+
+        private int engineMove() {
+            int cell = engine.chooseMove(board, moveBudgetNanos);
+            play(cell);
+            return cell;
+        }
+
+        private void play(int cell) {
+            board.play(cell);
+            moves.increment();
+            if (channel != null) {
+                channel.move(cell);
+                if (board.isGameOver()) finishGame(board.winner());
+            }
+        }
+
+        /** Ends the spectator feed, as abandoned if {@code winner} is -1. */
+        private void finishGame(int winner) {
+            if (channel == null) return;
+            channel.end(winner < 0 ? SpectatorHub.ABANDONED : winner);
+            channel = null;
+        }
+
+        private String result() {
+            int winner = board.winner();
+            return winner == Board.X ? "x" : winner == Board.O ? "o" : "draw";
+        }
+
+        private void stats() throws IOException {
+            OperatingSystemMXBean os = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+            long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            send("stats cpu " + os.getProcessCpuTime() + " heap " + heap + " connections " + open.get()
+                    + " games " + games.sum() + " moves " + moves.sum());
+        }
+
+        private void send(String line) throws IOException {
+            out.write(line);
+            out.write('\n');
+        }
+    }
+}
@@ -0,0 +1,254 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * The state of an in-progress game, saved after every move so it survives
+ * pressing HOME or closing the window. Each board size has its own file,
+ * {@code snapshot-<size>.bin}, holding one fixed-size record:
+ *
+ * <pre>
+ * int   magic "TTTS"     long  X bitmask           int   human wins
+ * byte  version          long  O bitmask           int   bot wins
+ * byte  board size       int   elapsed ms          byte  time control
+ * byte  side to move     int   X clock left, ms    byte[3] reserved
+ * byte  move count       int   O clock left, ms    byte[36] move order
+ *                                                  int   CRC32 of the bytes before it
+ * </pre>
+ *
+ * The side to move is 0 once the game is over.
+ *
+ * Files are written on a background thread to a temporary file that is then
+ * moved over the old one, so a crash mid-write leaves the previous snapshot.
+ */
+public final class GameSnapshot {
+    public static final int RECORD_BYTES = 88;
+
+    private static final int MAGIC = 0x54545453; // "TTTS"
+    private static final byte VERSION = 2;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "snapshot-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final int size;
+    private final long xBits;
+    private final long oBits;
+    private final byte[] moves;
+    private final boolean finished;
+    private final TimeControl timeControl;
+    private final int elapsedMillis;
+    private final int xRemainingMillis;
+    private final int oRemainingMillis;
+    private final int humanWins;
+    private final int botWins;
+
+    /**
+     * Captures a game: the moves in order, whether it has ended, and its clocks.
+     */
+    public GameSnapshot(int size, byte[] moves, boolean finished, GameClock clock, int humanWins, int botWins) {
+        this(size, moves, finished, clock.control(), toMillis(clock.elapsedNanos()),
+                toMillis(clock.remainingNanos(Board.X)), toMillis(clock.remainingNanos(Board.O)), humanWins, botWins);
+    }
+
+    private GameSnapshot(int size, byte[] moves, boolean finished, TimeControl timeControl, int elapsedMillis,
+                         int xRemainingMillis, int oRemainingMillis, int humanWins, int botWins) {
+        Board board = new Board(size);
+        for (byte move : moves) {
+            board.play(move);
+        }
+        this.size = size;
+        this.xBits = board.xBits();
+        this.oBits = board.oBits();
+        this.moves = moves.clone();
+        this.finished = finished;
+        this.timeControl = timeControl;
+        this.elapsedMillis = elapsedMillis;
+        this.xRemainingMillis = xRemainingMillis;
+        this.oRemainingMillis = oRemainingMillis;
+        this.humanWins = humanWins;
+        this.botWins = botWins;
+    }
+
+    private static int toMillis(long nanos) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMillis(nanos)));
+    }
+
+    public static Path file(int size) {
+        return Paths.get("snapshot-" + size + ".bin");
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int moveCount() {
+        return moves.length;
+    }
+
+    public int move(int index) {
+        return moves[index];
+    }
+
+    /** True if the game had ended when it was saved, including a loss on time. */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public TimeControl timeControl() {
+        return timeControl;
+    }
+
+    public int elapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public int remainingMillis(int player) {
+        return player == Board.X ? xRemainingMillis : oRemainingMillis;
+    }
+
+    public int humanWins() {
+        return humanWins;
+    }
+
+    public int botWins() {
+        return botWins;
+    }
+
+    public Board board() {
+        return new Board(size, xBits, oBits);
+    }
+
+    public byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.put((byte) size);
+        buffer.put((byte) (finished ? 0 : (moves.length & 1) == 0 ? Board.X : Board.O));
+        buffer.put((byte) moves.length);
+        buffer.putLong(xBits);
+        buffer.putLong(oBits);
+        buffer.putInt(elapsedMillis);
+        buffer.putInt(xRemainingMillis);
+        buffer.putInt(oRemainingMillis);
+        buffer.putInt(humanWins);
+        buffer.putInt(botWins);
+        buffer.put((byte) timeControl.ordinal());
+        buffer.position(buffer.position() + 3);
+        buffer.put(moves);
+        buffer.position(RECORD_BYTES - 4);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, RECORD_BYTES - 4);
+        buffer.putInt((int) crc.getValue());
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a record written by {@link #encode}.
+     * @throws IllegalArgumentException if the record is truncated, corrupt or inconsistent
+     */
+    public static GameSnapshot decode(byte[] data) {
+        if (data.length != RECORD_BYTES) {
+            throw new IllegalArgumentException("Snapshot must be " + RECORD_BYTES + " bytes, got " + data.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, RECORD_BYTES - 4);
+        if (buffer.getInt(RECORD_BYTES - 4) != (int) crc.getValue()) {
+            throw new IllegalArgumentException("Snapshot checksum mismatch");
+        }
+        if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+            throw new IllegalArgumentException("Not a snapshot file or unsupported version");
+        }
+        int size = buffer.get();
+        boolean finished = buffer.get() == 0; // otherwise the side to move, implied by the move count
+        int count = buffer.get();
+        long xBits = buffer.getLong();
+        long oBits = buffer.getLong();
+        int elapsed = buffer.getInt();
+        int xRemaining = buffer.getInt();
+        int oRemaining = buffer.getInt();
+        int humanWins = buffer.getInt();
+        int botWins = buffer.getInt();
+        int control = buffer.get();
+        buffer.position(buffer.position() + 3);
+        if (size < 3 || size > 6 || count < 0 || count > size * size
+                || control < 0 || control >= TimeControl.values().length) {
+            throw new IllegalArgumentException("Invalid snapshot header");
+        }
+        byte[] moves = new byte[count];
+        buffer.get(moves);
+        long seen = 0;
+        for (byte move : moves) {
+            if (move < 0 || move >= size * size || (seen & 1L << move) != 0) {
+                throw new IllegalArgumentException("Invalid move in snapshot: " + move);
+            }
+            seen |= 1L << move;
+        }
+        GameSnapshot snapshot = new GameSnapshot(size, moves, finished, TimeControl.values()[control], elapsed,
+                xRemaining, oRemaining, humanWins, botWins);
+        if (snapshot.xBits != xBits || snapshot.oBits != oBits) {
+            throw new IllegalArgumentException("Snapshot moves do not match its board");
+        }
+        return snapshot;
+    }
+
+    /**
+     * Saves the snapshot in the background, replacing the previous one for its size.
+     */
+    public static void save(GameSnapshot snapshot) {
+        byte[] data = snapshot.encode();
+        Path file = file(snapshot.size);
+        WRITER.execute(() -> {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                Files.write(tmp, data);
+                try {
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to save game snapshot: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Reads the saved game for a board size.
+     * @return the snapshot, or null if there is none or it cannot be read
+     */
+    public static GameSnapshot load(int size) {
+        try {
+            GameSnapshot snapshot = decode(Files.readAllBytes(file(size)));
+            return snapshot.size == size ? snapshot : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Ignoring unreadable game snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Waits briefly for pending snapshots to reach the disk, e.g. before the app exits.
+     */
+    public static void flush() {
+        try {
+            WRITER.submit(() -> { }).get(1, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("Game snapshot may not have been saved: " + e.getMessage());
+        }
+    }
+}
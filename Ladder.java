@@ -0,0 +1,362 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elo ladder for the registered engines. Every pairing plays game pairs from
+ * a shared random opening with colours swapped, as in {@link Tournament},
+ * on a pool of threads through a {@link MatchRunner}, and keeps playing
+ * only until a sequential probability ratio test has decided it: one
+ * engine stronger by at least the given margin, the other stronger, or
+ * the two within the margin of each other. Decided pairings stop taking
+ * CPU, so clear mismatches end after a few games and the close ones get
+ * the rest.
+ *
+ * Each pairing runs two SPRTs on the score per game pair, H0 "equal"
+ * against H1 "first engine +margin" and against H1 "first engine -margin",
+ * using the normal approximation to the log-likelihood ratio. Scoring pairs
+ * rather than games takes the opening out of the variance.
+ *
+ * Ratings are the maximum-likelihood Bradley-Terry fit to every game, draws
+ * counting half, with one virtual draw per pairing so perfect scores stay
+ * finite. They are centred on 0, and the intervals are 95% intervals from
+ * the inverse of the Fisher information.
+ *
+ * Usage: {@code java Ladder [--size N] [--ms N] [--margin ELO] [--max-games N]
+ * [--alpha P] [--beta P] [--threads N] [--seed N] [engines...]}.
+ * Without engine names every available engine takes part.
+ */
+public class Ladder {
+    private static final double Z95 = 1.96;
+    private static final double ELO_PER_NAT = 400 / Math.log(10);
+    /** Pairs before a test may stop, so a few lucky openings cannot decide it. */
+    private static final int MIN_PAIRS = 5;
+    /** Variance floor per pair, so a run of identical results (all draws, say) is not taken as certainty. */
+    private static final double MIN_VARIANCE = 0.02;
+
+    private final MatchRunner runner;
+    private final int cells;
+    private final List<String> names;
+    private final double margin;
+    private final double lower, upper;
+    private final int maxPairs;
+    private final List<Pairing> pairings = new ArrayList<>();
+
+    /**
+     * @param margin    the Elo difference the tests try to tell apart from equality
+     * @param alpha     chance of calling equal engines different
+     * @param beta      chance of calling engines {@code margin} apart equal
+     * @param maxGames  games per pairing after which it stops undecided
+     */
+    public Ladder(int size, long moveBudgetNanos, List<String> names, double margin,
+                  double alpha, double beta, int maxGames) {
+        this.runner = new MatchRunner(size, moveBudgetNanos);
+        this.cells = size * size;
+        this.names = names;
+        this.margin = margin;
+        this.lower = Math.log(beta / (1 - alpha));
+        this.upper = Math.log((1 - beta) / alpha);
+        this.maxPairs = Math.max(1, maxGames / 2);
+        for (int a = 0; a < names.size(); a++) {
+            for (int b = a + 1; b < names.size(); b++) {
+                pairings.add(new Pairing(a, b));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int size = 3;
+        long millis = 20;
+        double margin = 50;
+        double alpha = 0.05, beta = 0.05;
+        int maxGames = 400;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 42;
+        List<String> engines = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size": size = Integer.parseInt(args[++i]); break;
+                case "--ms": millis = Long.parseLong(args[++i]); break;
+                case "--margin": margin = Double.parseDouble(args[++i]); break;
+                case "--max-games": maxGames = Integer.parseInt(args[++i]); break;
+                case "--alpha": alpha = Double.parseDouble(args[++i]); break;
+                case "--beta": beta = Double.parseDouble(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default: engines.add(args[i]);
+            }
+        }
+        if (engines.isEmpty()) engines.addAll(Engines.names());
+        for (String name : engines) {
+            if (!Engines.exists(name)) {
+                System.err.println("Unknown engine: " + name + " (available: " + Engines.names() + ")");
+                System.exit(1);
+            }
+        }
+        if (engines.size() < 2) {
+            System.err.println("A ladder needs at least two engines");
+            System.exit(1);
+        }
+
+        Ladder ladder = new Ladder(size, millis <= 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(millis),
+                engines, margin, alpha, beta, maxGames);
+        System.out.printf("== %dx%d ladder, %s per move, margin %.0f Elo, alpha %.2f, beta %.2f, at most %d games per pairing ==%n",
+                size, size, millis <= 0 ? "no limit" : millis + " ms", margin, alpha, beta, maxGames);
+        long start = System.nanoTime();
+        int played = ladder.run(threads, new Random(seed));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        ladder.printRatings();
+        int budget = ladder.pairings.size() * ladder.maxPairs * 2;
+        System.out.printf("%d games in %.1f s, %.0f%% of the %d a fixed-length round robin would play%n",
+                played, seconds, 100.0 * played / budget, budget);
+    }
+
+    /**
+     * Plays until every pairing is decided or has reached the game limit,
+     * keeping {@code threads} game pairs in flight, spread over the
+     * undecided pairings in turn.
+     * @return the number of games played
+     */
+    public int run(int threads, Random random) throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CompletionService<PairResult> done = new ExecutorCompletionService<>(pool);
+        int inFlight = 0, next = 0, games = 0;
+        try {
+            while (true) {
+                // Top up from the open pairings, round robin, counting games already scheduled
+                for (int tried = 0; inFlight < threads && tried < pairings.size(); ) {
+                    Pairing pairing = pairings.get(next);
+                    next = (next + 1) % pairings.size();
+                    if (pairing.open()) {
+                        pairing.scheduled++;
+                        int opening = random.nextInt(cells);
+                        long seed = random.nextLong();
+                        done.submit(() -> playPair(pairing, opening, seed));
+                        inFlight++;
+                        tried = 0;
+                    } else {
+                        tried++;
+                    }
+                }
+                if (inFlight == 0) break;
+                PairResult result = done.take().get();
+                inFlight--;
+                games += 2;
+                Pairing pairing = result.pairing;
+                pairing.add(result.points);
+                if (pairing.verdict == null) {
+                    pairing.verdict = decide(pairing);
+                    if (pairing.verdict != null) {
+                        System.out.printf("%-10s vs %-10s %-28s after %3d games, score %5.1f%%%n",
+                                names.get(pairing.a), names.get(pairing.b), pairing.verdict,
+                                pairing.pairs * 2, 100 * pairing.sum / pairing.pairs);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        for (Pairing pairing : pairings) {
+            if (pairing.verdict == null) {
+                pairing.verdict = "undecided";
+                System.out.printf("%-10s vs %-10s %-28s after %3d games, score %5.1f%%%n",
+                        names.get(pairing.a), names.get(pairing.b), pairing.verdict,
+                        pairing.pairs * 2, 100 * pairing.sum / pairing.pairs);
+            }
+        }
+        return games;
+    }
+
+    private PairResult playPair(Pairing pairing, int opening, long seed) {
+        String a = names.get(pairing.a), b = names.get(pairing.b);
+        Random random = new Random(seed);
+        MatchRunner.GameResult first = runner.playGame(a, b, opening, random.nextLong());
+        MatchRunner.GameResult second = runner.playGame(b, a, opening, random.nextLong());
+        return new PairResult(pairing, points(first, Board.X) + points(second, Board.O));
+    }
+
+    private static double points(MatchRunner.GameResult result, int side) {
+        return result.winner == 0 ? 0.5 : result.winner == side ? 1 : 0;
+    }
+
+    /** The pairing's verdict if either test has finished, otherwise null. */
+    private String decide(Pairing p) {
+        if (p.pairs < MIN_PAIRS) return null;
+        double up = p.llr(margin), down = p.llr(-margin);
+        if (up >= upper) return names.get(p.a) + " stronger";
+        if (down >= upper) return names.get(p.b) + " stronger";
+        if (up <= lower && down <= lower) return String.format("equal within %.0f Elo", margin);
+        return null;
+    }
+
+    /**
+     * Maximum-likelihood ratings in Elo, centred on 0.
+     * @return {rating, half-width of the 95% interval} per engine
+     */
+    public double[][] ratings() {
+        int k = names.size();
+        double[][] points = new double[k][k];
+        double[][] games = new double[k][k];
+        for (Pairing p : pairings) {
+            // One virtual draw keeps all-win and all-loss records finite
+            points[p.a][p.b] += p.sum * 2 + 0.5;
+            points[p.b][p.a] += (p.pairs - p.sum) * 2 + 0.5;
+            games[p.a][p.b] = games[p.b][p.a] = p.pairs * 2 + 1;
+        }
+        // Minorization-maximization for Bradley-Terry strengths
+        double[] gamma = new double[k];
+        Arrays.fill(gamma, 1);
+        for (int iteration = 0; iteration < 10_000; iteration++) {
+            double change = 0;
+            for (int i = 0; i < k; i++) {
+                double won = 0, denominator = 0;
+                for (int j = 0; j < k; j++) {
+                    if (j == i || games[i][j] == 0) continue;
+                    won += points[i][j];
+                    denominator += games[i][j] / (gamma[i] + gamma[j]);
+                }
+                double updated = won / denominator;
+                change = Math.max(change, Math.abs(Math.log(updated / gamma[i])));
+                gamma[i] = updated;
+            }
+            if (change < 1e-10) break;
+        }
+        double[] r = new double[k];
+        double mean = 0;
+        for (int i = 0; i < k; i++) mean += r[i] = Math.log(gamma[i]);
+        mean /= k;
+
+        // Fisher information in natural-log units, engine 0 held fixed, then re-centred
+        double[][] info = new double[k - 1][k - 1];
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < k; j++) {
+                if (i == j || games[i][j] == 0) continue;
+                double p = gamma[i] / (gamma[i] + gamma[j]);
+                double w = games[i][j] * p * (1 - p);
+                if (i > 0) info[i - 1][i - 1] += w;
+                if (i > 0 && j > 0) info[i - 1][j - 1] -= w;
+            }
+        }
+        double[][] reduced = invert(info);
+        double[][] cov = new double[k][k];
+        for (int i = 1; i < k; i++) {
+            for (int j = 1; j < k; j++) cov[i][j] = reduced[i - 1][j - 1];
+        }
+        double[] rowMean = new double[k];
+        double allMean = 0;
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < k; j++) rowMean[i] += cov[i][j] / k;
+            allMean += rowMean[i] / k;
+        }
+        double[][] result = new double[k][2];
+        for (int i = 0; i < k; i++) {
+            double variance = cov[i][i] - 2 * rowMean[i] + allMean;
+            result[i][0] = (r[i] - mean) * ELO_PER_NAT;
+            result[i][1] = Z95 * Math.sqrt(Math.max(0, variance)) * ELO_PER_NAT;
+        }
+        return result;
+    }
+
+    /** Gauss-Jordan inverse of a small symmetric positive-definite matrix. */
+    private static double[][] invert(double[][] m) {
+        int n = m.length;
+        double[][] a = new double[n][2 * n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(m[i], 0, a[i], 0, n);
+            a[i][n + i] = 1;
+        }
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < n; row++) {
+                if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) pivot = row;
+            }
+            double[] swap = a[col];
+            a[col] = a[pivot];
+            a[pivot] = swap;
+            double p = a[col][col];
+            for (int c = 0; c < 2 * n; c++) a[col][c] /= p;
+            for (int row = 0; row < n; row++) {
+                if (row == col) continue;
+                double f = a[row][col];
+                if (f == 0) continue;
+                for (int c = 0; c < 2 * n; c++) a[row][c] -= f * a[col][c];
+            }
+        }
+        double[][] inverse = new double[n][n];
+        for (int i = 0; i < n; i++) System.arraycopy(a[i], n, inverse[i], 0, n);
+        return inverse;
+    }
+
+    public void printRatings() {
+        double[][] ratings = ratings();
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) order.add(i);
+        order.sort((p, q) -> Double.compare(ratings[q][0], ratings[p][0]));
+        int[] games = new int[names.size()];
+        double[] score = new double[names.size()];
+        for (Pairing p : pairings) {
+            games[p.a] += p.pairs * 2;
+            games[p.b] += p.pairs * 2;
+            score[p.a] += p.sum * 2;
+            score[p.b] += (p.pairs - p.sum) * 2;
+        }
+        System.out.printf("%n%-10s %7s %7s %6s %7s%n", "Engine", "Elo", "+/-95%", "Games", "Score%");
+        for (int i : order) {
+            System.out.printf("%-10s %7.0f %7.0f %6d %7.1f%n", names.get(i), ratings[i][0], ratings[i][1],
+                    games[i], games[i] == 0 ? 0 : 100 * score[i] / games[i]);
+        }
+    }
+
+    /** Results of one pairing so far, scored per game pair from the first engine's side. */
+    private final class Pairing {
+        final int a, b;
+        int scheduled;
+        int pairs;
+        double sum, sumSquares; // of the first engine's share of the pair's two points
+        String verdict;
+
+        Pairing(int a, int b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        boolean open() {
+            return verdict == null && scheduled < maxPairs;
+        }
+
+        void add(double points) {
+            double x = points / 2;
+            pairs++;
+            sum += x;
+            sumSquares += x * x;
+        }
+
+        /**
+         * Log-likelihood ratio of "the first engine is {@code elo} stronger"
+         * against "equal", by the normal approximation.
+         */
+        double llr(double elo) {
+            double mean = sum / pairs;
+            double variance = Math.max(MIN_VARIANCE, sumSquares / pairs - mean * mean);
+            double s0 = 0.5, s1 = 1 / (1 + Math.pow(10, -elo / 400));
+            return pairs * (s1 - s0) * (2 * mean - s0 - s1) / (2 * variance);
+        }
+    }
+
+    private static final class PairResult {
+        final Pairing pairing;
+        final double points;
+
+        PairResult(Pairing pairing, double points) {
+            this.pairing = pairing;
+            this.points = points;
+        }
+    }
+}
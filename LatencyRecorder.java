@@ -0,0 +1,125 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram in the style of HdrHistogram. Values are
+ * nanoseconds counted into log-linear buckets: 16 buckets per power of two,
+ * so any percentile is accurate to about 6%. Recording is a few atomic adds
+ * with no allocation, which keeps it cheap enough for the EDT and the bot.
+ */
+public class LatencyRecorder implements LatencyRecorderMXBean {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucket(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+            // another thread raised the max first; retry against its value
+        }
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, a {@link System#nanoTime()} reading.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Smallest value that falls into {@code bucket}.
+     */
+    static long bucketStart(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @param fraction between 0 and 1, e.g. 0.99 for the 99th percentile
+     * @return the percentile in nanoseconds, 0 if nothing was recorded
+     */
+    public long percentileNanos(double fraction) {
+        long total = count.sum();
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                long start = bucketStart(i);
+                long end = i + 1 < BUCKETS ? bucketStart(i + 1) : start;
+                return Math.min((start + end) / 2, maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return percentileNanos(0.50) / 1e6;
+    }
+
+    @Override
+    public double getP90Millis() {
+        return percentileNanos(0.90) / 1e6;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return percentileNanos(0.99) / 1e6;
+    }
+
+    @Override
+    public double getP999Millis() {
+        return percentileNanos(0.999) / 1e6;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms",
+                getCount(), getMeanMillis(), getP50Millis(), getP99Millis(), getMaxMillis());
+    }
+}
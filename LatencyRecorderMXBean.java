@@ -0,0 +1,20 @@
+/**
+ * JMX view of a {@link LatencyRecorder}. All times are in milliseconds.
+ */
+public interface LatencyRecorderMXBean {
+    long getCount();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+
+    void reset();
+}
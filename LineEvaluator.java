@@ -0,0 +1,245 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Hand-written evaluation: every line still open for only one player counts,
+ * weighted by how many cells it already has, and every stone counts by where
+ * it stands.
+ *
+ * The weights are parameters, in tenths of a point so tuning can make
+ * small steps without changing the scale of the scores (the bot levels'
+ * noise is measured against it). {@link #INSTANCE} squares the number of
+ * cells and ignores where stones stand, for any board size; {@link SpsaTuner}
+ * tunes a set for one size, which is stored in
+ * {@code resources/eval-<size>.txt} as {@code name = value} lines:
+ * {@code mine.<k>} and {@code theirs.<k>} for a line holding k stones of the
+ * side to move or of its opponent, and {@code cell.<a>.<b>} for a stone a
+ * rows and b columns from the nearest edges (a &lt;= b, so symmetric cells
+ * share a weight).
+ */
+public final class LineEvaluator implements Evaluator {
+    public static final LineEvaluator INSTANCE = new LineEvaluator(0, null);
+    /** Weight units per point of score. */
+    public static final int WEIGHT_SCALE = 10;
+
+    // Filled when the class is first used; the JVM makes that thread-safe
+    private static final LineEvaluator[] SHIPPED = new LineEvaluator[7];
+
+    static {
+        for (int size = 3; size < SHIPPED.length; size++) {
+            SHIPPED[size] = loadResource(size);
+        }
+    }
+
+    private final int size;
+    private final int[] parameters;
+    private final int[] mineWeight = new int[7];
+    private final int[] theirsWeight = new int[7];
+    /** Weight of a stone on each cell, null if every one is 0. */
+    private final int[] cellWeight;
+
+    /**
+     * @param parameters values in the order of {@link #parameterNames}
+     */
+    public LineEvaluator(int size, int[] parameters) {
+        this.size = size;
+        if (parameters == null) {
+            for (int k = 1; k < mineWeight.length; k++) {
+                mineWeight[k] = theirsWeight[k] = k * k * WEIGHT_SCALE;
+            }
+            this.parameters = null;
+            this.cellWeight = null;
+            return;
+        }
+        if (parameters.length != parameterCount(size)) {
+            throw new IllegalArgumentException(size + "x" + size + " evaluation takes "
+                    + parameterCount(size) + " parameters, not " + parameters.length);
+        }
+        this.parameters = parameters.clone();
+        int p = 0;
+        for (int k = 1; k < size; k++) mineWeight[k] = parameters[p++];
+        for (int k = 1; k < size; k++) theirsWeight[k] = parameters[p++];
+        int[] cells = new int[size * size];
+        boolean any = false;
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = parameters[p + cellClass(size, cell)];
+            any |= cells[cell] != 0;
+        }
+        this.cellWeight = any ? cells : null;
+    }
+
+    /**
+     * Returns the tuned evaluation shipped for a board size, or
+     * {@link #INSTANCE} if there is none.
+     */
+    public static LineEvaluator forSize(int size) {
+        LineEvaluator shipped = size >= 0 && size < SHIPPED.length ? SHIPPED[size] : null;
+        return shipped != null ? shipped : INSTANCE;
+    }
+
+    /**
+     * Names of the tunable weights for a board size, in parameter order.
+     */
+    public static String[] parameterNames(int size) {
+        String[] names = new String[parameterCount(size)];
+        int p = 0;
+        for (int k = 1; k < size; k++) names[p++] = "mine." + k;
+        for (int k = 1; k < size; k++) names[p++] = "theirs." + k;
+        int half = (size + 1) / 2;
+        for (int a = 0; a < half; a++) {
+            for (int b = a; b < half; b++) {
+                names[p++] = "cell." + a + "." + b;
+            }
+        }
+        return names;
+    }
+
+    /**
+     * The parameters that make a size-specific evaluator score exactly like
+     * {@link #INSTANCE}.
+     */
+    public static int[] defaultParameters(int size) {
+        int[] parameters = new int[parameterCount(size)];
+        for (int k = 1; k < size; k++) {
+            parameters[k - 1] = k * k * WEIGHT_SCALE;
+            parameters[size - 1 + k - 1] = k * k * WEIGHT_SCALE;
+        }
+        return parameters;
+    }
+
+    private static int parameterCount(int size) {
+        int half = (size + 1) / 2;
+        return 2 * (size - 1) + half * (half + 1) / 2;
+    }
+
+    /** Index among the cell weights of the class a cell belongs to. */
+    private static int cellClass(int size, int cell) {
+        int row = cell / size, col = cell % size;
+        int a = Math.min(row, size - 1 - row), b = Math.min(col, size - 1 - col);
+        if (a > b) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        int half = (size + 1) / 2;
+        // Classes (a, b) with a <= b, numbered row by row
+        return a * half - a * (a - 1) / 2 + (b - a);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** @return a copy of the weights, in the order of {@link #parameterNames} */
+    public int[] parameters() {
+        if (parameters == null) throw new IllegalStateException("The default evaluation is not tied to a board size");
+        return parameters.clone();
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        long mine = board.sideToMove() == Board.X ? board.xBits() : board.oBits();
+        long theirs = board.sideToMove() == Board.X ? board.oBits() : board.xBits();
+        int score = 0;
+        for (long line : Board.winningLines(board.size())) {
+            long m = mine & line;
+            long t = theirs & line;
+            if (t == 0 && m != 0) {
+                score += mineWeight[Long.bitCount(m)];
+            } else if (m == 0 && t != 0) {
+                score -= theirsWeight[Long.bitCount(t)];
+            }
+        }
+        if (cellWeight != null) {
+            for (long m = mine; m != 0; m &= m - 1) score += cellWeight[Long.numberOfTrailingZeros(m)];
+            for (long t = theirs; t != 0; t &= t - 1) score -= cellWeight[Long.numberOfTrailingZeros(t)];
+        }
+        return Math.floorDiv(score + WEIGHT_SCALE / 2, WEIGHT_SCALE);
+    }
+
+    /**
+     * Writes the weights as {@code name = value} lines, after the given
+     * comment lines.
+     */
+    public void save(Path file, String... comments) throws IOException {
+        if (parameters == null) throw new IllegalStateException("The default evaluation has no weight file");
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        String[] names = parameterNames(size);
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (String comment : comments) {
+                out.write("# " + comment + "\n");
+            }
+            out.write("size = " + size + "\n");
+            for (int p = 0; p < names.length; p++) {
+                out.write(names[p] + " = " + parameters[p] + "\n");
+            }
+        }
+    }
+
+    public static LineEvaluator load(Path file) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(in);
+        }
+    }
+
+    private static LineEvaluator loadResource(int size) {
+        String path = "resources/eval-" + size + ".txt";
+        URL url = LineEvaluator.class.getClassLoader().getResource(path);
+        if (url == null) return null;
+        try (InputStream in = url.openStream()) {
+            LineEvaluator evaluator = read(new InputStreamReader(in, StandardCharsets.UTF_8));
+            if (evaluator.size != size) throw new IOException("holds weights for " + evaluator.size + "x" + evaluator.size);
+            return evaluator;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error loading evaluation weights " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads a weight file. Weights it does not mention keep their defaults.
+     */
+    private static LineEvaluator read(Reader reader) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        int size = -1;
+        int[] parameters = null;
+        String[] names = null;
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            int eq = line.indexOf('=');
+            if (eq < 0) throw new IOException("Expected name = value: " + line);
+            String name = line.substring(0, eq).trim();
+            int value;
+            try {
+                value = Integer.parseInt(line.substring(eq + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Not a number: " + line);
+            }
+            if (name.equals("size")) {
+                if (size >= 0 || value < 3 || value > 6) throw new IOException("Bad size line: " + line);
+                size = value;
+                parameters = defaultParameters(size);
+                names = parameterNames(size);
+                continue;
+            }
+            if (size < 0) throw new IOException("The size must come before the weights");
+            int p = Arrays.asList(names).indexOf(name);
+            if (p < 0) throw new IOException("Unknown weight " + name + " for " + size + "x" + size);
+            parameters[p] = value;
+        }
+        if (size < 0) throw new IOException("No size line");
+        return new LineEvaluator(size, parameters);
+    }
+}
@@ -0,0 +1,333 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test for {@link GameServer}: starts a server in a child JVM (or uses
+ * one already running) and runs simulated clients against it over loopback,
+ * each on its own virtual thread. A client connects, then plays game after
+ * game as X with random legal moves, pausing for a think time drawn from the
+ * chosen distribution before every move.
+ *
+ * Move latency is the time from sending {@code move} to reading the reply,
+ * so it includes the engine's own thinking. Every second the test prints the
+ * moves per second, the latency percentiles for that second, errors so far
+ * and the server's CPU use and heap, read with the {@code stats} command over
+ * a separate connection. A summary over the whole run follows at the end.
+ *
+ * Think times: {@code fixed:MS}, {@code uniform:MIN:MAX}, {@code exp:MEAN}
+ * or {@code lognormal:MEDIAN:SIGMA}, all in milliseconds. Clients start
+ * spread over the ramp-up and are seeded from {@code --seed}, so two runs
+ * with the same options make the same requests.
+ *
+ * A loopback address has about 28,000 ephemeral ports, so clients are spread
+ * over the source addresses 127.0.0.2, 127.0.0.3 and so on, 20,000 per
+ * address. Beyond a few thousand clients raise the open file limit
+ * ({@code ulimit -n}) for both JVMs; connections that fail count as errors.
+ *
+ * Usage: {@code java LoadTest [--clients N] [--seconds N] [--ramp N] [--size N]
+ * [--think SPEC] [--engine name] [--ms N] [--heap SIZE] [--port N] [--seed N]}.
+ * With {@code --port} no server is started.
+ */
+public class LoadTest {
+    private static final int CLIENTS_PER_ADDRESS = 20_000;
+    private static final int READ_TIMEOUT_MILLIS = 30_000;
+
+    private final int port;
+    private final int size;
+    private final ThinkTime think;
+    private final LatencyRecorder total = new LatencyRecorder();
+    private volatile LatencyRecorder interval = new LatencyRecorder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder games = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicInteger connected = new AtomicInteger();
+    private volatile boolean running = true;
+
+    public LoadTest(int port, int size, ThinkTime think) {
+        this.port = port;
+        this.size = size;
+        this.think = think;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = 1000;
+        int seconds = 30;
+        int ramp = 5;
+        int size = 3;
+        String thinkSpec = "exp:500";
+        String engine = BuiltInEngines.GREEDY;
+        long millis = 10;
+        String heap = "512m";
+        int port = -1;
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--clients": clients = Integer.parseInt(args[++i]); break;
+                case "--seconds": seconds = Integer.parseInt(args[++i]); break;
+                case "--ramp": ramp = Integer.parseInt(args[++i]); break;
+                case "--size": size = Integer.parseInt(args[++i]); break;
+                case "--think": thinkSpec = args[++i]; break;
+                case "--engine": engine = args[++i]; break;
+                case "--ms": millis = Long.parseLong(args[++i]); break;
+                case "--heap": heap = args[++i]; break;
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        ThinkTime think = ThinkTime.parse(thinkSpec);
+
+        Process server = null;
+        if (port < 0) {
+            server = startServer(engine, millis, heap);
+            port = awaitPort(server);
+        }
+        try {
+            System.out.printf("%d clients, %dx%d, think %s, %s %d ms per move, %d s after a %d s ramp%n",
+                    clients, size, size, thinkSpec, engine, millis, seconds, ramp);
+            new LoadTest(port, size, think).run(clients, seconds, ramp, seed);
+        } finally {
+            if (server != null) server.destroy();
+        }
+    }
+
+    private static Process startServer(String engine, long millis, String heap) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java, "-Xmx" + heap, "-cp", System.getProperty("java.class.path"),
+                "GameServer", "--port", "0", "--engine", engine, "--ms", Long.toString(millis));
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        return builder.start();
+    }
+
+    private static int awaitPort(Process server) throws IOException {
+        BufferedReader out = new BufferedReader(new InputStreamReader(server.getInputStream(), StandardCharsets.US_ASCII));
+        String line = out.readLine();
+        if (line == null || !line.startsWith("listening ")) {
+            throw new IOException("Game server did not start" + (line == null ? "" : ": " + line));
+        }
+        return Integer.parseInt(line.split(" ")[1]);
+    }
+
+    /** Runs the clients, reporting every second, then prints the summary. */
+    public void run(int clients, int seconds, int ramp, long seed) throws Exception {
+        long start = System.nanoTime();
+        long rampNanos = TimeUnit.SECONDS.toNanos(ramp);
+        long end = start + rampNanos + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+             StatsProbe probe = new StatsProbe(port)) {
+            for (int i = 0; i < clients; i++) {
+                int client = i;
+                long startAt = start + (clients == 1 ? 0 : rampNanos * i / clients);
+                pool.submit(() -> client(client, startAt, end, new Random(seed * 1_000_003 + client)));
+            }
+            System.out.printf("%6s %8s %9s %9s %9s %9s %8s %7s %9s%n",
+                    "time", "clients", "moves/s", "p50 ms", "p99 ms", "p999 ms", "errors", "cpu %", "heap MB");
+            long[] before = probe.read();
+            long lastMoves = 0;
+            long last = System.nanoTime();
+            int cores = Runtime.getRuntime().availableProcessors();
+            List<double[]> samples = new ArrayList<>();
+            while (System.nanoTime() < end) {
+                Thread.sleep(1000);
+                long now = System.nanoTime();
+                LatencyRecorder second = interval;
+                interval = new LatencyRecorder();
+                long[] stats = probe.read();
+                long movesNow = moves.sum();
+                double elapsed = (now - last) / 1e9;
+                // Server CPU is measured against all cores the box has, as top shows it divided by cores
+                double cpu = stats == null || before == null ? Double.NaN : (stats[0] - before[0]) / 1e9 / elapsed / cores * 100;
+                double heapMb = stats == null ? Double.NaN : stats[1] / 1e6;
+                System.out.printf("%6.0f %8d %9.0f %9.2f %9.2f %9.2f %8d %7.1f %9.1f%n",
+                        (now - start) / 1e9, connected.get(), (movesNow - lastMoves) / elapsed,
+                        second.percentileNanos(0.50) / 1e6, second.percentileNanos(0.99) / 1e6,
+                        second.percentileNanos(0.999) / 1e6, errors.sum(), cpu, heapMb);
+                if (now - start > rampNanos) samples.add(new double[] {(movesNow - lastMoves) / elapsed, cpu, heapMb});
+                before = stats;
+                lastMoves = movesNow;
+                last = now;
+            }
+            running = false;
+            pool.shutdownNow();
+            summarize(samples);
+        }
+    }
+
+    private void summarize(List<double[]> samples) {
+        double throughput = 0, cpu = 0, heap = 0;
+        for (double[] s : samples) {
+            throughput += s[0];
+            cpu += s[1];
+            heap = Math.max(heap, s[2]);
+        }
+        int n = Math.max(1, samples.size());
+        System.out.printf("%nafter ramp-up: %.0f moves/s, %d games, server CPU %.1f%%, peak heap %.1f MB%n",
+                throughput / n, games.sum(), cpu / n, heap);
+        System.out.printf("move latency over %d moves: p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, max %.2f ms%n",
+                total.getCount(), total.percentileNanos(0.50) / 1e6, total.percentileNanos(0.99) / 1e6,
+                total.percentileNanos(0.999) / 1e6, total.getMaxMillis());
+        System.out.printf("errors: %d%n", errors.sum());
+    }
+
+    /** One simulated player: connects once, then plays until the end of the run. */
+    private Void client(int client, long startAt, long end, Random random) throws InterruptedException {
+        long delay = startAt - System.nanoTime();
+        if (delay > 0) TimeUnit.NANOSECONDS.sleep(delay);
+        String source = "127.0.0." + (2 + client / CLIENTS_PER_ADDRESS);
+        try (Socket socket = new Socket()) {
+            socket.bind(new InetSocketAddress(InetAddress.getByName(source), 0));
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+            connected.incrementAndGet();
+            try {
+                while (running && System.nanoTime() < end) {
+                    if (!playGame(in, out, random, end)) errors.increment();
+                }
+            } finally {
+                connected.decrementAndGet();
+            }
+        } catch (SocketTimeoutException e) {
+            errors.increment();
+        } catch (IOException e) {
+            if (running) errors.increment();
+        }
+        return null;
+    }
+
+    /**
+     * Plays one game, or as much of it as fits before {@code end}.
+     * @return false if the server answered with an error or something unexpected
+     */
+    private boolean playGame(BufferedReader in, Writer out, Random random, long end) throws IOException, InterruptedException {
+        out.write("new " + size + "\n");
+        out.flush();
+        String reply = in.readLine();
+        if (reply == null || !reply.startsWith("game ")) return false;
+        Board board = new Board(size);
+        while (running && System.nanoTime() < end) {
+            long pause = think.nanos(random);
+            if (pause > 0) TimeUnit.NANOSECONDS.sleep(pause);
+            long empty = board.emptyMask();
+            for (int n = random.nextInt(Long.bitCount(empty)); n > 0; n--) empty &= empty - 1;
+            int cell = Long.numberOfTrailingZeros(empty);
+            board.play(cell);
+
+            long sent = System.nanoTime();
+            out.write("move " + cell + "\n");
+            out.flush();
+            reply = in.readLine();
+            long latency = System.nanoTime() - sent;
+            if (reply == null) throw new IOException("server closed the connection");
+            total.record(latency);
+            interval.record(latency);
+            moves.increment();
+
+            String[] words = reply.split(" ");
+            if (words[0].equals("move") && words.length == 2) {
+                board.play(Integer.parseInt(words[1]));
+            } else if (words[0].equals("over")) {
+                games.increment();
+                return true;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** A think-time distribution, sampled before every move. */
+    public interface ThinkTime {
+        long nanos(Random random);
+
+        /**
+         * Parses {@code fixed:MS}, {@code uniform:MIN:MAX}, {@code exp:MEAN}
+         * or {@code lognormal:MEDIAN:SIGMA}.
+         */
+        static ThinkTime parse(String spec) {
+            String[] parts = spec.split(":");
+            double millis = 1e6;
+            try {
+                switch (parts[0]) {
+                    case "fixed": {
+                        long nanos = (long) (Double.parseDouble(parts[1]) * millis);
+                        return random -> nanos;
+                    }
+                    case "uniform": {
+                        double min = Double.parseDouble(parts[1]) * millis;
+                        double max = Double.parseDouble(parts[2]) * millis;
+                        return random -> (long) (min + random.nextDouble() * (max - min));
+                    }
+                    case "exp": {
+                        double mean = Double.parseDouble(parts[1]) * millis;
+                        return random -> (long) (-mean * Math.log(1 - random.nextDouble()));
+                    }
+                    case "lognormal": {
+                        double mu = Math.log(Double.parseDouble(parts[1]) * millis);
+                        double sigma = Double.parseDouble(parts[2]);
+                        return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+                    }
+                    default:
+                        break;
+                }
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                // Reported below
+            }
+            throw new IllegalArgumentException("Bad think time: " + spec
+                    + " (use fixed:MS, uniform:MIN:MAX, exp:MEAN or lognormal:MEDIAN:SIGMA)");
+        }
+    }
+
+    /** Reads the server's CPU time and heap over a connection of its own. */
+    private static final class StatsProbe implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+
+        StatsProbe(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+        }
+
+        /** @return {cpu nanos, heap bytes}, or null if the server did not answer */
+        long[] read() {
+            try {
+                out.write("stats\n");
+                out.flush();
+                String[] words = in.readLine().split(" ");
+                return new long[] {Long.parseLong(words[2]), Long.parseLong(words[4])};
+            } catch (IOException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,403 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Matchmaking for a hosted server: players wanting a game join the lobby and
+ * are paired with someone on the same board size and mode with a close
+ * rating. Anyone still waiting after {@code botAfter} gets a bot instead,
+ * and a ticket whose client stopped sending {@link Ticket#heartbeat}s for
+ * {@code staleAfter} is dropped.
+ *
+ * Joining never blocks: tickets go onto a lock-free queue and a single
+ * matcher thread, woken when it is idle, owns every other structure, so the
+ * pairing itself needs no locks. Each board size and mode has a row of rating
+ * buckets, and a new ticket looks only at the heads of the buckets within its
+ * rating band, which widens the longer a player waits. A ticket's state is
+ * resolved with one compare-and-set, so cancelling races cleanly with being
+ * matched. Matches found in one pass are handed to the listener as a batch.
+ *
+ * {@code java Lobby [players] [producers] [joins per second]} runs a
+ * simulated load and prints pairing latency; without a rate the clients join
+ * as fast as they can.
+ */
+public class Lobby implements AutoCloseable {
+    public static final int WAITING = 0, MATCHED = 1, CANCELLED = 2, TIMED_OUT = 3;
+
+    private static final int BUCKET_WIDTH = 25;
+    private static final int MAX_RATING = 4000;
+    private static final int BUCKETS = MAX_RATING / BUCKET_WIDTH + 1;
+    private static final long WIDEN_PASS_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /** One player's place in the queue. */
+    public static final class Ticket {
+        final long playerId;
+        final int size;
+        final String mode;
+        final int rating;
+        final long joinedNanos;
+        private volatile long lastSeenNanos;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private final AtomicLong waiting;
+
+        Ticket(long playerId, int size, String mode, int rating, long now, AtomicLong waiting) {
+            this.playerId = playerId;
+            this.size = size;
+            this.mode = mode;
+            this.rating = Math.max(0, Math.min(MAX_RATING, rating));
+            this.joinedNanos = now;
+            this.lastSeenNanos = now;
+            this.waiting = waiting;
+        }
+
+        public long playerId() {
+            return playerId;
+        }
+
+        public int rating() {
+            return rating;
+        }
+
+        public int state() {
+            return state.get();
+        }
+
+        /** Keeps the ticket alive; clients call this while they wait. */
+        public void heartbeat() {
+            lastSeenNanos = System.nanoTime();
+        }
+
+        /**
+         * Leaves the queue.
+         * @return false if the ticket was already matched or dropped
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(WAITING, CANCELLED)) return false;
+            waiting.decrementAndGet();
+            return true;
+        }
+
+        boolean claim() {
+            return state.compareAndSet(WAITING, MATCHED);
+        }
+
+        void release() {
+            state.set(WAITING);
+        }
+    }
+
+    /** A pairing; {@code second} is null when the first player gets a bot. */
+    public static final class Match {
+        public final Ticket first;
+        public final Ticket second;
+        public final long matchedNanos;
+
+        Match(Ticket first, Ticket second, long matchedNanos) {
+            this.first = first;
+            this.second = second;
+            this.matchedNanos = matchedNanos;
+        }
+
+        public boolean vsBot() {
+            return second == null;
+        }
+    }
+
+    /** Receives the matches of one matcher pass; called on the matcher thread. */
+    public interface MatchListener {
+        void matchesStarted(List<Match> batch);
+    }
+
+    /** Rating buckets for one board size and mode, each a FIFO of tickets. */
+    private static final class Pool {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final ArrayDeque<Ticket>[] buckets = new ArrayDeque[BUCKETS];
+
+        ArrayDeque<Ticket> bucket(int index) {
+            ArrayDeque<Ticket> bucket = buckets[index];
+            if (bucket == null) buckets[index] = bucket = new ArrayDeque<>();
+            return bucket;
+        }
+
+        /** The oldest ticket still waiting in a bucket, discarding resolved ones. */
+        Ticket head(int index) {
+            ArrayDeque<Ticket> bucket = buckets[index];
+            if (bucket == null) return null;
+            Ticket head;
+            while ((head = bucket.peekFirst()) != null && head.state() != WAITING) bucket.pollFirst();
+            return head;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Ticket> incoming = new ConcurrentLinkedQueue<>();
+    private final Map<String, Pool> pools = new HashMap<>(); // matcher thread only
+    // Matcher thread only, oldest first; only kept when a bot is offered, since nothing else drains it
+    private final ArrayDeque<Ticket> arrivals = new ArrayDeque<>();
+    private final List<Match> batch = new ArrayList<>();
+    private final MatchListener listener;
+    private final int initialBand;
+    private final int bandPerSecond;
+    private final long botAfterNanos;
+    private final long staleAfterNanos;
+    private final long tickNanos;
+    private final Thread matcher;
+    private final AtomicBoolean idle = new AtomicBoolean();
+    private final AtomicLong waiting = new AtomicLong();
+    private volatile boolean running = true;
+    private long lastWidenPass;
+
+    /** Time from joining to being paired with another player. */
+    public final LatencyRecorder pairingLatency = new LatencyRecorder();
+    /** Matcher time spent placing one new ticket, paired or queued. */
+    public final LatencyRecorder matchCost = new LatencyRecorder();
+    /** Time from joining to being given a bot. */
+    public final LatencyRecorder botWait = new LatencyRecorder();
+
+    /**
+     * @param initialBand    largest rating difference accepted right after joining
+     * @param bandPerSecond  how much that grows for every second of waiting
+     * @param botAfterMillis wait before a bot is offered instead, or 0 for never
+     * @param staleAfterMillis how long a ticket survives without a heartbeat
+     */
+    public Lobby(MatchListener listener, int initialBand, int bandPerSecond, long botAfterMillis, long staleAfterMillis) {
+        this.listener = listener;
+        this.initialBand = Math.max(BUCKET_WIDTH, initialBand);
+        this.bandPerSecond = bandPerSecond;
+        this.botAfterNanos = botAfterMillis <= 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(botAfterMillis);
+        this.staleAfterNanos = TimeUnit.MILLISECONDS.toNanos(staleAfterMillis);
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        this.matcher = new Thread(this::run, "lobby-matcher");
+        matcher.setDaemon(true);
+        matcher.start();
+    }
+
+    /**
+     * Queues a player. Safe from any thread and never blocks.
+     */
+    public Ticket join(long playerId, int size, String mode, int rating) {
+        Ticket ticket = new Ticket(playerId, size, mode, rating, System.nanoTime(), waiting);
+        incoming.offer(ticket);
+        waiting.incrementAndGet();
+        if (idle.compareAndSet(true, false)) LockSupport.unpark(matcher);
+        return ticket;
+    }
+
+    /** Players that joined and have not been matched, cancelled or dropped yet. */
+    public long waiting() {
+        return waiting.get();
+    }
+
+    private void run() {
+        while (running) {
+            long now = System.nanoTime();
+            Ticket ticket;
+            while ((ticket = incoming.poll()) != null) {
+                if (ticket.state() != WAITING) continue; // cancelled before it got here
+                if (botAfterNanos != Long.MAX_VALUE) arrivals.addLast(ticket);
+                now = System.nanoTime();
+                if (!matchNew(ticket, now)) {
+                    pool(ticket).bucket(ticket.rating / BUCKET_WIDTH).addLast(ticket);
+                }
+                matchCost.recordSince(now);
+            }
+            expire(now);
+            if (now - lastWidenPass > WIDEN_PASS_NANOS) {
+                widen(now);
+                lastWidenPass = now;
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    listener.matchesStarted(new ArrayList<>(batch));
+                } catch (RuntimeException e) {
+                    System.err.println("Lobby listener failed: " + e.getMessage());
+                }
+                batch.clear();
+            }
+            idle.set(true);
+            if (incoming.isEmpty()) LockSupport.parkNanos(this, tickNanos);
+            idle.set(false);
+        }
+    }
+
+    private Pool pool(Ticket ticket) {
+        return pools.computeIfAbsent(ticket.size + "/" + ticket.mode, k -> new Pool());
+    }
+
+    private int band(Ticket ticket, long now) {
+        return initialBand + (int) Math.min(MAX_RATING, (now - ticket.joinedNanos) * bandPerSecond / 1_000_000_000L);
+    }
+
+    /**
+     * Looks for a partner among the bucket heads within the ticket's band,
+     * nearest rating first.
+     * @return true if it was matched
+     */
+    private boolean matchNew(Ticket ticket, long now) {
+        Pool pool = pool(ticket);
+        int home = ticket.rating / BUCKET_WIDTH;
+        int reach = band(ticket, now) / BUCKET_WIDTH + 1;
+        for (int d = 0; d <= reach; d++) {
+            if (tryPair(pool, ticket, home - d, now) || (d > 0 && tryPair(pool, ticket, home + d, now))) return true;
+        }
+        return false;
+    }
+
+    private boolean tryPair(Pool pool, Ticket ticket, int bucket, long now) {
+        if (bucket < 0 || bucket >= BUCKETS) return false;
+        Ticket other = pool.head(bucket);
+        if (other == null || other == ticket) return false;
+        if (timedOut(other, now) || timedOut(ticket, now)) return false;
+        int diff = Math.abs(other.rating - ticket.rating);
+        if (diff > band(ticket, now) || diff > band(other, now)) return false;
+        if (!other.claim()) return false;
+        if (!ticket.claim()) {
+            other.release();
+            return false;
+        }
+        pool.buckets[bucket].pollFirst();
+        matched(new Match(other, ticket, now));
+        return true;
+    }
+
+    private void matched(Match match) {
+        batch.add(match);
+        waiting.decrementAndGet();
+        if (match.second == null) {
+            botWait.record(match.matchedNanos - match.first.joinedNanos);
+        } else {
+            pairingLatency.record(match.matchedNanos - match.first.joinedNanos);
+            pairingLatency.record(match.matchedNanos - match.second.joinedNanos);
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Offers a bot to the players who have waited longest. Arrivals are in
+     * join order, so only the front of the queue needs looking at.
+     */
+    private void expire(long now) {
+        Ticket oldest;
+        while ((oldest = arrivals.peekFirst()) != null) {
+            if (oldest.state() != WAITING) {
+                arrivals.pollFirst();
+                continue;
+            }
+            if (now - oldest.joinedNanos < botAfterNanos) break;
+            arrivals.pollFirst();
+            if (timedOut(oldest, now)) continue;
+            if (oldest.claim()) matched(new Match(oldest, null, now));
+        }
+    }
+
+    /**
+     * Drops a ticket whose client stopped sending heartbeats, so it is never
+     * handed to a match.
+     * @return true if the ticket is stale
+     */
+    private boolean timedOut(Ticket ticket, long now) {
+        if (now - ticket.lastSeenNanos <= staleAfterNanos) return false;
+        if (ticket.state.compareAndSet(WAITING, TIMED_OUT)) waiting.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Periodic pass for tickets whose band has grown since they joined, and
+     * for clients that stopped sending heartbeats.
+     */
+    private void widen(long now) {
+        for (Pool pool : pools.values()) {
+            for (int b = 0; b < BUCKETS; b++) {
+                Ticket head = pool.head(b);
+                if (head == null) continue;
+                if (timedOut(head, now)) continue;
+                int reach = band(head, now) / BUCKET_WIDTH + 1;
+                for (int other = b + 1; other <= Math.min(BUCKETS - 1, b + reach); other++) {
+                    if (tryPair(pool, head, other, now)) {
+                        pool.buckets[b].pollFirst();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(matcher);
+        try {
+            matcher.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int producers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long rate = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        int[] sizes = {3, 4, 5, 6};
+        String[] modes = {"Singleplayer", "Multiplayer"};
+        AtomicLong matches = new AtomicLong(), bots = new AtomicLong(), batches = new AtomicLong();
+        try (Lobby lobby = new Lobby(batch -> {
+            batches.incrementAndGet();
+            for (Match match : batch) {
+                if (match.vsBot()) bots.incrementAndGet();
+                else matches.incrementAndGet();
+            }
+        }, 50, 100, 2000, 30_000)) {
+            CountDownLatch done = new CountDownLatch(producers);
+            AtomicLong cancelled = new AtomicLong();
+            long start = System.nanoTime();
+            // Each client thread joins its share at its share of the rate, in bursts of 64
+            long burstNanos = rate <= 0 ? 0 : 64L * producers * 1_000_000_000L / rate;
+            for (int p = 0; p < producers; p++) {
+                int id = p;
+                Thread producer = new Thread(() -> {
+                    Random random = new Random(id);
+                    long next = System.nanoTime();
+                    int sent = 0;
+                    for (int i = id; i < players; i += producers) {
+                        Ticket ticket = lobby.join(i, sizes[random.nextInt(4)], modes[random.nextInt(2)],
+                                (int) (1500 + random.nextGaussian() * 350));
+                        if (random.nextInt(50) == 0 && ticket.cancel()) cancelled.incrementAndGet();
+                        if (burstNanos > 0 && ++sent % 64 == 0) {
+                            next += burstNanos;
+                            LockSupport.parkNanos(next - System.nanoTime());
+                        }
+                    }
+                    done.countDown();
+                }, "lobby-client-" + p);
+                producer.start();
+            }
+            long peak = 0;
+            while (!done.await(1, TimeUnit.MILLISECONDS)) peak = Math.max(peak, lobby.waiting());
+            double joinSeconds = (System.nanoTime() - start) / 1e9;
+            while (lobby.waiting() > 0 && System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10)) {
+                peak = Math.max(peak, lobby.waiting());
+                Thread.sleep(5);
+            }
+            LatencyRecorder latency = lobby.pairingLatency;
+            System.out.printf("%d players joined from %d threads in %.2f s (%.0f joins/s), peak %d queued%n",
+                    players, producers, joinSeconds, players / joinSeconds, peak);
+            System.out.printf("%d pairs, %d bot games, %d cancelled, %d still waiting, %d batches%n",
+                    matches.get(), bots.get(), cancelled.get(), lobby.waiting(), batches.get());
+            System.out.printf("pairing latency: p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f ms%n",
+                    latency.percentileNanos(0.5) / 1e3, latency.percentileNanos(0.99) / 1e3,
+                    latency.percentileNanos(0.999) / 1e3, latency.percentileNanos(1.0) / 1e6);
+            LatencyRecorder cost = lobby.matchCost;
+            System.out.printf("matcher cost per join: p50 %.2f us, p99 %.2f us, p99.9 %.2f us%n",
+                    cost.percentileNanos(0.5) / 1e3, cost.percentileNanos(0.99) / 1e3, cost.percentileNanos(0.999) / 1e3);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 // Main.java
 public class Main {
     public static void main(String[] args) {
+        EdtWatchdog.install();
         javax.swing.SwingUtilities.invokeLater(() -> new TicTacToeApp());
     }
 }
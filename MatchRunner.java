@@ -0,0 +1,84 @@
+import java.util.Random;
+
+/**
+ * Plays one headless game between two named engines at a fixed time per
+ * move, for {@link Tournament} and {@link Ladder}. Engines are created fresh
+ * for every game.
+ *
+ * Games run on several threads at once, so the built-in bots do not use the
+ * process-wide {@link EvaluationCache}: a {@link Difficulty#PERFECT} bot
+ * would read scores stored by whatever game another thread is playing, and
+ * its results would depend on the scheduling. Each thread keeps a cache per
+ * side for it, cleared before every game, and the capped levels get the
+ * small private cache they always have.
+ */
+final class MatchRunner {
+    private static final long CACHE_BYTES = 16L * 1024 * 1024;
+
+    private final int size;
+    private final long moveBudgetNanos;
+    private final ThreadLocal<EvaluationCache[]> caches = ThreadLocal.withInitial(
+            () -> new EvaluationCache[] {new EvaluationCache(CACHE_BYTES), new EvaluationCache(CACHE_BYTES)});
+
+    MatchRunner(int size, long moveBudgetNanos) {
+        this.size = size;
+        this.moveBudgetNanos = moveBudgetNanos;
+    }
+
+    GameResult playGame(String xName, String oName, int opening, long seed) {
+        Random random = new Random(seed);
+        EvaluationCache[] cache = caches.get();
+        try (Engine x = create(xName, new Random(random.nextLong()), cache[0]);
+             Engine o = create(oName, new Random(random.nextLong()), cache[1])) {
+            return playGame(x, o, xName, oName, opening);
+        }
+    }
+
+    private static Engine create(String name, Random random, EvaluationCache cache) {
+        for (Difficulty d : Difficulty.values()) {
+            if (d.label().equals(name)) {
+                if (d != Difficulty.PERFECT) return new Bot(d, random, Bot.privateCache(d), null);
+                cache.clear();
+                return new Bot(d, random, cache, null);
+            }
+        }
+        return Engines.create(name, random);
+    }
+
+    private GameResult playGame(Engine x, Engine o, String xName, String oName, int opening) {
+        GameResult result = new GameResult(xName, oName);
+        Board board = new Board(size);
+        board.play(opening);
+        while (!board.isGameOver()) {
+            boolean xToMove = board.sideToMove() == Board.X;
+            Engine engine = xToMove ? x : o;
+            long start = System.nanoTime();
+            int move = engine.chooseMove(board, moveBudgetNanos);
+            long nanos = System.nanoTime() - start;
+            if (move < 0 || move >= board.cells() || !board.isEmpty(move)) {
+                throw new IllegalStateException(engine.name() + " played an illegal move " + move + " in " + board);
+            }
+            int side = xToMove ? Board.X : Board.O;
+            result.thinkNanos[side] += nanos;
+            result.nodes[side] += engine.lastNodes();
+            result.moves[side]++;
+            board.play(move);
+        }
+        result.winner = board.winner();
+        return result;
+    }
+
+    static final class GameResult {
+        final String x;
+        final String o;
+        final long[] thinkNanos = new long[3];
+        final long[] nodes = new long[3];
+        final long[] moves = new long[3];
+        int winner;
+
+        GameResult(String x, String o) {
+            this.x = x;
+            this.o = o;
+        }
+    }
+}
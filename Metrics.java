@@ -0,0 +1,172 @@
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide runtime metrics, published as JMX MBeans under the
+ * {@code tictactoe} domain so they can be watched live in JConsole or
+ * VisualVM while a session runs.
+ */
+public final class Metrics {
+    public static final LatencyRecorder MOVE_TO_RENDER = new LatencyRecorder();
+    public static final LatencyRecorder BOT_THINK = new LatencyRecorder();
+    public static final LatencyRecorder AUDIO_TRIGGER = new LatencyRecorder();
+    public static final LatencyRecorder SETTINGS_LOAD = new LatencyRecorder();
+    public static final LatencyRecorder SETTINGS_SAVE = new LatencyRecorder();
+    public static final LatencyRecorder EDT_EVENT = new LatencyRecorder();
+    public static final LatencyRecorder EDT_STALL = new LatencyRecorder();
+
+    private static final Session SESSION = new Session();
+
+    static {
+        register("tictactoe:type=Latency,name=MoveToRender", MOVE_TO_RENDER);
+        register("tictactoe:type=Latency,name=BotThink", BOT_THINK);
+        register("tictactoe:type=Latency,name=AudioTrigger", AUDIO_TRIGGER);
+        register("tictactoe:type=Latency,name=SettingsLoad", SETTINGS_LOAD);
+        register("tictactoe:type=Latency,name=SettingsSave", SETTINGS_SAVE);
+        register("tictactoe:type=Latency,name=EdtEvent", EDT_EVENT);
+        register("tictactoe:type=Latency,name=EdtStall", EDT_STALL);
+        register("tictactoe:type=Session", SESSION);
+        register("tictactoe:type=EvaluationCache", new CacheStats());
+    }
+
+    private Metrics() {
+    }
+
+    private static void register(String name, Object bean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(bean, objectName);
+            }
+        } catch (JMException e) {
+            System.err.println("Failed to register metrics bean " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records a bot move: how long it thought and how many nodes it searched.
+     */
+    public static void botMoved(long thinkNanos, long nodes) {
+        BOT_THINK.record(thinkNanos);
+        SESSION.botNodes.add(nodes);
+        SESSION.botThinkNanos.add(thinkNanos);
+    }
+
+    public static void gameFinished() {
+        SESSION.gameFinished();
+    }
+
+    /**
+     * Session-wide counters.
+     */
+    public interface SessionMXBean {
+        long getGamesFinished();
+
+        /** Games finished during the last 60 seconds. */
+        long getGamesPerMinute();
+
+        long getBotNodes();
+
+        double getBotNodesPerSecond();
+    }
+
+    /**
+     * Live statistics of the shared {@link EvaluationCache}.
+     */
+    public interface CacheStatsMXBean {
+        long getHits();
+
+        long getMisses();
+
+        long getEvictions();
+
+        long getCapacity();
+
+        long getMemoryBytes();
+
+        double getHitRate();
+    }
+
+    private static final class Session implements SessionMXBean {
+        // One slot per second of the last minute; each slot remembers which second it counts.
+        private final long[] slotSecond = new long[60];
+        private final long[] slotGames = new long[60];
+        private final AtomicLong gamesFinished = new AtomicLong();
+        private final LongAdder botNodes = new LongAdder();
+        private final LongAdder botThinkNanos = new LongAdder();
+
+        synchronized void gameFinished() {
+            gamesFinished.incrementAndGet();
+            long second = System.nanoTime() / 1_000_000_000L;
+            int slot = (int) Math.floorMod(second, 60L);
+            if (slotSecond[slot] != second) {
+                slotSecond[slot] = second;
+                slotGames[slot] = 0;
+            }
+            slotGames[slot]++;
+        }
+
+        @Override
+        public long getGamesFinished() {
+            return gamesFinished.get();
+        }
+
+        @Override
+        public synchronized long getGamesPerMinute() {
+            long now = System.nanoTime() / 1_000_000_000L;
+            long games = 0;
+            for (int i = 0; i < 60; i++) {
+                if (now - slotSecond[i] < 60) games += slotGames[i];
+            }
+            return games;
+        }
+
+        @Override
+        public long getBotNodes() {
+            return botNodes.sum();
+        }
+
+        @Override
+        public double getBotNodesPerSecond() {
+            long nanos = botThinkNanos.sum();
+            return nanos == 0 ? 0 : botNodes.sum() / (nanos / 1e9);
+        }
+    }
+
+    private static final class CacheStats implements CacheStatsMXBean {
+        @Override
+        public long getHits() {
+            return EvaluationCache.shared().hits();
+        }
+
+        @Override
+        public long getMisses() {
+            return EvaluationCache.shared().misses();
+        }
+
+        @Override
+        public long getEvictions() {
+            return EvaluationCache.shared().evictions();
+        }
+
+        @Override
+        public long getCapacity() {
+            return EvaluationCache.shared().capacity();
+        }
+
+        @Override
+        public long getMemoryBytes() {
+            return EvaluationCache.shared().memoryBytes();
+        }
+
+        @Override
+        public double getHitRate() {
+            return EvaluationCache.shared().hitRate();
+        }
+    }
+}
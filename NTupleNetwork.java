@@ -0,0 +1,223 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Learned evaluation for the larger boards: an n-tuple network whose tuples
+ * are the board's winning lines. Each line's cells are read as a base-3
+ * pattern (empty / side to move / opponent) that indexes a lookup table of
+ * weights, and the position's value is the sum over all lines.
+ *
+ * Lines that map onto each other under the board's symmetries share a table,
+ * and a pattern and its mirror image share an entry. Weights live in one
+ * float array; evaluating a position allocates nothing.
+ *
+ * Weights are trained by {@link NTupleTrainer} and stored in
+ * {@code resources/ntuple-<size>.bin}. The bots only use the network with
+ * {@code -Dttt.eval=ntuple}; see {@link Evaluator#forSize}.
+ */
+public final class NTupleNetwork implements Evaluator {
+    private static final int MAGIC = 0x4E545550; // "NTUP"
+    private static final int VERSION = 1;
+    /** Network values lie roughly in [-1, 1]; search scores use this scale. */
+    private static final int SCORE_SCALE = 1000;
+    /** Whether {@code -Dttt.eval=ntuple} asked for the network over the line heuristic. */
+    static final boolean SELECTED = "ntuple".equals(System.getProperty("ttt.eval"));
+
+    // Filled when the class is first used; the JVM makes that thread-safe
+    private static final NTupleNetwork[] SHIPPED = new NTupleNetwork[7];
+
+    static {
+        for (int size = 5; size < SHIPPED.length; size++) {
+            SHIPPED[size] = loadResource(size);
+        }
+    }
+
+    private final int size;
+    private final int tableSize;
+    private final int[][] lineCells;
+    private final int[] lineTable;
+    private final int[] patternIndex;
+    private final float[] weights;
+
+    public NTupleNetwork(int size) {
+        this.size = size;
+        int[] pow3 = new int[size + 1];
+        pow3[0] = 1;
+        for (int i = 1; i <= size; i++) pow3[i] = pow3[i - 1] * 3;
+        this.tableSize = pow3[size];
+
+        // Maps a line's (mine, theirs) bits to its base-3 pattern, read in
+        // whichever direction gives the smaller number so mirrored lines share an entry.
+        this.patternIndex = new int[1 << (2 * size)];
+        for (int m = 0; m < (1 << size); m++) {
+            for (int t = 0; t < (1 << size); t++) {
+                if ((m & t) != 0) continue;
+                int forward = 0, backward = 0;
+                for (int j = 0; j < size; j++) {
+                    int state = (m >> j & 1) != 0 ? 1 : (t >> j & 1) != 0 ? 2 : 0;
+                    forward += state * pow3[j];
+                    backward += state * pow3[size - 1 - j];
+                }
+                patternIndex[m << size | t] = Math.min(forward, backward);
+            }
+        }
+
+        // Rows and columns at the same distance from the edge share a table, both diagonals share one.
+        int lineCount = 2 * size + 2;
+        int tables = (size + 1) / 2 + 1;
+        this.lineCells = new int[lineCount][size];
+        this.lineTable = new int[lineCount];
+        int k = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                lineCells[k][j] = i * size + j;
+                lineCells[k + 1][j] = j * size + i;
+            }
+            lineTable[k] = lineTable[k + 1] = Math.min(i, size - 1 - i);
+            k += 2;
+        }
+        for (int j = 0; j < size; j++) {
+            lineCells[k][j] = j * size + j;
+            lineCells[k + 1][j] = j * size + (size - 1 - j);
+        }
+        lineTable[k] = lineTable[k + 1] = tables - 1;
+        this.weights = new float[tables * tableSize];
+    }
+
+    /**
+     * Returns the network shipped for a board size, or null if there is none.
+     */
+    public static NTupleNetwork forSize(int size) {
+        return size >= 0 && size < SHIPPED.length ? SHIPPED[size] : null;
+    }
+
+    private static NTupleNetwork loadResource(int size) {
+        String path = "resources/ntuple-" + size + ".bin";
+        URL url = NTupleNetwork.class.getClassLoader().getResource(path);
+        if (url == null) return null;
+        try (InputStream in = url.openStream()) {
+            return read(in);
+        } catch (IOException e) {
+            System.err.println("Error loading evaluation weights " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Sets every weight so the network reproduces {@link LineEvaluator}
+     * (divided by the score scale), which gives training a sensible start.
+     */
+    public void initializeFromLineEvaluator() {
+        int tables = weights.length / tableSize;
+        for (int pattern = 0; pattern < tableSize; pattern++) {
+            int mine = 0, theirs = 0;
+            for (int p = pattern; p > 0; p /= 3) {
+                if (p % 3 == 1) mine++;
+                else if (p % 3 == 2) theirs++;
+            }
+            int score = theirs == 0 ? mine * mine : mine == 0 ? -theirs * theirs : 0;
+            for (int t = 0; t < tables; t++) {
+                weights[t * tableSize + pattern] = (float) score / SCORE_SCALE;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int lineCount() {
+        return lineCells.length;
+    }
+
+    @Override
+    public int clearAdvantage() {
+        return SCORE_SCALE / 2;
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        float value = value(board);
+        if (value > 1f) value = 1f;
+        else if (value < -1f) value = -1f;
+        return Math.round(value * SCORE_SCALE);
+    }
+
+    /**
+     * Raw network output for the side to move.
+     */
+    public float value(Board board) {
+        long mine = board.sideToMove() == Board.X ? board.xBits() : board.oBits();
+        long theirs = board.sideToMove() == Board.X ? board.oBits() : board.xBits();
+        float sum = 0;
+        for (int line = 0; line < lineCells.length; line++) {
+            sum += weights[entry(line, mine, theirs)];
+        }
+        return sum;
+    }
+
+    /**
+     * Moves the value of a position towards {@code target} by adding
+     * {@code rate * error} spread evenly over the position's weights.
+     * Concurrent callers may lose an occasional update, which training tolerates.
+     */
+    public void update(Board board, float target, float rate) {
+        long mine = board.sideToMove() == Board.X ? board.xBits() : board.oBits();
+        long theirs = board.sideToMove() == Board.X ? board.oBits() : board.xBits();
+        float delta = rate * (target - value(board)) / lineCells.length;
+        for (int line = 0; line < lineCells.length; line++) {
+            weights[entry(line, mine, theirs)] += delta;
+        }
+    }
+
+    /**
+     * Index of the weight for one line: gathers the line's cells into small
+     * bitmasks and looks their pattern up.
+     */
+    private int entry(int line, long mine, long theirs) {
+        int[] cells = lineCells[line];
+        int m = 0, t = 0;
+        for (int j = 0; j < size; j++) {
+            m |= (int) (mine >>> cells[j] & 1) << j;
+            t |= (int) (theirs >>> cells[j] & 1) << j;
+        }
+        return lineTable[line] * tableSize + patternIndex[m << size | t];
+    }
+
+    /**
+     * Writes the weights in the binary format read by {@link #read}: magic,
+     * version, board size, weight count, then the weights as 32-bit floats.
+     */
+    public void save(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(size);
+            out.writeInt(weights.length);
+            for (float w : weights) out.writeFloat(w);
+        }
+        Files.move(tmp, file, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static NTupleNetwork read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not an n-tuple weight file");
+        }
+        NTupleNetwork network = new NTupleNetwork(in.readInt());
+        int count = in.readInt();
+        if (count != network.weights.length) {
+            throw new IOException("Weight count " + count + " does not match a " + network.size + "x" + network.size + " network");
+        }
+        for (int i = 0; i < count; i++) network.weights[i] = in.readFloat();
+        return network;
+    }
+}
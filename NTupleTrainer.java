@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trains an {@link NTupleNetwork} by temporal-difference learning, TD(0), from
+ * headless self-play. Every thread plays its own games against itself and
+ * updates the shared weights without locking; the occasional lost update is
+ * harmless and keeps the threads from waiting on each other.
+ *
+ * Moves are chosen greedily on the network's one-ply lookahead, with a small
+ * chance of a random move so the network sees positions off the main line.
+ * Each position's value is moved towards the value of the best move from it.
+ *
+ * Usage: {@code java NTupleTrainer <size> [games] [threads] [output]}, e.g.
+ * {@code java NTupleTrainer 6 200000} writes {@code resources/ntuple-6.bin}.
+ */
+public class NTupleTrainer {
+    private static final float LEARNING_RATE = 0.02f;
+    private static final double MAX_EXPLORATION = 0.5;
+
+    private final NTupleNetwork network;
+    private final AtomicLong gamesPlayed = new AtomicLong();
+
+    public NTupleTrainer(NTupleNetwork network) {
+        this.network = network;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: java NTupleTrainer <size> [games] [threads] [output]");
+            System.exit(1);
+        }
+        int size = Integer.parseInt(args[0]);
+        long games = args.length > 1 ? Long.parseLong(args[1]) : 100_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Path output = Paths.get(args.length > 3 ? args[3] : "resources/ntuple-" + size + ".bin");
+
+        NTupleNetwork network = new NTupleNetwork(size);
+        network.initializeFromLineEvaluator();
+        NTupleTrainer trainer = new NTupleTrainer(network);
+        long start = System.nanoTime();
+        trainer.train(games, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        trainer.network.save(output);
+        System.out.printf("Trained %dx%d on %d games with %d threads in %.1f s (%.0f games/s), saved to %s%n",
+                size, size, games, threads, seconds, games / seconds, output);
+    }
+
+    public NTupleNetwork network() {
+        return network;
+    }
+
+    public void train(long games, int threads) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long seed = 31L * t + 17;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                Board board = new Board(network.size());
+                long game;
+                while ((game = gamesPlayed.getAndIncrement()) < games) {
+                    playGame(board, random);
+                    if (game > 0 && game % 50_000 == 0) System.err.println("... " + game + " games");
+                }
+            }, "ntuple-trainer-" + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    /**
+     * Plays one self-play game, updating the network after every move. The
+     * board is reused between games to keep the training loop allocation-free.
+     */
+    private void playGame(Board board, Random random) {
+        board.clear();
+        // Each side explores at its own rate, so the network also learns to punish weak play
+        double[] exploration = {0, random.nextDouble() * MAX_EXPLORATION, random.nextDouble() * MAX_EXPLORATION};
+        while (true) {
+            int mover = board.sideToMove();
+            long empty = board.emptyMask();
+            int bestMove = -1;
+            float bestValue = Float.NEGATIVE_INFINITY;
+            for (long m = empty; m != 0; m &= m - 1) {
+                int cell = Long.numberOfTrailingZeros(m);
+                board.play(cell);
+                float value;
+                if (board.hasWon(mover)) value = 1f;
+                else if (board.isFull()) value = 0f;
+                else value = -network.value(board);
+                board.undo(cell);
+                if (value > bestValue) {
+                    bestValue = value;
+                    bestMove = cell;
+                }
+            }
+            network.update(board, Math.max(-1f, Math.min(1f, bestValue)), LEARNING_RATE);
+
+            int move = bestMove;
+            if (random.nextDouble() < exploration[mover]) {
+                move = nthSetBit(empty, random.nextInt(Long.bitCount(empty)));
+            }
+            board.play(move);
+            if (board.hasWon(mover) || board.isFull()) return;
+        }
+    }
+
+    private static int nthSetBit(long bits, int n) {
+        for (int i = 0; i < n; i++) bits &= bits - 1;
+        return Long.numberOfTrailingZeros(bits);
+    }
+}
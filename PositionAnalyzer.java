@@ -0,0 +1,74 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Evaluates every legal move of a position in parallel, one task per empty
+ * cell on a work-stealing pool. Each task deepens its search one ply at a
+ * time and reports every finished depth, so a heatmap can sharpen while
+ * deeper results are still being computed.
+ */
+public class PositionAnalyzer {
+    /**
+     * Receives results from pool threads; implementations hop to the EDT themselves.
+     */
+    public interface Listener {
+        /**
+         * @param cell  the analysed move
+         * @param depth plies searched, the move itself included
+         * @param score score for the side that plays the move
+         * @param exact true once the search reached the end of the game
+         */
+        void cellEvaluated(int cell, int depth, int score, boolean exact);
+    }
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+
+    private final List<Search> running = new ArrayList<>();
+    private final List<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+    /**
+     * Starts analysing {@code board}, cancelling any analysis still running.
+     * @param maxDepth deepest search per cell; capped at the number of empty cells
+     */
+    public synchronized void analyze(Board board, int maxDepth, Listener listener) {
+        cancel();
+        if (board.isGameOver()) return;
+
+        long empty = board.emptyMask();
+        int emptyCount = Long.bitCount(empty);
+        int depthLimit = Math.min(maxDepth, emptyCount);
+        while (empty != 0) {
+            int cell = Long.numberOfTrailingZeros(empty);
+            empty &= empty - 1;
+            Search search = new Search();
+            Board position = board.copy();
+            running.add(search);
+            tasks.add(POOL.submit(() -> {
+                for (int depth = 1; depth <= depthLimit; depth++) {
+                    int score = search.scoreMove(position, cell, depth);
+                    if (search.wasAborted()) return;
+                    boolean exact = depth == emptyCount || Math.abs(score) > Search.WIN_THRESHOLD;
+                    listener.cellEvaluated(cell, depth, score, exact);
+                    if (exact) return;
+                }
+            }));
+        }
+    }
+
+    /**
+     * Stops all running cell searches; no further results are reported for them.
+     */
+    public synchronized void cancel() {
+        for (Search search : running) {
+            search.stop();
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.cancel(false);
+        }
+        running.clear();
+        tasks.clear();
+    }
+}
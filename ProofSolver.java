@@ -0,0 +1,761 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Exact solver for the bigger boards, where {@link Search} can only look a
+ * few moves ahead. Depth-first proof-number search (df-pn, with the 1+epsilon
+ * threshold trick) first tries to prove that the side to move can force a
+ * win and, failing that, that the opponent can; if neither can, the position
+ * is a draw.
+ *
+ * The tree is cut down in three ways:
+ * <ul>
+ *   <li>Threats: a side with a line one stone short wins if it is its turn,
+ *       two such cells for the side not to move win too, and a single one
+ *       leaves the other side exactly one move, the block.</li>
+ *   <li>Dead positions: once every line of the side trying to win holds an
+ *       opponent stone, it cannot win and the position is disproved.</li>
+ *   <li>Symmetry: positions are stored under the smallest of their eight
+ *       rotations and reflections, so symmetric lines of play share entries.</li>
+ * </ul>
+ *
+ * The transposition table has a fixed number of 4-way buckets and keeps the
+ * entries that took the most work when a bucket is full. A long solve can
+ * write it to a checkpoint file every so often; a later solve of the same
+ * position picks up from there. Tic-tac-toe never repeats a position, so
+ * df-pn needs no cycle handling here.
+ *
+ * Usage: {@code java ProofSolver --size N [--moves c1,c2,...] [--tt-mb N]
+ * [--seconds N] [--checkpoint file] [--every N]}; {@code java ProofSolver
+ * --check} solves a few positions with known answers instead.
+ */
+public class ProofSolver {
+    public static final int LOSS = -1;
+    public static final int DRAW = 0;
+    public static final int WIN = 1;
+    /** The solve was stopped or ran out of budget. */
+    public static final int UNKNOWN = 2;
+
+    private static final int INF = 1 << 29;
+    private static final double EPSILON = 0.25;
+    private static final int WAYS = 4;
+    // 8 + 8 bytes of key, 4 + 4 bytes of proof and disproof number, 4 bytes of work
+    private static final int BYTES_PER_ENTRY = 28;
+    private static final int CHECKPOINT_MAGIC = 0x54545050; // "TTPP"
+    private static final int CHECKPOINT_VERSION = 1;
+    private static final int CHECK_INTERVAL = 1 << 14;
+
+    /** Outcome of {@link #solve}, from the point of view of the side to move. */
+    public static final class Result {
+        public final int value;
+        /** A move that achieves the value, -1 if there is none or the value is unknown. */
+        public final int move;
+        public final long nodes;
+        public final long nanos;
+        /**
+         * Positions in the proof of the value (a disproof for a draw), counting
+         * transpositions once; -1 if the budget ran out while counting.
+         */
+        public final long proofSize;
+
+        Result(int value, int move, long nodes, long nanos, long proofSize) {
+            this.value = value;
+            this.move = move;
+            this.nodes = nodes;
+            this.nanos = nanos;
+            this.proofSize = proofSize;
+        }
+
+        public double nodesPerSecond() {
+            return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            String name = value == WIN ? "win" : value == LOSS ? "loss" : value == DRAW ? "draw" : "unknown";
+            return String.format("%s%s, %d nodes in %.2f s (%.0f nodes/s), %s",
+                    name, move < 0 ? "" : " with " + move, nodes, nanos / 1e9, nodesPerSecond(),
+                    proofSize < 0 ? "proof tree not counted" : "proof tree " + proofSize + " positions");
+        }
+    }
+
+    private final int size;
+    private final int cells;
+    private final long[] lines;
+    /** SYMMETRY[t][row][bits of that row]: where the row's stones land under transform t. */
+    private final long[][][] symmetry;
+
+    private final long[] keyX, keyO;
+    private final int[] proof, disproof, work;
+    private final int bucketMask;
+
+    // Scratch per ply, so a search allocates nothing
+    private final int[][] childCell;
+    private final long[][] childKeyX, childKeyO;
+    private final int[][] childProof, childDisproof;
+
+    private int attacker;
+    private long nodes;
+    private volatile boolean stopped;
+    private BooleanSupplier cancelled;
+    private long deadline = Long.MAX_VALUE;
+    private Path checkpoint;
+    private long checkpointNanos = Long.MAX_VALUE;
+    private long nextCheckpoint = Long.MAX_VALUE;
+    private long rootX, rootO;
+    private int phase;
+    private long previousNodes;
+
+    /**
+     * @param size    board size, 3 to 6
+     * @param maxBytes memory for the transposition table
+     */
+    public ProofSolver(int size, long maxBytes) {
+        this.size = size;
+        this.cells = size * size;
+        this.lines = Board.winningLines(size);
+        this.symmetry = buildSymmetry(size);
+        int buckets = Integer.highestOneBit((int) Math.max(1, Math.min(1 << 26, maxBytes / BYTES_PER_ENTRY / WAYS)));
+        int entries = buckets * WAYS;
+        this.bucketMask = buckets - 1;
+        keyX = new long[entries];
+        keyO = new long[entries];
+        proof = new int[entries];
+        disproof = new int[entries];
+        work = new int[entries];
+        childCell = new int[cells + 1][cells];
+        childKeyX = new long[cells + 1][cells];
+        childKeyO = new long[cells + 1][cells];
+        childProof = new int[cells + 1][cells];
+        childDisproof = new int[cells + 1][cells];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Entries the transposition table can hold. */
+    public int capacity() {
+        return proof.length;
+    }
+
+    /**
+     * Writes the table to {@code file} every {@code interval} while solving
+     * and resumes from it when it holds a solve of the same position.
+     * @param file null to turn checkpointing off
+     */
+    public void setCheckpoint(Path file, long interval, TimeUnit unit) {
+        this.checkpoint = file;
+        this.checkpointNanos = file == null ? Long.MAX_VALUE : unit.toNanos(interval);
+    }
+
+    /**
+     * Makes a running {@link #solve} return {@link #UNKNOWN} soon. Safe from
+     * any thread, but a stop that arrives just before a solve starts is
+     * lost; pass a cancel check to {@link #solve(Board, long, BooleanSupplier)}
+     * when that matters.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Finds the game-theoretic value of {@code board}.
+     * @param budgetNanos give up after this long, {@code Long.MAX_VALUE} for no limit
+     */
+    public Result solve(Board board, long budgetNanos) {
+        return solve(board, budgetNanos, null);
+    }
+
+    /**
+     * Like {@link #solve(Board, long)}, but also gives up once
+     * {@code cancelled} returns true. It is asked before starting and then
+     * every few thousand nodes, on the solving thread.
+     * @param cancelled null for none
+     */
+    public Result solve(Board board, long budgetNanos, BooleanSupplier cancelled) {
+        if (board.size() != size) throw new IllegalArgumentException("Solver is for " + size + "x" + size + " boards");
+        long start = System.nanoTime();
+        this.cancelled = cancelled;
+        stopped = cancelled != null && cancelled.getAsBoolean();
+        if (stopped) return new Result(UNKNOWN, -1, 0, 0, -1);
+        deadline = budgetNanos == Long.MAX_VALUE ? Long.MAX_VALUE : start + budgetNanos;
+        nodes = 0;
+        previousNodes = 0;
+        rootX = board.xBits();
+        rootO = board.oBits();
+        int mover = board.sideToMove();
+        int opponent = mover == Board.X ? Board.O : Board.X;
+        int winner = board.winner();
+        if (winner != 0) return new Result(winner == mover ? WIN : LOSS, -1, 0, 0, 1);
+        if (board.isFull()) return new Result(DRAW, -1, 0, 0, 1);
+
+        int startPhase = 1;
+        if (checkpoint != null && Files.exists(checkpoint)) {
+            startPhase = resume();
+        }
+        nextCheckpoint = checkpointNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + checkpointNanos;
+
+        if (startPhase == 1) {
+            phase = 1;
+            if (proveRoot(mover)) {
+                int move = winningMove();
+                long proofSize = treeSize(true);
+                deleteCheckpoint();
+                return new Result(WIN, move, nodes + previousNodes, System.nanoTime() - start, stopped ? -1 : proofSize);
+            }
+            if (stopped) return new Result(UNKNOWN, -1, nodes + previousNodes, System.nanoTime() - start, -1);
+        }
+        phase = 2;
+        boolean opponentWins = proveRoot(opponent);
+        if (stopped) return new Result(UNKNOWN, -1, nodes + previousNodes, System.nanoTime() - start, -1);
+        int move = opponentWins ? -1 : drawingMove();
+        // Counting may have to re-prove evicted positions; the budget still applies
+        long proofSize = treeSize(opponentWins);
+        deleteCheckpoint();
+        return new Result(opponentWins ? LOSS : DRAW, move, nodes + previousNodes, System.nanoTime() - start, stopped ? -1 : proofSize);
+    }
+
+    // ---- df-pn ----
+
+    /** @return true if {@code attacker} wins from the root, false if not or if stopped */
+    private boolean proveRoot(int side) {
+        attacker = side;
+        int status = classify(rootX, rootO);
+        if (status == PROVEN) return true;
+        if (status == DISPROVEN) return false;
+        long kx = canonicalX(rootX, rootO), ko = lastCanonicalO;
+        while (!stopped) {
+            mid(rootX, rootO, 0, INF, INF, kx, ko);
+            int e = find(kx, ko);
+            if (e >= 0 && (proof[e] == 0 || disproof[e] == 0)) return proof[e] == 0;
+        }
+        return false;
+    }
+
+    /**
+     * Searches below one position until its proof number reaches
+     * {@code thresholdProof} or its disproof number {@code thresholdDisproof},
+     * then stores both.
+     */
+    private void mid(long x, long o, int ply, int thresholdProof, int thresholdDisproof, long kx, long ko) {
+        nodes++;
+        if ((nodes & (CHECK_INTERVAL - 1)) == 0) housekeeping();
+        long startNodes = nodes;
+        boolean orNode = sideToMove(x, o) == attacker;
+        int n = expand(x, o, ply);
+        int[] cell = childCell[ply];
+        long[] cx = childKeyX[ply], co = childKeyO[ply];
+        int[] cp = childProof[ply], cd = childDisproof[ply];
+        boolean xMoves = sideToMove(x, o) == Board.X;
+
+        int pn, dn;
+        while (true) {
+            int best = -1, bestValue = INF + 1, second = INF, sum = 0;
+            for (int i = 0; i < n; i++) {
+                int p = cp[i], d = cd[i];
+                int selector = orNode ? p : d;
+                sum = add(sum, orNode ? d : p);
+                if (selector < bestValue) {
+                    second = bestValue;
+                    bestValue = selector;
+                    best = i;
+                } else if (selector < second) {
+                    second = selector;
+                }
+            }
+            second = Math.min(second, INF);
+            if (orNode) {
+                pn = bestValue;
+                dn = sum;
+            } else {
+                pn = sum;
+                dn = bestValue;
+            }
+            if (pn >= thresholdProof || dn >= thresholdDisproof || stopped) break;
+
+            int childThresholdProof, childThresholdDisproof;
+            int nextBest = second >= INF ? INF : Math.max(second + 1, (int) Math.ceil(second * (1 + EPSILON)));
+            if (orNode) {
+                childThresholdProof = Math.min(thresholdProof, nextBest);
+                childThresholdDisproof = capped((long) thresholdDisproof - dn + cd[best]);
+            } else {
+                childThresholdDisproof = Math.min(thresholdDisproof, nextBest);
+                childThresholdProof = capped((long) thresholdProof - pn + cp[best]);
+            }
+            long bit = 1L << cell[best];
+            long nx = xMoves ? x | bit : x, no = xMoves ? o : o | bit;
+            mid(nx, no, ply + 1, childThresholdProof, childThresholdDisproof, cx[best], co[best]);
+            // Only this child is re-read; a sibling settled meanwhile through a transposition is found when next visited
+            int e = find(cx[best], co[best]);
+            if (e >= 0) {
+                cp[best] = proof[e];
+                cd[best] = disproof[e];
+            }
+        }
+        store(kx, ko, pn, dn, nodes - startNodes);
+    }
+
+    /**
+     * Sums proof numbers. Only a settled child contributes INF; large
+     * unsettled sums stop just below it, so 0 always marks a settled node.
+     */
+    private static int add(int sum, int value) {
+        if (sum >= INF || value >= INF) return INF;
+        return (int) Math.min(INF - 1, (long) sum + value);
+    }
+
+    private static int capped(long value) {
+        return (int) Math.min(INF, Math.max(0, value));
+    }
+
+    /**
+     * Lists the moves worth trying from a non-terminal position into the
+     * ply's scratch arrays with their starting proof numbers.
+     * @return the number of moves
+     */
+    private int expand(long x, long o, int ply) {
+        boolean xMoves = sideToMove(x, o) == Board.X;
+        long candidates = forcedMask(x, o);
+        int n = 0;
+        for (long m = candidates; m != 0; m &= m - 1) {
+            int c = Long.numberOfTrailingZeros(m);
+            long bit = 1L << c;
+            long nx = xMoves ? x | bit : x, no = xMoves ? o : o | bit;
+            childCell[ply][n] = c;
+            int status = classify(nx, no);
+            if (status == PROVEN || status == DISPROVEN) {
+                childProof[ply][n] = status == PROVEN ? 0 : INF;
+                childDisproof[ply][n] = status == PROVEN ? INF : 0;
+                childKeyX[ply][n] = -1;
+                childKeyO[ply][n] = -1;
+            } else {
+                // Mobility: a node with many moves is hard to prove if it is the attacker's, hard to disprove if not
+                boolean attackerNext = sideToMove(nx, no) == attacker;
+                childProof[ply][n] = attackerNext ? 1 : status;
+                childDisproof[ply][n] = attackerNext ? status : 1;
+                long kx = canonicalX(nx, no), ko = lastCanonicalO;
+                childKeyX[ply][n] = kx;
+                childKeyO[ply][n] = ko;
+                int e = find(kx, ko);
+                if (e >= 0) {
+                    childProof[ply][n] = proof[e];
+                    childDisproof[ply][n] = disproof[e];
+                }
+            }
+            n++;
+        }
+        return n;
+    }
+
+    private static final int PROVEN = -1;
+    private static final int DISPROVEN = -2;
+
+    /**
+     * Settles a position by the rules in the class comment if it can.
+     * @return {@link #PROVEN}, {@link #DISPROVEN} or the number of moves to consider
+     */
+    private int classify(long x, long o) {
+        int mover = sideToMove(x, o);
+        long att = attacker == Board.X ? x : o;
+        long def = attacker == Board.X ? o : x;
+        long empty = ~(x | o) & fullMask();
+        long attThreats = 0, defThreats = 0;
+        boolean attLive = false;
+        for (long line : lines) {
+            long a = line & att, d = line & def;
+            if (d == 0) {
+                if (a == line) return PROVEN;
+                attLive = true;
+                if (Long.bitCount(a) == size - 1) attThreats |= line & empty;
+            } else if (a == 0) {
+                if (d == line) return DISPROVEN;
+                if (Long.bitCount(d) == size - 1) defThreats |= line & empty;
+            }
+        }
+        if (empty == 0 || !attLive) return DISPROVEN;
+        if (mover == attacker) {
+            if (attThreats != 0) return PROVEN;
+            int blocks = Long.bitCount(defThreats);
+            if (blocks >= 2) return DISPROVEN;
+            return blocks == 1 ? 1 : Long.bitCount(empty);
+        } else {
+            if (defThreats != 0) return DISPROVEN;
+            int blocks = Long.bitCount(attThreats);
+            if (blocks >= 2) return PROVEN;
+            return blocks == 1 ? 1 : Long.bitCount(empty);
+        }
+    }
+
+    /**
+     * The moves {@link #classify} allows: a cell that completes a line of the
+     * side to move, otherwise the single block when there is one, otherwise
+     * every empty cell.
+     */
+    private long forcedMask(long x, long o) {
+        boolean xMoves = sideToMove(x, o) == Board.X;
+        long toMove = xMoves ? x : o;
+        long other = xMoves ? o : x;
+        long empty = ~(x | o) & fullMask();
+        long block = 0;
+        for (long line : lines) {
+            long own = line & toMove, theirs = line & other;
+            if (theirs == 0 && Long.bitCount(own) == size - 1) return line & empty;
+            if (block == 0 && own == 0 && Long.bitCount(theirs) == size - 1) block = line & empty;
+        }
+        return block != 0 ? block : empty;
+    }
+
+    private long fullMask() {
+        return cells == 64 ? -1L : (1L << cells) - 1;
+    }
+
+    private static int sideToMove(long x, long o) {
+        return ((Long.bitCount(x) + Long.bitCount(o)) & 1) == 0 ? Board.X : Board.O;
+    }
+
+    private void housekeeping() {
+        long now = System.nanoTime();
+        if (now >= deadline || (cancelled != null && cancelled.getAsBoolean())) stopped = true;
+        if (now >= nextCheckpoint && !stopped) {
+            writeCheckpoint();
+            nextCheckpoint = System.nanoTime() + checkpointNanos;
+        }
+    }
+
+    // ---- results ----
+
+    /** The root move whose position is proved, for a won root. */
+    private int winningMove() {
+        attacker = sideToMove(rootX, rootO);
+        return pickMove(true);
+    }
+
+    /** A root move after which the opponent's win is disproved. */
+    private int drawingMove() {
+        return pickMove(false);
+    }
+
+    private int pickMove(boolean proved) {
+        boolean xMoves = sideToMove(rootX, rootO) == Board.X;
+        for (long m = forcedMask(rootX, rootO); m != 0; m &= m - 1) {
+            int c = Long.numberOfTrailingZeros(m);
+            long bit = 1L << c;
+            long nx = xMoves ? rootX | bit : rootX, no = xMoves ? rootO : rootO | bit;
+            if (settled(nx, no) == (proved ? PROVEN : DISPROVEN)) return c;
+        }
+        return -1;
+    }
+
+    /**
+     * Whether a position is proved or disproved for the current attacker,
+     * searching it again if its entry was evicted.
+     */
+    private int settled(long x, long o) {
+        int status = classify(x, o);
+        if (status == PROVEN || status == DISPROVEN) return status;
+        long kx = canonicalX(x, o), ko = lastCanonicalO;
+        int e = find(kx, ko);
+        while (e < 0 || (proof[e] != 0 && disproof[e] != 0)) {
+            if (stopped) return 0;
+            mid(x, o, Long.bitCount(x | o) - Long.bitCount(rootX | rootO), INF, INF, kx, ko);
+            e = find(kx, ko);
+        }
+        return proof[e] == 0 ? PROVEN : DISPROVEN;
+    }
+
+    /**
+     * Counts the positions of the proof (or disproof) tree under the root:
+     * one move where the side in control chooses, every move where it must
+     * answer them all.
+     */
+    private long treeSize(boolean proved) {
+        Set<Long> seen = new HashSet<>();
+        return treeSize(rootX, rootO, proved, seen);
+    }
+
+    private long treeSize(long x, long o, boolean proved, Set<Long> seen) {
+        int status = classify(x, o);
+        if (status == PROVEN || status == DISPROVEN) return 1;
+        long kx = canonicalX(x, o), ko = lastCanonicalO;
+        if (!seen.add(kx * 0x9E3779B97F4A7C15L ^ ko)) return 0;
+        boolean xMoves = sideToMove(x, o) == Board.X;
+        // Proving, the attacker picks one move; disproving, the defender does
+        boolean chooses = (sideToMove(x, o) == attacker) == proved;
+        int want = proved ? PROVEN : DISPROVEN;
+        long total = 1;
+        for (long m = forcedMask(x, o); m != 0; m &= m - 1) {
+            long bit = 1L << Long.numberOfTrailingZeros(m);
+            long nx = xMoves ? x | bit : x, no = xMoves ? o : o | bit;
+            if (chooses) {
+                if (settled(nx, no) == want) return total + treeSize(nx, no, proved, seen);
+            } else {
+                if (settled(nx, no) != want) return total; // stopped while re-proving
+                total += treeSize(nx, no, proved, seen);
+            }
+        }
+        return total;
+    }
+
+    // ---- symmetry ----
+
+    private long lastCanonicalO;
+
+    /**
+     * The X bits of the smallest of the position's eight symmetric images,
+     * tagged with the attacker; its O bits are left in {@link #lastCanonicalO}.
+     */
+    private long canonicalX(long x, long o) {
+        long bestX = x, bestO = o;
+        for (int t = 1; t < 8; t++) {
+            long tx = transform(t, x);
+            if (Long.compareUnsigned(tx, bestX) > 0) continue;
+            long to = transform(t, o);
+            if (tx != bestX || Long.compareUnsigned(to, bestO) < 0) {
+                bestX = tx;
+                bestO = to;
+            }
+        }
+        lastCanonicalO = bestO;
+        // Entries only hold for one attacker; the top bit is never a cell
+        return attacker == Board.O ? bestX | Long.MIN_VALUE : bestX;
+    }
+
+    private long transform(int t, long bits) {
+        long[][] table = symmetry[t];
+        long result = 0;
+        long rowMask = (1L << size) - 1;
+        for (int row = 0; row < size; row++) {
+            result |= table[row][(int) (bits >>> (row * size) & rowMask)];
+        }
+        return result;
+    }
+
+    private static long[][][] buildSymmetry(int n) {
+        long[][][] table = new long[8][n][1 << n];
+        for (int t = 0; t < 8; t++) {
+            for (int row = 0; row < n; row++) {
+                for (int bits = 0; bits < 1 << n; bits++) {
+                    long image = 0;
+                    for (int col = 0; col < n; col++) {
+                        if ((bits >>> col & 1) == 0) continue;
+                        int r = row, c = col;
+                        // Bit 0 mirrors the columns, bit 1 the rows, bit 2 transposes: the square's eight symmetries
+                        if ((t & 1) != 0) c = n - 1 - c;
+                        if ((t & 2) != 0) r = n - 1 - r;
+                        if ((t & 4) != 0) {
+                            int swap = r;
+                            r = c;
+                            c = swap;
+                        }
+                        image |= 1L << (r * n + c);
+                    }
+                    table[t][row][bits] = image;
+                }
+            }
+        }
+        return table;
+    }
+
+    // ---- transposition table ----
+
+    private int bucket(long kx, long ko) {
+        long h = kx * 0x9E3779B97F4A7C15L + ko * 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 29;
+        return (int) (h & bucketMask) * WAYS;
+    }
+
+    private int find(long kx, long ko) {
+        int base = bucket(kx, ko);
+        for (int i = base; i < base + WAYS; i++) {
+            if (keyX[i] == kx && keyO[i] == ko && (proof[i] | disproof[i]) != 0) return i;
+        }
+        return -1;
+    }
+
+    private void store(long kx, long ko, int pn, int dn, long effort) {
+        int base = bucket(kx, ko);
+        int victim = base;
+        for (int i = base; i < base + WAYS; i++) {
+            if ((keyX[i] == kx && keyO[i] == ko) || (proof[i] | disproof[i]) == 0) {
+                victim = i;
+                break;
+            }
+            if (work[i] < work[victim]) victim = i;
+        }
+        keyX[victim] = kx;
+        keyO[victim] = ko;
+        proof[victim] = pn;
+        disproof[victim] = dn;
+        work[victim] = (int) Math.min(Integer.MAX_VALUE, effort);
+    }
+
+    private void clearTable() {
+        Arrays.fill(proof, 0);
+        Arrays.fill(disproof, 0);
+        Arrays.fill(work, 0);
+    }
+
+    /** Entries in use, for reports. */
+    public int used() {
+        int used = 0;
+        for (int i = 0; i < proof.length; i++) if ((proof[i] | disproof[i]) != 0) used++;
+        return used;
+    }
+
+    // ---- checkpoints ----
+
+    private void writeCheckpoint() {
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeInt(size);
+            out.writeLong(rootX);
+            out.writeLong(rootO);
+            out.writeInt(phase);
+            out.writeLong(nodes + previousNodes);
+            out.writeInt(used());
+            for (int i = 0; i < proof.length; i++) {
+                if ((proof[i] | disproof[i]) == 0) continue;
+                out.writeLong(keyX[i]);
+                out.writeLong(keyO[i]);
+                out.writeInt(proof[i]);
+                out.writeInt(disproof[i]);
+                out.writeInt(work[i]);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write solver checkpoint: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to write solver checkpoint: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the checkpoint if it is for this position.
+     * @return the phase to start in: 1 to prove a win, 2 to prove a loss
+     */
+    private int resume() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint), 1 << 16))) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+                System.err.println("Ignoring " + checkpoint + ": not a solver checkpoint");
+                return 1;
+            }
+            if (in.readInt() != size || in.readLong() != rootX || in.readLong() != rootO) {
+                System.err.println("Ignoring " + checkpoint + ": it is for another position");
+                return 1;
+            }
+            int savedPhase = in.readInt();
+            previousNodes = in.readLong();
+            int count = in.readInt();
+            clearTable();
+            for (int k = 0; k < count; k++) {
+                long kx = in.readLong(), ko = in.readLong();
+                int pn = in.readInt(), dn = in.readInt(), effort = in.readInt();
+                store(kx, ko, pn, dn, effort);
+            }
+            return savedPhase;
+        } catch (IOException e) {
+            System.err.println("Ignoring " + checkpoint + ": " + e.getMessage());
+            clearTable();
+            previousNodes = 0;
+            return 1;
+        }
+    }
+
+    private void deleteCheckpoint() {
+        if (checkpoint == null) return;
+        try {
+            Files.deleteIfExists(checkpoint);
+        } catch (IOException e) {
+            System.err.println("Failed to delete " + checkpoint + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Positions where the side to move wins at once although the other side
+     * threatens to as well, as size, moves and the winning cell.
+     */
+    private static final int[][] CHECKS = {
+            {4, 0, 4, 1, 5, 2, 6, 3},
+            {5, 0, 5, 1, 6, 2, 7, 3, 8, 4},
+    };
+
+    /** Solves {@link #CHECKS} and exits with 1 if any answer is wrong. */
+    private static void check() {
+        boolean failed = false;
+        for (int[] check : CHECKS) {
+            Board board = new Board(check[0]);
+            for (int i = 1; i < check.length - 1; i++) board.play(check[i]);
+            Result result = new ProofSolver(check[0], 16L * 1024 * 1024).solve(board, Long.MAX_VALUE);
+            int expected = check[check.length - 1];
+            boolean ok = result.value == WIN && result.move == expected && result.proofSize > 0;
+            System.out.printf("%s %s: %s%n", ok ? "ok  " : "FAIL", board, result);
+            if (!ok) {
+                System.err.println("Expected a win at " + expected);
+                failed = true;
+            }
+        }
+        if (failed) System.exit(1);
+    }
+
+    public static void main(String[] args) {
+        int size = 5;
+        String moves = "";
+        long megabytes = 256;
+        long seconds = 0;
+        Path file = null;
+        long every = 60;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size": size = Integer.parseInt(args[++i]); break;
+                case "--moves": moves = args[++i]; break;
+                case "--tt-mb": megabytes = Long.parseLong(args[++i]); break;
+                case "--seconds": seconds = Long.parseLong(args[++i]); break;
+                case "--checkpoint": file = Paths.get(args[++i]); break;
+                case "--every": every = Long.parseLong(args[++i]); break;
+                case "--check": check(); return;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        Board board = new Board(size);
+        for (String move : moves.split(",")) {
+            if (move.isBlank()) continue;
+            int cell = Integer.parseInt(move.trim());
+            if (cell < 0 || cell >= board.cells() || !board.isEmpty(cell) || board.isGameOver()) {
+                System.err.println("Illegal move " + cell + " in " + board);
+                System.exit(1);
+            }
+            board.play(cell);
+        }
+        ProofSolver solver = new ProofSolver(size, megabytes * 1024 * 1024);
+        if (file != null) solver.setCheckpoint(file, every, TimeUnit.SECONDS);
+        System.out.printf("Solving %s (%s to move), table %d entries%n", board,
+                board.sideToMove() == Board.X ? "X" : "O", solver.capacity());
+        Result result = solver.solve(board, seconds <= 0 ? Long.MAX_VALUE : TimeUnit.SECONDS.toNanos(seconds));
+        System.out.println(result);
+        System.out.printf("table %d of %d entries in use%n", solver.used(), solver.capacity());
+        if (result.value == UNKNOWN && file != null) {
+            solver.writeCheckpoint();
+            System.out.println("Stopped; run again with the same options to continue from " + file);
+        }
+    }
+}
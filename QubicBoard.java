@@ -0,0 +1,165 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Qubic: tic-tac-toe on a 4x4x4 cube, four in a row to win. Cell
+ * {@code layer * 16 + row * 4 + col} maps to one bit, so the 64 cells fit
+ * exactly in one long per player, as {@link Board} does for the flat boards.
+ *
+ * There are 76 winning lines: 40 rows, columns and diagonals within the
+ * layers, 16 vertical pillars, 16 diagonals in the vertical planes and the 4
+ * space diagonals, generated as every straight run of four through the cube.
+ * Each cell also keeps the masks of the 4 or 7 lines through it, so checking
+ * whether a move won is a handful of ANDs.
+ */
+public class QubicBoard {
+    public static final int X = Board.X;
+    public static final int O = Board.O;
+    public static final int CELLS = 64;
+
+    /** The 76 winning lines as bitmasks. */
+    static final long[] LINES;
+    /** LINES_THROUGH[cell]: the masks of the lines that contain that cell. */
+    static final long[][] LINES_THROUGH = new long[CELLS][];
+
+    static {
+        List<Long> lines = new ArrayList<>();
+        // Every direction (dl, dr, dc) with the first non-zero component positive, from every start
+        for (int dl = -1; dl <= 1; dl++) {
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (dl < 0 || (dl == 0 && dr < 0) || (dl == 0 && dr == 0 && dc <= 0)) continue;
+                    for (int start = 0; start < CELLS; start++) {
+                        int l = start / 16, r = start / 4 % 4, c = start % 4;
+                        long mask = 0;
+                        int k = 0;
+                        for (; k < 4; k++) {
+                            int ll = l + k * dl, rr = r + k * dr, cc = c + k * dc;
+                            if (ll < 0 || ll > 3 || rr < 0 || rr > 3 || cc < 0 || cc > 3) break;
+                            mask |= 1L << (ll * 16 + rr * 4 + cc);
+                        }
+                        if (k == 4) lines.add(mask);
+                    }
+                }
+            }
+        }
+        LINES = new long[lines.size()];
+        for (int i = 0; i < LINES.length; i++) LINES[i] = lines.get(i);
+        for (int cell = 0; cell < CELLS; cell++) {
+            long bit = 1L << cell;
+            int n = 0;
+            for (long line : LINES) if ((line & bit) != 0) n++;
+            LINES_THROUGH[cell] = new long[n];
+            n = 0;
+            for (long line : LINES) if ((line & bit) != 0) LINES_THROUGH[cell][n++] = line;
+        }
+    }
+
+    private long xBits;
+    private long oBits;
+    private int moveCount;
+    private int winner;
+
+    public QubicBoard() {
+    }
+
+    public QubicBoard(long xBits, long oBits) {
+        this.xBits = xBits;
+        this.oBits = oBits;
+        this.moveCount = Long.bitCount(xBits) + Long.bitCount(oBits);
+        if (hasLine(xBits)) winner = X;
+        else if (hasLine(oBits)) winner = O;
+    }
+
+    public QubicBoard copy() {
+        return new QubicBoard(xBits, oBits);
+    }
+
+    public long xBits() {
+        return xBits;
+    }
+
+    public long oBits() {
+        return oBits;
+    }
+
+    public int moveCount() {
+        return moveCount;
+    }
+
+    public int sideToMove() {
+        return (moveCount & 1) == 0 ? X : O;
+    }
+
+    public long emptyMask() {
+        return ~(xBits | oBits);
+    }
+
+    public boolean isEmpty(int cell) {
+        return ((xBits | oBits) >>> cell & 1) == 0;
+    }
+
+    public int get(int cell) {
+        if ((xBits >>> cell & 1) != 0) return X;
+        if ((oBits >>> cell & 1) != 0) return O;
+        return 0;
+    }
+
+    /** X or O once a side has four in a line, otherwise 0. */
+    public int winner() {
+        return winner;
+    }
+
+    public boolean isGameOver() {
+        return winner != 0 || moveCount == CELLS;
+    }
+
+    /**
+     * Places the side to move on {@code cell} and checks the lines through it.
+     * The caller checks that the cell is empty.
+     */
+    public void play(int cell) {
+        long bit = 1L << cell;
+        long bits;
+        if ((moveCount & 1) == 0) bits = xBits |= bit;
+        else bits = oBits |= bit;
+        for (long line : LINES_THROUGH[cell]) {
+            if ((bits & line) == line) {
+                winner = (moveCount & 1) == 0 ? X : O;
+                break;
+            }
+        }
+        moveCount++;
+    }
+
+    /**
+     * Takes back the last move, which must have been played on {@code cell}.
+     */
+    public void undo(int cell) {
+        moveCount--;
+        long bit = ~(1L << cell);
+        if ((moveCount & 1) == 0) xBits &= bit;
+        else oBits &= bit;
+        winner = 0;
+    }
+
+    /** True if {@code bits} completes any of the 76 lines. */
+    public static boolean hasLine(long bits) {
+        for (long line : LINES) {
+            if ((bits & line) == line) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int cell = 0; cell < CELLS; cell++) {
+            int v = get(cell);
+            sb.append(v == X ? 'X' : v == O ? 'O' : '.');
+            if (cell % 16 == 15 && cell != CELLS - 1) sb.append(" | ");
+            else if (cell % 4 == 3 && cell % 16 != 15) sb.append('/');
+        }
+        return sb.toString();
+    }
+}
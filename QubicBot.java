@@ -0,0 +1,359 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded alpha-beta bot for {@link QubicBoard}. All threads search
+ * the same position ("lazy SMP") and share a lock-free transposition table,
+ * so whatever one thread proves the others pick up. Helpers start a ply
+ * deeper on odd threads and shuffle their move order so they do not simply
+ * repeat the main thread's work; the main thread's result is played.
+ *
+ * Every node first looks for forcing moves: a three-in-a-line with the last
+ * cell empty is an immediate win for the side to move, an opponent's single
+ * such threat must be blocked (searched without using up depth) and two of
+ * them are lost. Quiet positions are scored by counting unblocked lines.
+ *
+ * {@code java QubicBot [threads] [seconds]} measures move and win-check
+ * speed and the search from a few opening positions.
+ */
+public class QubicBot {
+    public static final int WIN = 1_000_000;
+    public static final int WIN_THRESHOLD = WIN - 1000;
+
+    private static final int[] LINE_WEIGHT = {0, 1, 6, 40};
+    private static final int MAX_PLY = QubicBoard.CELLS + 1;
+    private static final int TABLE_BITS = 21;
+    private static final int EXACT = 0, LOWER = 1, UPPER = 2;
+
+    private static final ExecutorService HELPERS = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "qubic-helper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Cells ordered by how many lines run through them: corners and the inner cube first. */
+    private static final int[] CELL_ORDER = new int[QubicBoard.CELLS];
+
+    static {
+        Integer[] cells = new Integer[QubicBoard.CELLS];
+        for (int i = 0; i < cells.length; i++) cells[i] = i;
+        Arrays.sort(cells, (a, b) -> QubicBoard.LINES_THROUGH[b].length - QubicBoard.LINES_THROUGH[a].length);
+        for (int i = 0; i < cells.length; i++) CELL_ORDER[i] = cells[i];
+    }
+
+    // Shared between all threads; a torn entry fails the key check and reads as a miss
+    private final long[] tableKeys = new long[1 << TABLE_BITS];
+    private final long[] tableData = new long[1 << TABLE_BITS];
+
+    private final int threads;
+    private final Random random;
+    private final Worker[] workers;
+    private volatile boolean stop;
+    private long deadline;
+    private long lastNodes;
+    private int lastDepth;
+
+    public QubicBot(int threads, Random random) {
+        this.threads = Math.max(1, threads);
+        this.random = random;
+        this.workers = new Worker[this.threads];
+        for (int i = 0; i < workers.length; i++) workers[i] = new Worker(i);
+    }
+
+    public long lastNodes() {
+        return lastNodes;
+    }
+
+    public int lastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * Picks a move for the side to move within {@code timeBudgetNanos}.
+     * Not thread-safe; one search at a time per bot.
+     * @return the cell, or -1 if the game is over
+     */
+    public int chooseMove(QubicBoard board, long timeBudgetNanos) {
+        if (board.isGameOver()) return -1;
+        long start = System.nanoTime();
+        deadline = timeBudgetNanos >= Long.MAX_VALUE - start ? Long.MAX_VALUE : start + timeBudgetNanos;
+        stop = false;
+        List<Future<?>> helpers = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            Worker helper = workers[i];
+            long seed = random.nextLong();
+            helpers.add(HELPERS.submit(() -> helper.think(board, seed)));
+        }
+        Worker main = workers[0];
+        main.think(board, random.nextLong());
+        stop = true;
+        long nodes = main.nodes;
+        for (int i = 0; i < helpers.size(); i++) {
+            try {
+                helpers.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Qubic search thread failed", e.getCause());
+            }
+            nodes += workers[i + 1].nodes;
+        }
+        lastNodes = nodes;
+        lastDepth = main.completedDepth;
+        return main.bestMove;
+    }
+
+    static long hash(long x, long o) {
+        long h = x * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(o * 0xC2B2AE3D27D4EB4FL, 31);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        return h ^ h >>> 33;
+    }
+
+    /** One search thread: its own board, move lists and history, the bot's shared table. */
+    private final class Worker {
+        private final int id;
+        private final int[][] moves = new int[MAX_PLY][QubicBoard.CELLS];
+        private final int[] history = new int[QubicBoard.CELLS];
+        private QubicBoard board;
+        private long nodes;
+        private int bestMove;
+        private int completedDepth;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        void think(QubicBoard root, long seed) {
+            board = root.copy();
+            nodes = 0;
+            completedDepth = 0;
+            Arrays.fill(history, 0);
+            Random random = new Random(seed);
+            int[] list = moves[0];
+            int count = orderedMoves(list, -1, id == 0 ? null : random);
+            bestMove = list[0];
+            for (int depth = 1 + (id & 1); depth < MAX_PLY - board.moveCount(); depth++) {
+                int alpha = -WIN - 1;
+                int best = -1;
+                for (int i = 0; i < count; i++) {
+                    int move = list[i];
+                    board.play(move);
+                    int score = -search(depth - 1, -WIN - 1, -alpha, 1);
+                    board.undo(move);
+                    if (stop) break;
+                    if (score > alpha) {
+                        alpha = score;
+                        best = move;
+                        System.arraycopy(list, 0, list, 1, i);
+                        list[0] = move;
+                    }
+                }
+                if (best >= 0 && (!stop || id == 0)) bestMove = best;
+                if (stop) break;
+                completedDepth = depth;
+                if (Math.abs(alpha) > WIN_THRESHOLD) break;
+            }
+            if (id == 0) stop = true;
+        }
+
+        /**
+         * Fills {@code list} with the empty cells, the table move first and the
+         * rest by line count and history, or shuffled for a helper's root.
+         */
+        private int orderedMoves(int[] list, int first, Random shuffle) {
+            long empty = board.emptyMask();
+            int n = 0;
+            if (first >= 0 && (empty >>> first & 1) != 0) list[n++] = first;
+            int start = n;
+            for (int cell : CELL_ORDER) {
+                if ((empty >>> cell & 1) != 0 && cell != first) list[n++] = cell;
+            }
+            if (shuffle != null) {
+                for (int i = n - 1; i > start; i--) {
+                    int j = start + shuffle.nextInt(i - start + 1);
+                    int t = list[i];
+                    list[i] = list[j];
+                    list[j] = t;
+                }
+            } else {
+                // Stable insertion sort on history keeps the line-count order among ties
+                for (int i = start + 1; i < n; i++) {
+                    int move = list[i];
+                    int j = i - 1;
+                    while (j >= start && history[list[j]] < history[move]) {
+                        list[j + 1] = list[j];
+                        j--;
+                    }
+                    list[j + 1] = move;
+                }
+            }
+            return n;
+        }
+
+        private int search(int depth, int alpha, int beta, int ply) {
+            if ((++nodes & 1023) == 0 && System.nanoTime() > deadline) stop = true;
+            if (stop) return 0;
+            if (board.winner() != 0) return -WIN + ply;
+            if (board.moveCount() == QubicBoard.CELLS) return 0;
+
+            long own, opp;
+            if (board.sideToMove() == QubicBoard.X) {
+                own = board.xBits();
+                opp = board.oBits();
+            } else {
+                own = board.oBits();
+                opp = board.xBits();
+            }
+            // One pass over the lines: threats on both sides and the static score
+            long ownThreats = 0, oppThreats = 0;
+            int score = 0;
+            for (long line : QubicBoard.LINES) {
+                int mine = Long.bitCount(own & line), theirs = Long.bitCount(opp & line);
+                if (theirs == 0) {
+                    if (mine == 3) ownThreats |= line & ~own;
+                    score += LINE_WEIGHT[mine & 3];
+                } else if (mine == 0) {
+                    if (theirs == 3) oppThreats |= line & ~opp;
+                    score -= LINE_WEIGHT[theirs & 3];
+                }
+            }
+            if (ownThreats != 0) return WIN - ply - 1;
+            if (Long.bitCount(oppThreats) > 1) return -WIN + ply + 2;
+            if (oppThreats != 0) {
+                // Forced block: search it at the same depth
+                int cell = Long.numberOfTrailingZeros(oppThreats);
+                board.play(cell);
+                int forced = -search(depth, -beta, -alpha, ply + 1);
+                board.undo(cell);
+                return forced;
+            }
+            if (depth <= 0) return score;
+
+            long key = hash(board.xBits(), board.oBits());
+            int slot = (int) key & (tableKeys.length - 1);
+            long data = tableData[slot];
+            int tableMove = -1;
+            if ((tableKeys[slot] ^ data) == key) {
+                tableMove = (int) (data >>> 42) & 127;
+                if ((int) (data >>> 32 & 255) >= depth) {
+                    int stored = fromTable((int) data, ply);
+                    int bound = (int) (data >>> 40) & 3;
+                    if (bound == EXACT || (bound == LOWER && stored >= beta) || (bound == UPPER && stored <= alpha)) {
+                        return stored;
+                    }
+                }
+                if (tableMove == 127) tableMove = -1;
+            }
+
+            int[] list = moves[ply];
+            int count = orderedMoves(list, tableMove, null);
+            int originalAlpha = alpha;
+            int best = -WIN - 1;
+            int bestCell = 127;
+            for (int i = 0; i < count; i++) {
+                int move = list[i];
+                board.play(move);
+                int value = -search(depth - 1, -beta, -alpha, ply + 1);
+                board.undo(move);
+                if (stop) return 0;
+                if (value > best) {
+                    best = value;
+                    bestCell = move;
+                    if (value > alpha) {
+                        alpha = value;
+                        if (alpha >= beta) {
+                            history[move] += depth * depth;
+                            break;
+                        }
+                    }
+                }
+            }
+            int bound = best <= originalAlpha ? UPPER : best >= beta ? LOWER : EXACT;
+            long entry = (toTable(best, ply) & 0xFFFFFFFFL) | (long) Math.min(depth, 255) << 32
+                    | (long) bound << 40 | (long) bestCell << 42;
+            tableData[slot] = entry;
+            tableKeys[slot] = key ^ entry;
+            return best;
+        }
+    }
+
+    /** Win scores are stored relative to the node so they stay right at any ply. */
+    private static int toTable(int score, int ply) {
+        if (score > WIN_THRESHOLD) return score + ply;
+        if (score < -WIN_THRESHOLD) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > WIN_THRESHOLD) return score - ply;
+        if (score < -WIN_THRESHOLD) return score + ply;
+        return score;
+    }
+
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+
+        // Move plus win check, replaying random games; the orders are shuffled up front
+        Random random = new Random(1);
+        int[][] orders = new int[1024][QubicBoard.CELLS];
+        for (int[] order : orders) {
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int t = order[i];
+                order[i] = order[j];
+                order[j] = t;
+            }
+        }
+        long plays = 0, wins = 0;
+        QubicBoard board = new QubicBoard();
+        long start = 0;
+        for (int game = 0; game < 4_000_000; game++) {
+            if (game == 1_000_000) { // JIT warm-up
+                start = System.nanoTime();
+                plays = 0;
+                wins = 0;
+            }
+            int[] order = orders[game & 1023];
+            int n = 0;
+            while (board.winner() == 0 && n < QubicBoard.CELLS) {
+                board.play(order[n++]);
+            }
+            plays += n;
+            if (board.winner() != 0) wins++;
+            while (n > 0) board.undo(order[--n]);
+        }
+        double nanos = System.nanoTime() - start;
+        System.out.printf("play with win check, plus undo: %.1f ns per move (%d moves, %d decisive games)%n",
+                nanos / plays, plays, wins);
+
+        long budget = TimeUnit.MILLISECONDS.toNanos((long) (seconds * 1000));
+        for (int t : new int[]{1, threads}) {
+            QubicBot bot = new QubicBot(t, new Random(7));
+            QubicBoard opening = new QubicBoard();
+            long searchStart = System.nanoTime();
+            int move = bot.chooseMove(opening, budget);
+            double elapsed = (System.nanoTime() - searchStart) / 1e9;
+            System.out.printf("%d thread(s): opening move %d, depth %d, %.2f M nodes/s%n",
+                    t, move, bot.lastDepth(), bot.lastNodes() / elapsed / 1e6);
+        }
+
+        // Self-play with a short budget to show the bot finds forced wins
+        QubicBot bot = new QubicBot(threads, new Random(3));
+        QubicBoard game = new QubicBoard();
+        while (!game.isGameOver()) {
+            game.play(bot.chooseMove(game, budget / 10));
+        }
+        System.out.println("Self-play: " + game.moveCount() + " moves, winner "
+                + (game.winner() == 0 ? "none" : game.winner() == QubicBoard.X ? "X" : "O"));
+    }
+}
@@ -0,0 +1,192 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntSupplier;
+
+/**
+ * Qubic screen: the 4x4x4 cube shown as its four layers side by side, bottom
+ * layer first. In single-player mode the human is X and {@link QubicBot}
+ * answers as O using every core; in multiplayer both sides click. The
+ * winning line is highlighted across the layers it passes through.
+ */
+public class QubicPanel extends VariantPanel {
+    private static final ExecutorService BOT_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "qubic-bot");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final long BOT_MILLIS = 1000;
+
+    // Only touched on the bot thread
+    private final QubicBot bot = new QubicBot(Runtime.getRuntime().availableProcessors(), new Random());
+    private QubicBoard board = new QubicBoard();
+    private final BoardView view = new BoardView();
+
+    public QubicPanel(TicTacToeApp app) {
+        super(app, BOT_EXECUTOR, BOT_MILLIS);
+        add(view, BorderLayout.CENTER);
+        updateStatus();
+    }
+
+    @Override
+    protected void clearBoard() {
+        board = new QubicBoard();
+    }
+
+    @Override
+    protected boolean isLegal(int cell) {
+        return !board.isGameOver() && board.isEmpty(cell);
+    }
+
+    @Override
+    protected void play(int cell) {
+        board.play(cell);
+    }
+
+    @Override
+    protected int sideToMove() {
+        return board.sideToMove();
+    }
+
+    @Override
+    protected int winner() {
+        return board.winner();
+    }
+
+    @Override
+    protected boolean isGameOver() {
+        return board.isGameOver();
+    }
+
+    @Override
+    protected String turnDetail() {
+        return "move " + (board.moveCount() + 1);
+    }
+
+    @Override
+    protected IntSupplier botSearch(long budgetNanos) {
+        QubicBoard position = board.copy();
+        return () -> bot.chooseMove(position, budgetNanos);
+    }
+
+    @Override
+    protected long botNodes() {
+        return bot.lastNodes();
+    }
+
+    /** The winning line, or 0 while nobody has one. */
+    private long winningLine() {
+        long bits = board.winner() == QubicBoard.X ? board.xBits() : board.winner() == QubicBoard.O ? board.oBits() : 0;
+        for (long line : QubicBoard.LINES) {
+            if (bits != 0 && (bits & line) == line) return line;
+        }
+        return 0;
+    }
+
+    /**
+     * The four layers, left to right. Cell {@code layer * 16 + row * 4 + col}
+     * is in grid {@code layer} at ({@code row}, {@code col}).
+     */
+    private final class BoardView extends JComponent {
+        private static final int LAYER_GAP = 16;
+        private int hover = -1;
+
+        BoardView() {
+            MouseAdapter mouse = new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    int cell = cellAt(e.getX(), e.getY());
+                    if (cell >= 0) cellClicked(cell);
+                }
+
+                @Override
+                public void mouseMoved(MouseEvent e) {
+                    int cell = cellAt(e.getX(), e.getY());
+                    if (cell != hover) {
+                        hover = cell;
+                        repaint();
+                    }
+                }
+
+                @Override
+                public void mouseExited(MouseEvent e) {
+                    hover = -1;
+                    repaint();
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+        }
+
+        private int cellSize() {
+            return Math.max(10, Math.min((getWidth() - 3 * LAYER_GAP - 20) / 16, (getHeight() - 40) / 4));
+        }
+
+        private int layerX(int layer) {
+            int cell = cellSize();
+            return (getWidth() - (16 * cell + 3 * LAYER_GAP)) / 2 + layer * (4 * cell + LAYER_GAP);
+        }
+
+        private int originY() {
+            return (getHeight() - cellSize() * 4) / 2;
+        }
+
+        private int cellAt(int px, int py) {
+            int cell = cellSize();
+            int row = (py - originY()) / cell;
+            if (py < originY() || row > 3) return -1;
+            for (int layer = 0; layer < 4; layer++) {
+                int dx = px - layerX(layer);
+                if (dx >= 0 && dx < 4 * cell) return layer * 16 + row * 4 + dx / cell;
+            }
+            return -1;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setColor(BACKGROUND_DARK);
+            g2.fillRect(0, 0, getWidth(), getHeight());
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            int cell = cellSize();
+            int y0 = originY();
+            int inset = Math.max(3, cell / 5);
+            boolean humanToMove = humanToMove();
+            long line = winningLine();
+
+            g2.setFont(resources.pixelFont());
+            g2.setStroke(new BasicStroke(Math.max(2f, cell / 12f), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            for (int c = 0; c < QubicBoard.CELLS; c++) {
+                int layer = c / 16;
+                int x = layerX(layer) + c % 4 * cell;
+                int y = y0 + c / 4 % 4 * cell;
+                if (c % 16 == 0) {
+                    g2.setColor(RETRO_PURPLE);
+                    g2.drawString("LAYER " + (layer + 1), x, y0 - 8);
+                }
+                boolean inLine = (line >>> c & 1) != 0;
+                g2.setColor(inLine ? NEON_GREEN.darker().darker()
+                        : c == hover && humanToMove && board.isEmpty(c) ? RETRO_PURPLE.darker() : CARD_BACKGROUND);
+                g2.fillRect(x + 1, y + 1, cell - 2, cell - 2);
+                int mark = board.get(c);
+                if (mark == QubicBoard.X) {
+                    g2.setColor(c == lastMove ? PIXEL_WHITE : NEON_BLUE);
+                    g2.drawLine(x + inset, y + inset, x + cell - inset, y + cell - inset);
+                    g2.drawLine(x + cell - inset, y + inset, x + inset, y + cell - inset);
+                } else if (mark == QubicBoard.O) {
+                    g2.setColor(c == lastMove ? PIXEL_WHITE : NEON_PINK);
+                    g2.drawOval(x + inset, y + inset, cell - 2 * inset, cell - 2 * inset);
+                }
+            }
+            g2.setStroke(new BasicStroke(2f));
+            g2.setColor(NEON_BLUE);
+            for (int layer = 0; layer < 4; layer++) {
+                g2.drawRect(layerX(layer), y0, 4 * cell, 4 * cell);
+            }
+        }
+    }
+}
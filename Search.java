@@ -0,0 +1,231 @@
+/**
+ * Negamax alpha-beta search over a {@link Board}. Results go through the
+ * process-wide {@link EvaluationCache}, so work done for one game is reused
+ * by every later game that reaches the same position.
+ *
+ * Scores are from the point of view of the side to move. A win is worth
+ * {@link #WIN} minus the number of plies needed to reach it, so the bot
+ * prefers fast wins and slow losses.
+ */
+public class Search {
+    public static final int WIN = 100_000;
+    /** Scores above this (or below its negative) are forced wins (or losses). */
+    public static final int WIN_THRESHOLD = WIN - 100;
+    public static final int NO_MOVE = 63;
+
+    private final EvaluationCache cache;
+    private final Evaluator evaluator;
+    private long nodes;
+    private long nodeLimit = Long.MAX_VALUE;
+    private long deadline = Long.MAX_VALUE;
+    private volatile boolean stopRequested;
+    private boolean aborted;
+
+    public Search() {
+        this(EvaluationCache.shared());
+    }
+
+    public Search(EvaluationCache cache) {
+        this(cache, null);
+    }
+
+    /**
+     * Creates a search with a fixed evaluator instead of the default for the
+     * board size. Cached scores depend on the evaluator, so such a search
+     * needs its own cache rather than the shared one.
+     */
+    public Search(EvaluationCache cache, Evaluator evaluator) {
+        this.cache = cache;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Result of a root search.
+     */
+    public static final class Result {
+        public final int move;
+        public final int score;
+        public final int depth;
+        public final long nodes;
+
+        Result(int move, int score, int depth, long nodes) {
+            this.move = move;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+        }
+
+        public boolean isWin() {
+            return score > WIN_THRESHOLD;
+        }
+
+        public boolean isLoss() {
+            return score < -WIN_THRESHOLD;
+        }
+
+        @Override
+        public String toString() {
+            return "move=" + move + " score=" + score + " depth=" + depth + " nodes=" + nodes;
+        }
+    }
+
+    /**
+     * Searches the position to {@code maxDepth} plies (capped at the number of
+     * empty cells, where the result becomes exact) and returns the best move.
+     * The board is restored before returning.
+     */
+    public Result bestMove(Board board, int maxDepth) {
+        nodes = 0;
+        aborted = false;
+        int depth = Math.min(maxDepth, Long.bitCount(board.emptyMask()));
+        int bestMove = NO_MOVE;
+        int alpha = -WIN - 1;
+        int beta = WIN + 1;
+
+        long empty = board.emptyMask();
+        int hashMove = hashMove(board);
+        if (hashMove != NO_MOVE && (empty & (1L << hashMove)) != 0) {
+            bestMove = hashMove;
+            alpha = childScore(board, hashMove, depth, alpha, beta);
+            empty &= ~(1L << hashMove);
+        }
+        while (empty != 0) {
+            int cell = Long.numberOfTrailingZeros(empty);
+            empty &= empty - 1;
+            int score = childScore(board, cell, depth, alpha, beta);
+            if (score > alpha) {
+                alpha = score;
+                bestMove = cell;
+            }
+        }
+        if (bestMove != NO_MOVE && !aborted) {
+            cache.store(board, alpha, depth, EvaluationCache.EXACT, bestMove);
+        }
+        return new Result(bestMove, alpha, depth, nodes);
+    }
+
+    /**
+     * Scores a single move for the side to move, searching {@code depth} plies
+     * in total (the move itself included).
+     */
+    public int scoreMove(Board board, int cell, int depth) {
+        nodes = 0;
+        aborted = false;
+        return childScore(board, cell, Math.min(depth, Long.bitCount(board.emptyMask())), -WIN - 1, WIN + 1);
+    }
+
+    public long nodes() {
+        return nodes;
+    }
+
+    /**
+     * Makes every following search abort once it has visited {@code limit}
+     * nodes; {@link #wasAborted()} tells the caller the budget ran out.
+     */
+    public void setNodeLimit(long limit) {
+        this.nodeLimit = limit;
+    }
+
+    /**
+     * Makes every following search abort once {@link System#nanoTime} passes
+     * {@code nanoTime}; pass {@code Long.MAX_VALUE} for no deadline. The clock
+     * is read every 1024 nodes, so the overshoot is well under a millisecond.
+     */
+    public void setDeadline(long nanoTime) {
+        this.deadline = nanoTime;
+    }
+
+    /**
+     * Asks a running search (possibly on another thread) to give up. The
+     * search then unwinds quickly and {@link #wasAborted()} returns true;
+     * its score must be ignored. A stopped instance stays stopped.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public boolean wasAborted() {
+        return aborted;
+    }
+
+    private int childScore(Board board, int cell, int depth, int alpha, int beta) {
+        int mover = board.sideToMove();
+        board.play(cell);
+        int score;
+        if (board.hasWon(mover)) {
+            nodes++;
+            score = WIN;
+        } else {
+            score = fromChild(-negamax(board, depth - 1, -beta, -alpha));
+        }
+        board.undo(cell);
+        return score;
+    }
+
+    private int negamax(Board board, int depth, int alpha, int beta) {
+        nodes++;
+        if (nodes >= nodeLimit || ((nodes & 1023) == 0 && (stopRequested || System.nanoTime() >= deadline))) {
+            aborted = true;
+        }
+        if (aborted) return 0;
+        if (board.isFull()) return 0;
+        if (depth <= 0) {
+            return (evaluator != null ? evaluator : Evaluator.forSize(board.size())).evaluate(board);
+        }
+
+        int originalAlpha = alpha;
+        int hashMove = NO_MOVE;
+        long entry = cache.probe(board);
+        if (entry != EvaluationCache.MISS) {
+            hashMove = EvaluationCache.move(entry);
+            if (EvaluationCache.depth(entry) >= depth) {
+                int cached = EvaluationCache.score(entry);
+                int flag = EvaluationCache.flag(entry);
+                if (flag == EvaluationCache.EXACT) return cached;
+                if (flag == EvaluationCache.LOWER_BOUND && cached >= beta) return cached;
+                if (flag == EvaluationCache.UPPER_BOUND && cached <= alpha) return cached;
+            }
+        }
+
+        int best = -WIN - 1;
+        int bestMove = NO_MOVE;
+        long empty = board.emptyMask();
+        if (hashMove != NO_MOVE && (empty & (1L << hashMove)) != 0) {
+            best = childScore(board, hashMove, depth, alpha, beta);
+            bestMove = hashMove;
+            if (best > alpha) alpha = best;
+            empty &= ~(1L << hashMove);
+        }
+        while (empty != 0 && alpha < beta) {
+            int cell = Long.numberOfTrailingZeros(empty);
+            empty &= empty - 1;
+            int score = childScore(board, cell, depth, alpha, beta);
+            if (score > best) {
+                best = score;
+                bestMove = cell;
+                if (score > alpha) alpha = score;
+            }
+        }
+
+        int flag = best <= originalAlpha ? EvaluationCache.UPPER_BOUND
+                : best >= beta ? EvaluationCache.LOWER_BOUND
+                : EvaluationCache.EXACT;
+        if (!aborted) cache.store(board, best, depth, flag, bestMove);
+        return best;
+    }
+
+    private int hashMove(Board board) {
+        long entry = cache.probe(board);
+        return entry == EvaluationCache.MISS ? NO_MOVE : EvaluationCache.move(entry);
+    }
+
+    /**
+     * Converts a child's score to the parent's view: forced results move one
+     * ply further away, everything else is unchanged.
+     */
+    private static int fromChild(int score) {
+        if (score > WIN_THRESHOLD) return score - 1;
+        if (score < -WIN_THRESHOLD) return score + 1;
+        return score;
+    }
+}
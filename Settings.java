@@ -4,46 +4,79 @@ public class Settings {
     private String mode = "Singleplayer";
     private int boardSize = 3;
     private boolean musicEnabled = true;
+    private String engine = Engines.DEFAULT;
+    private TimeControl timeControl = TimeControl.UNTIMED;
 
     public Settings() {
         loadSettings();
     }
 
     public void loadSettings() {
+        long start = System.nanoTime();
         try (Connection conn = DriverManager.getConnection("jdbc:sqlite:settings.db")) {
             Statement stmt = conn.createStatement();
-            stmt.execute("CREATE TABLE IF NOT EXISTS settings (mode TEXT, boardSize INTEGER, music INTEGER)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS settings (mode TEXT, boardSize INTEGER, music INTEGER, difficulty TEXT, time_control TEXT, engine TEXT)");
+            addMissingColumns(conn);
             ResultSet rs = stmt.executeQuery("SELECT * FROM settings");
             if (rs.next()) {
                 mode = rs.getString("mode");
                 boardSize = rs.getInt("boardSize");
                 musicEnabled = rs.getInt("music") == 1;
+                // Before engines were pluggable the bot was chosen by its difficulty label
+                String saved = rs.getString("engine");
+                if (saved == null) saved = Difficulty.fromLabel(rs.getString("difficulty")).label();
+                engine = Engines.exists(saved) ? saved : Engines.DEFAULT;
+                timeControl = TimeControl.fromLabel(rs.getString("time_control"));
             } else {
                 saveSettings();
             }
         } catch (SQLException e) {
             System.err.println("Failed to load settings: " + e.getMessage());
         }
+        Metrics.SETTINGS_LOAD.recordSince(start);
+    }
+
+    /**
+     * Databases written by older versions lack the columns added since.
+     */
+    private void addMissingColumns(Connection conn) throws SQLException {
+        addColumnIfMissing(conn, "difficulty", "TEXT");
+        addColumnIfMissing(conn, "time_control", "TEXT");
+        addColumnIfMissing(conn, "engine", "TEXT");
+    }
+
+    private void addColumnIfMissing(Connection conn, String column, String type) throws SQLException {
+        try (ResultSet columns = conn.getMetaData().getColumns(null, null, "settings", column)) {
+            if (!columns.next()) {
+                conn.createStatement().execute("ALTER TABLE settings ADD COLUMN " + column + " " + type);
+            }
+        }
     }
 
     public void saveSettings() {
+        long start = System.nanoTime();
         try (Connection conn = DriverManager.getConnection("jdbc:sqlite:settings.db")) {
             Statement stmt = conn.createStatement();
             stmt.execute("DELETE FROM settings");
-            PreparedStatement ps = conn.prepareStatement("INSERT INTO settings VALUES (?, ?, ?)");
+            PreparedStatement ps = conn.prepareStatement("INSERT INTO settings (mode, boardSize, music, time_control, engine) VALUES (?, ?, ?, ?, ?)");
             ps.setString(1, mode);
             ps.setInt(2, boardSize);
             ps.setInt(3, musicEnabled ? 1 : 0);
+            ps.setString(4, timeControl.label());
+            ps.setString(5, engine);
             ps.execute();
         } catch (SQLException e) {
             System.err.println("Failed to save settings: " + e.getMessage());
         }
+        Metrics.SETTINGS_SAVE.recordSince(start);
     }
 
     public void reset() {
         mode = "Singleplayer";
         boardSize = 3;
         musicEnabled = true;
+        engine = Engines.DEFAULT;
+        timeControl = TimeControl.UNTIMED;
         saveSettings();
     }
 
@@ -70,4 +103,21 @@ public class Settings {
     public void setMusicEnabled(boolean musicEnabled) {
         this.musicEnabled = musicEnabled;
     }
+
+    /** Name of the engine that plays O in singleplayer, see {@link Engines}. */
+    public String getEngine() {
+        return engine;
+    }
+
+    public void setEngine(String engine) {
+        this.engine = engine;
+    }
+
+    public TimeControl getTimeControl() {
+        return timeControl;
+    }
+
+    public void setTimeControl(TimeControl timeControl) {
+        this.timeControl = timeControl;
+    }
 }
@@ -86,8 +86,38 @@ public class SettingsPanel extends JPanel {
         // --- END PROPOSED FIX ---
         card.add(boardSizeBox, gbc);
 
-        // Music checkbox
+        // Bot engine (Singleplayer only), every engine found on the class path
         gbc.gridy = 4;
+        JLabel engineLabel = new JLabel("Bot:");
+        engineLabel.setFont(labelFont);
+        engineLabel.setForeground(PIXEL_WHITE);
+        card.add(engineLabel, gbc);
+
+        gbc.gridy = 5;
+        JComboBox<String> engineBox = new JComboBox<>(Engines.names().toArray(new String[0]));
+        engineBox.setFont(labelFont);
+        engineBox.setBackground(BACKGROUND_DARK);
+        engineBox.setForeground(PIXEL_WHITE);
+        engineBox.setBorder(BorderFactory.createLineBorder(NEON_BLUE, 1));
+        card.add(engineBox, gbc);
+
+        // Time control
+        gbc.gridy = 6;
+        JLabel timeControlLabel = new JLabel("Time Control:");
+        timeControlLabel.setFont(labelFont);
+        timeControlLabel.setForeground(PIXEL_WHITE);
+        card.add(timeControlLabel, gbc);
+
+        gbc.gridy = 7;
+        JComboBox<TimeControl> timeControlBox = new JComboBox<>(TimeControl.values());
+        timeControlBox.setFont(labelFont);
+        timeControlBox.setBackground(BACKGROUND_DARK);
+        timeControlBox.setForeground(PIXEL_WHITE);
+        timeControlBox.setBorder(BorderFactory.createLineBorder(NEON_BLUE, 1));
+        card.add(timeControlBox, gbc);
+
+        // Music checkbox
+        gbc.gridy = 8;
         JCheckBox musicCheck = new JCheckBox("Enable Music");
         musicCheck.setFont(labelFont);
         musicCheck.setBackground(CARD_BACKGROUND);
@@ -96,12 +126,12 @@ public class SettingsPanel extends JPanel {
         card.add(musicCheck, gbc);
 
         // Apply button
-        gbc.gridy = 5;
+        gbc.gridy = 9;
         JButton applyBtn = createStyledButton("Apply", NEON_BLUE);
         card.add(applyBtn, gbc);
 
         // Go Back button
-        gbc.gridy = 6;
+        gbc.gridy = 10;
         JButton backBtn = createStyledButton("Back to Game Menu", RETRO_PURPLE);
         card.add(backBtn, gbc);
 
@@ -123,6 +153,8 @@ public class SettingsPanel extends JPanel {
         Settings settings = app.getSettings();
         modeBox.setSelectedItem(settings.getMode());
         boardSizeBox.setSelectedItem(settings.getBoardSize());
+        engineBox.setSelectedItem(settings.getEngine());
+        timeControlBox.setSelectedItem(settings.getTimeControl());
         musicCheck.setSelected(settings.isMusicEnabled());
 
         // --- PROPOSED FIX: Add an ItemListener to force repaint on selection ---
@@ -146,9 +178,11 @@ public class SettingsPanel extends JPanel {
         applyBtn.addActionListener(e -> {
             settings.setMode((String) modeBox.getSelectedItem());
             settings.setBoardSize((Integer) boardSizeBox.getSelectedItem());
+            settings.setEngine((String) engineBox.getSelectedItem());
+            settings.setTimeControl((TimeControl) timeControlBox.getSelectedItem());
             settings.setMusicEnabled(musicCheck.isSelected());
             settings.saveSettings(); // Make sure settings are saved here!
-            JOptionPane.showMessageDialog(this, "Settings applied! Board size will update on next game start.", "Info", JOptionPane.INFORMATION_MESSAGE);
+            JOptionPane.showMessageDialog(this, "Settings applied!", "Info", JOptionPane.INFORMATION_MESSAGE);
             // After applying settings, force a re-render of the combo box just in case
             boardSizeBox.setSelectedItem(settings.getBoardSize()); // Re-set to confirm it's showing the saved value
             boardSizeBox.revalidate();
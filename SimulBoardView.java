@@ -0,0 +1,235 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Paints every board of a simul in one component, tiled in a near-square
+ * grid. There are no child components: marks are drawn as lines and ovals,
+ * a click is mapped to its board and cell arithmetically, and a change to one
+ * board or its clock repaints only that tile, so painting and hit testing
+ * cost the same per move with 4 boards as with 16.
+ *
+ * Confined to the EDT, like the games it shows.
+ */
+public class SimulBoardView extends JComponent {
+    private static final Color BACKGROUND_DARK = new Color(15, 12, 28);
+    private static final Color CARD_BACKGROUND = new Color(33, 29, 55);
+    private static final Color HOVER = new Color(69, 21, 113);
+    private static final Color NEON_BLUE = new Color(0, 255, 255);
+    private static final Color NEON_PINK = new Color(255, 20, 147);
+    private static final Color NEON_GREEN = new Color(0, 255, 127);
+    private static final Color NEON_YELLOW = new Color(255, 255, 0);
+    private static final Color PIXEL_WHITE = new Color(255, 255, 255);
+    private static final Color RETRO_PURPLE = new Color(138, 43, 226);
+    private static final int GAP = 12;
+    private static final BasicStroke FRAME_STROKE = new BasicStroke(2f);
+
+    /** Receives clicks on empty or occupied cells; the listener decides what is legal. */
+    public interface CellListener {
+        void cellClicked(SimulGame game, int cell);
+    }
+
+    private final CellListener listener;
+    private List<SimulGame> games = Collections.emptyList();
+    private int size = 3;
+
+    // Layout, recomputed when the games or the component size change
+    private int columns = 1;
+    private int tile;      // side of one board including its header
+    private int header;    // height of the clock and status strip above a board
+    private int cellSize;
+    private int originX;
+    private int originY;
+    private Font headerFont;
+    private BasicStroke markStroke;
+
+    private int hoverBoard = -1;
+    private int hoverCell = -1;
+
+    public SimulBoardView(CellListener listener) {
+        this.listener = listener;
+        setOpaque(true);
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                layoutBoards();
+                repaint();
+            }
+        });
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int board = boardAt(e.getX(), e.getY());
+                int cell = board < 0 ? -1 : cellAt(board, e.getX(), e.getY());
+                if (cell >= 0) listener.cellClicked(games.get(board), cell);
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                int board = boardAt(e.getX(), e.getY());
+                setHover(board, board < 0 ? -1 : cellAt(board, e.getX(), e.getY()));
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setHover(-1, -1);
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+    }
+
+    public void setGames(List<SimulGame> games, int size) {
+        this.games = games;
+        this.size = size;
+        hoverBoard = -1;
+        hoverCell = -1;
+        layoutBoards();
+        repaint();
+    }
+
+    private void layoutBoards() {
+        int n = Math.max(1, games.size());
+        columns = (int) Math.ceil(Math.sqrt(n));
+        int rows = (n + columns - 1) / columns;
+        tile = Math.max(40, Math.min((getWidth() - GAP) / columns, (getHeight() - GAP) / rows) - GAP);
+        header = Math.max(14, tile / 9);
+        cellSize = Math.max(4, (tile - header) / size);
+        int boardWidth = cellSize * size;
+        originX = (getWidth() - columns * (boardWidth + GAP) + GAP) / 2;
+        originY = (getHeight() - rows * (tile + GAP) + GAP) / 2;
+        headerFont = GameResources.get().pixelFont().deriveFont(Font.BOLD, header * 0.7f);
+        markStroke = new BasicStroke(Math.max(2f, cellSize / 10f), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    }
+
+    private int tileX(int board) {
+        return originX + (board % columns) * (cellSize * size + GAP);
+    }
+
+    private int tileY(int board) {
+        return originY + (board / columns) * (tile + GAP);
+    }
+
+    /** Repaints one board and its header, e.g. after a move on it. */
+    public void repaintBoard(SimulGame game) {
+        int b = game.index();
+        repaint(tileX(b), tileY(b), cellSize * size + 1, header + cellSize * size + 1);
+    }
+
+    /** Repaints just the clock strip of a board. */
+    public void repaintHeader(SimulGame game) {
+        int b = game.index();
+        repaint(tileX(b), tileY(b), cellSize * size + 1, header);
+    }
+
+    private void repaintCell(int board, int cell) {
+        repaint(tileX(board) + (cell % size) * cellSize, tileY(board) + header + (cell / size) * cellSize,
+                cellSize + 1, cellSize + 1);
+    }
+
+    private void setHover(int board, int cell) {
+        if (board == hoverBoard && cell == hoverCell) return;
+        if (hoverCell >= 0) repaintCell(hoverBoard, hoverCell);
+        hoverBoard = board;
+        hoverCell = cell;
+        if (cell >= 0) repaintCell(board, cell);
+        setCursor(cell >= 0 ? Cursor.getPredefinedCursor(Cursor.HAND_CURSOR) : Cursor.getDefaultCursor());
+    }
+
+    private int boardAt(int x, int y) {
+        if (x < originX || y < originY) return -1;
+        int pitchX = cellSize * size + GAP;
+        int column = (x - originX) / pitchX;
+        int row = (y - originY) / (tile + GAP);
+        int board = row * columns + column;
+        if (column >= columns || board >= games.size()) return -1;
+        return board;
+    }
+
+    private int cellAt(int board, int x, int y) {
+        int dx = x - tileX(board);
+        int dy = y - tileY(board) - header;
+        if (dx < 0 || dy < 0 || dx >= cellSize * size || dy >= cellSize * size) return -1;
+        return (dy / cellSize) * size + dx / cellSize;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g2.setColor(BACKGROUND_DARK);
+        g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        int boardWidth = cellSize * size;
+        for (int b = 0; b < games.size(); b++) {
+            int x = tileX(b), y = tileY(b);
+            if (!clip.intersects(x, y, boardWidth + 1, header + boardWidth + 1)) continue;
+            paintHeader(g2, games.get(b), x, y);
+            paintBoard(g2, games.get(b), x, y + header);
+        }
+    }
+
+    private void paintHeader(Graphics2D g, SimulGame game, int x, int y) {
+        String text;
+        Color color;
+        if (game.isOver()) {
+            int result = game.result();
+            text = result == Board.X ? "WON" : result == Board.O ? "LOST" : "DRAW";
+            color = result == Board.X ? NEON_GREEN : result == Board.O ? NEON_PINK : NEON_YELLOW;
+        } else {
+            boolean yourMove = game.board().sideToMove() == Board.X;
+            color = yourMove ? NEON_BLUE : NEON_PINK;
+            GameClock clock = game.clock();
+            TimeControl control = clock.control();
+            if (control.initialMillis() > 0) {
+                text = GameClock.format(clock.remainingNanos(Board.X)) + " | " + GameClock.format(clock.remainingNanos(Board.O));
+            } else if (control.isTimed()) {
+                text = GameClock.format(clock.moveRemainingNanos());
+            } else {
+                text = yourMove ? "YOUR MOVE" : "THINKING";
+            }
+        }
+        g.setFont(headerFont);
+        g.setColor(color);
+        g.drawString((game.index() + 1) + " " + text, x + 2, y + header - header / 4);
+    }
+
+    private void paintBoard(Graphics2D g, SimulGame game, int x, int y) {
+        Board board = game.board();
+        int width = cellSize * size;
+        Color frame = RETRO_PURPLE;
+        if (game.isOver()) {
+            frame = game.result() == Board.X ? NEON_GREEN : game.result() == Board.O ? NEON_PINK : NEON_YELLOW;
+        } else if (board.sideToMove() == Board.X) {
+            frame = NEON_BLUE;
+        }
+        boolean hovered = game.index() == hoverBoard && !game.isOver() && board.sideToMove() == Board.X;
+        int inset = Math.max(3, cellSize / 5);
+        g.setStroke(markStroke);
+        for (int cell = 0; cell < size * size; cell++) {
+            int cx = x + (cell % size) * cellSize;
+            int cy = y + (cell / size) * cellSize;
+            int mark = board.get(cell);
+            g.setColor(hovered && cell == hoverCell && mark == 0 ? HOVER : CARD_BACKGROUND);
+            g.fillRect(cx + 1, cy + 1, cellSize - 2, cellSize - 2);
+            if (mark == Board.X) {
+                g.setColor(NEON_BLUE);
+                g.drawLine(cx + inset, cy + inset, cx + cellSize - inset, cy + cellSize - inset);
+                g.drawLine(cx + cellSize - inset, cy + inset, cx + inset, cy + cellSize - inset);
+            } else if (mark == Board.O) {
+                g.setColor(cell == game.lastMove() ? PIXEL_WHITE : NEON_PINK);
+                g.drawOval(cx + inset, cy + inset, cellSize - 2 * inset, cellSize - 2 * inset);
+            }
+        }
+        g.setStroke(FRAME_STROKE);
+        g.setColor(frame);
+        g.drawRect(x, y, width, width);
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.Arrays;
+
+/**
+ * One board of a simul: its position, its clock and the bot playing it. The
+ * human is always X. Position and clock are confined to the EDT like
+ * {@link GamePanel}'s; the engine lives on the bot pool and is only touched
+ * while holding this game's lock, so a board never has two searches at once.
+ */
+public class SimulGame {
+    public static final int PLAYING = -1;
+
+    private final int index;
+    private final Board board;
+    private final GameClock clock = new GameClock();
+    private final byte[] moves;
+    private int result = PLAYING;
+    private int lastMove = -1;
+    private boolean botThinking;
+    private Engine engine;
+    private long lastNodes;
+    private boolean retired;
+
+    public SimulGame(int index, int size, TimeControl timeControl) {
+        this.index = index;
+        this.board = new Board(size);
+        this.moves = new byte[size * size];
+        clock.reset(timeControl);
+    }
+
+    public int index() {
+        return index;
+    }
+
+    public Board board() {
+        return board;
+    }
+
+    public GameClock clock() {
+        return clock;
+    }
+
+    /** X, O or {@link GameRecord#DRAW} once finished, otherwise {@link #PLAYING}. */
+    public int result() {
+        return result;
+    }
+
+    public boolean isOver() {
+        return result != PLAYING;
+    }
+
+    public int lastMove() {
+        return lastMove;
+    }
+
+    public boolean isBotThinking() {
+        return botThinking;
+    }
+
+    public void setBotThinking(boolean botThinking) {
+        this.botThinking = botThinking;
+    }
+
+    /**
+     * Plays {@code cell} for the side to move and finishes the game if it
+     * decided it.
+     */
+    public void play(int cell) {
+        moves[board.moveCount()] = (byte) cell;
+        board.play(cell);
+        lastMove = cell;
+        if (board.isGameOver()) finish(board.winner());
+        else clock.press();
+    }
+
+    public void finish(int result) {
+        this.result = result;
+        clock.stop();
+    }
+
+    public byte[] moves() {
+        return Arrays.copyOf(moves, board.moveCount());
+    }
+
+    /**
+     * Searches a copy of this board with the named engine, creating it on
+     * first use. Runs on a bot pool thread.
+     * @return the chosen cell, or -1 if the simul was closed meanwhile
+     */
+    public synchronized int chooseBotMove(String engineName, Board position, long timeBudgetNanos) {
+        if (retired) return -1;
+        if (engine == null || !engine.name().equals(engineName)) {
+            if (engine != null) engine.close();
+            engine = Engines.create(engineName);
+        }
+        try {
+            int move = engine.chooseMove(position, timeBudgetNanos);
+            lastNodes = engine.lastNodes();
+            return move;
+        } catch (RuntimeException e) {
+            engine.close();
+            engine = null;
+            throw e;
+        }
+    }
+
+    /** Nodes the engine searched for its last move. */
+    public synchronized long lastNodes() {
+        return lastNodes;
+    }
+
+    /**
+     * Closes the engine once any search in progress has ended; later
+     * searches are refused. Call from a bot pool thread.
+     */
+    public synchronized void retire() {
+        retired = true;
+        if (engine != null) engine.close();
+        engine = null;
+    }
+}
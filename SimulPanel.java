@@ -0,0 +1,266 @@
+import javax.swing.*;
+import javax.swing.border.Border;
+import java.awt.*;
+import java.awt.event.ActionListener;
+import java.awt.event.HierarchyEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sound.sampled.Clip;
+
+/**
+ * Simul mode: the human plays X against the bot on several boards at once,
+ * all tiled in one {@link SimulBoardView}. Every board has its own engine
+ * and clock. Bot replies are searched on a shared pool with one thread per
+ * core, so boards waiting for the bot do not queue behind each other.
+ *
+ * Board size, engine and time control come from the settings, like a
+ * normal game. Finished games are recorded to {@code games.txt} as
+ * single-player games.
+ */
+public class SimulPanel extends JPanel {
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService BOT_POOL = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), r -> {
+                Thread t = new Thread(r, "simul-bot-" + THREAD_COUNT.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+
+    private static final Integer[] BOARD_COUNTS = {4, 6, 9, 12, 16};
+
+    private static final Color BACKGROUND_DARK = new Color(15, 12, 28);
+    private static final Color CARD_BACKGROUND = new Color(33, 29, 55);
+    private static final Color NEON_BLUE = new Color(0, 255, 255);
+    private static final Color NEON_PINK = new Color(255, 20, 147);
+    private static final Color NEON_GREEN = new Color(0, 255, 127);
+    private static final Color PIXEL_WHITE = new Color(255, 255, 255);
+    private static final Color RETRO_PURPLE = new Color(138, 43, 226);
+
+    private final GameResources resources;
+    private final Settings settings;
+    private final SimulBoardView view = new SimulBoardView(this::cellClicked);
+    private final ActionListener clockTick = e -> onClockTick();
+    private List<SimulGame> games = Collections.emptyList();
+    private JComboBox<Integer> countBox;
+    private JLabel scoreLabel;
+
+    public SimulPanel(TicTacToeApp app) {
+        this.resources = GameResources.get();
+        this.settings = app.getSettings();
+        setLayout(new BorderLayout(10, 10));
+        setBackground(BACKGROUND_DARK);
+        setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(NEON_BLUE, 1),
+                BorderFactory.createEmptyBorder(10, 10, 10, 10)
+        ));
+        add(createTopPanel(app), BorderLayout.NORTH);
+        add(view, BorderLayout.CENTER);
+
+        // Clocks only run while the simul is on screen, as on the game screen
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                if (isShowing()) {
+                    if (games.isEmpty()) newSimul();
+                    for (SimulGame game : games) {
+                        if (!game.isOver()) game.clock().resume();
+                    }
+                    GameClock.addTickListener(clockTick);
+                } else {
+                    for (SimulGame game : games) {
+                        game.clock().pause();
+                    }
+                    GameClock.removeTickListener(clockTick);
+                }
+            }
+        });
+    }
+
+    private JPanel createTopPanel(TicTacToeApp app) {
+        JPanel topPanel = new JPanel(new BorderLayout(10, 0));
+        topPanel.setBackground(BACKGROUND_DARK);
+
+        scoreLabel = new JLabel("", JLabel.CENTER);
+        scoreLabel.setFont(resources.pixelFont());
+        scoreLabel.setForeground(PIXEL_WHITE);
+        scoreLabel.setOpaque(true);
+        scoreLabel.setBackground(CARD_BACKGROUND);
+        Border innerBorder = BorderFactory.createLineBorder(NEON_GREEN, 2);
+        Border outerBorder = BorderFactory.createEmptyBorder(5, 8, 5, 8);
+        scoreLabel.setBorder(BorderFactory.createCompoundBorder(outerBorder, innerBorder));
+        topPanel.add(scoreLabel, BorderLayout.CENTER);
+
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        controlPanel.setBackground(BACKGROUND_DARK);
+
+        countBox = new JComboBox<>(BOARD_COUNTS);
+        countBox.setSelectedItem(9);
+        countBox.setFont(resources.headerFont());
+        countBox.setBackground(BACKGROUND_DARK);
+        countBox.setForeground(PIXEL_WHITE);
+        countBox.setToolTipText("Number of boards");
+        controlPanel.add(countBox);
+
+        JButton newButton = createStyledButton("NEW SIMUL", NEON_GREEN);
+        newButton.addActionListener(e -> newSimul());
+        controlPanel.add(newButton);
+
+        JButton homeButton = createStyledButton("HOME", RETRO_PURPLE);
+        homeButton.addActionListener(e -> app.showScreen("Welcome"));
+        controlPanel.add(homeButton);
+
+        topPanel.add(controlPanel, BorderLayout.EAST);
+        return topPanel;
+    }
+
+    private JButton createStyledButton(String text, Color accentColor) {
+        JButton button = new JButton(text);
+        button.setFont(resources.headerFont());
+        button.setForeground(PIXEL_WHITE);
+        button.setBackground(CARD_BACKGROUND);
+        button.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(accentColor, 2),
+                BorderFactory.createEmptyBorder(8, 16, 8, 16)
+        ));
+        button.setFocusPainted(false);
+        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
+
+        button.addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseEntered(java.awt.event.MouseEvent e) {
+                button.setBackground(accentColor.darker());
+                playClip(resources.hoverSound());
+            }
+
+            @Override
+            public void mouseExited(java.awt.event.MouseEvent e) {
+                button.setBackground(CARD_BACKGROUND);
+            }
+        });
+
+        return button;
+    }
+
+    /**
+     * Abandons the current boards and starts a fresh simul with the selected
+     * number of boards and the current settings.
+     */
+    private void newSimul() {
+        for (SimulGame game : games) {
+            game.clock().stop();
+            BOT_POOL.execute(game::retire);
+        }
+        int count = (Integer) countBox.getSelectedItem();
+        List<SimulGame> fresh = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SimulGame game = new SimulGame(i, settings.getBoardSize(), settings.getTimeControl());
+            if (isShowing()) game.clock().resume();
+            fresh.add(game);
+        }
+        games = Collections.unmodifiableList(fresh);
+        view.setGames(games, settings.getBoardSize());
+        updateScore();
+    }
+
+    private void cellClicked(SimulGame game, int cell) {
+        Board board = game.board();
+        if (game.isOver() || board.sideToMove() != Board.X || !board.isEmpty(cell)) return;
+        if (loseIfFlagged(game)) return;
+        long moveStart = System.nanoTime();
+        playClip(resources.humanMoveSound());
+        game.play(cell);
+        afterMove(game);
+        if (!game.isOver()) requestBotMove(game);
+        SwingUtilities.invokeLater(() -> Metrics.MOVE_TO_RENDER.recordSince(moveStart));
+    }
+
+    /**
+     * Searches the bot's reply on the pool and plays it on the EDT, unless
+     * a new simul was started in the meantime.
+     */
+    private void requestBotMove(SimulGame game) {
+        Board position = game.board().copy();
+        int size = position.size();
+        long timeBudget = game.clock().thinkBudgetNanos((size * size - position.moveCount() + 1) / 2);
+        String engine = settings.getEngine();
+        game.setBotThinking(true);
+        BOT_POOL.execute(() -> {
+            long start = System.nanoTime();
+            int move;
+            try {
+                move = game.chooseBotMove(engine, position, timeBudget);
+                Metrics.botMoved(System.nanoTime() - start, game.lastNodes());
+            } catch (RuntimeException e) {
+                System.err.println("Engine " + engine + " failed, playing this move with " + Engines.DEFAULT + ": " + e.getMessage());
+                try (Engine fallback = Engines.create(Engines.DEFAULT)) {
+                    move = fallback.chooseMove(position, timeBudget);
+                }
+            }
+            int cell = move;
+            SwingUtilities.invokeLater(() -> {
+                game.setBotThinking(false);
+                if (cell < 0 || !games.contains(game) || game.isOver()) return;
+                playClip(resources.botMoveSound());
+                game.play(cell);
+                afterMove(game);
+            });
+        });
+    }
+
+    private void afterMove(SimulGame game) {
+        if (game.isOver()) recordGame(game);
+        view.repaintBoard(game);
+    }
+
+    /**
+     * Ends a board whose side to move has run out of time.
+     * @return true if it had
+     */
+    private boolean loseIfFlagged(SimulGame game) {
+        int loser = game.isOver() ? 0 : game.clock().flagged();
+        if (loser == 0) return false;
+        game.finish(loser == Board.X ? Board.O : Board.X);
+        afterMove(game);
+        return true;
+    }
+
+    /**
+     * Runs on the shared clock tick: flags boards that ran out of time and
+     * repaints only the clock strips that are counting.
+     */
+    private void onClockTick() {
+        for (SimulGame game : games) {
+            if (game.isOver() || !game.clock().control().isTimed()) continue;
+            if (!loseIfFlagged(game)) view.repaintHeader(game);
+        }
+    }
+
+    private void recordGame(SimulGame game) {
+        GameRecorder.record(new GameRecord(game.board().size(), "Singleplayer", game.result(), game.moves()));
+        Metrics.gameFinished();
+        updateScore();
+    }
+
+    private void updateScore() {
+        int won = 0, drawn = 0, lost = 0;
+        for (SimulGame game : games) {
+            if (game.result() == Board.X) won++;
+            else if (game.result() == Board.O) lost++;
+            else if (game.result() == GameRecord.DRAW) drawn++;
+        }
+        int playing = games.size() - won - drawn - lost;
+        scoreLabel.setText("\u2605 " + won + "  = " + drawn + "  \u2699 " + lost + "  \u25B6 " + playing);
+    }
+
+    private void playClip(Clip clip) {
+        if (clip == null) return;
+        long start = System.nanoTime();
+        clip.stop();
+        clip.setFramePosition(0);
+        clip.start();
+        Metrics.AUDIO_TRIGGER.recordSince(start);
+    }
+}
@@ -0,0 +1,338 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Live move feeds for people watching games. Each game has a channel; its
+ * moves are collected as they are played and, once per {@link #tick}, encoded
+ * into a single frame that every spectator of that game reads. Nothing is
+ * copied or queued per spectator: a channel keeps its recent frames in a
+ * ring, and a spectator is just a cursor into that ring, so another watcher
+ * costs a few bytes and no work when a move is played.
+ *
+ * A spectator that falls more than the ring behind is resynced with a frame
+ * holding the whole board, built once per channel and shared by everyone who
+ * needs it, and is dropped after too many resyncs in a row.
+ *
+ * Frames, big-endian, each a short length followed by:
+ * <pre>
+ * MOVES    byte 1, int game, int seq, byte count, count x byte cell
+ * SNAPSHOT byte 2, int game, int seq, byte size, long X bits, long O bits, byte move count
+ * END      byte 3, int game, int seq, byte result (X, O, 0 for a draw, 3 if abandoned)
+ * </pre>
+ * Moves in a MOVES frame continue from the previous frame or snapshot.
+ *
+ * {@code java SpectatorHub [spectators] [games]} measures the fan-out.
+ */
+public class SpectatorHub {
+    public static final byte MOVES = 1, SNAPSHOT = 2, END = 3;
+    /** The END result of a game stopped before anyone won, e.g. when its player left. */
+    public static final int ABANDONED = 3;
+    private static final int SEQ_OFFSET = 7;
+
+    private final int backlog;
+    private final int maxResyncs;
+    private final ConcurrentHashMap<Integer, Channel> channels = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<Channel> active = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param backlogFrames frames a spectator may fall behind before a resync, rounded up to a power of two
+     * @param maxResyncs    resyncs in a row after which a spectator is dropped
+     */
+    public SpectatorHub(int backlogFrames, int maxResyncs) {
+        this.backlog = Integer.highestOneBit(Math.max(2, backlogFrames - 1)) << 1;
+        this.maxResyncs = maxResyncs;
+    }
+
+    /** Opens the feed for a new game. */
+    public Channel open(int gameId, int size) {
+        Channel channel = new Channel(gameId, size, backlog);
+        if (channels.putIfAbsent(gameId, channel) != null) {
+            throw new IllegalArgumentException("Game " + gameId + " already has a channel");
+        }
+        active.add(channel);
+        return channel;
+    }
+
+    /**
+     * Starts watching a game from its current position.
+     * @return the spectator, or null if there is no such game
+     */
+    public Spectator watch(int gameId) {
+        Channel channel = channels.get(gameId);
+        return channel == null ? null : new Spectator(channel);
+    }
+
+    /**
+     * Publishes the moves every channel collected since the last tick, one
+     * frame per channel, and retires finished channels. Call from one thread.
+     */
+    public void tick() {
+        List<Channel> ended = null;
+        for (Channel channel : active) {
+            if (channel.flush()) {
+                if (ended == null) ended = new ArrayList<>();
+                ended.add(channel);
+                channels.remove(channel.gameId);
+            }
+        }
+        if (ended != null) active.removeAll(ended);
+    }
+
+    /**
+     * The feed of one game. Moves come from the game's thread; frames are
+     * built on the tick thread and read by any number of sender threads.
+     */
+    public static final class Channel {
+        final int gameId;
+        private final Board board;
+        private final ByteBuffer[] ring;
+        private final int mask;
+        private volatile long published;   // frames published so far; frame n sits at ring[n & mask]
+        private final byte[] pending = new byte[36];
+        private int pendingCount;
+        private int result = -1;
+        private boolean ended;
+        private volatile ByteBuffer snapshot; // the board after the frame count it carries
+        private long snapshotSeq;
+        private volatile boolean snapshotWanted;
+
+        Channel(int gameId, int size, int backlog) {
+            this.gameId = gameId;
+            this.board = new Board(size);
+            this.ring = new ByteBuffer[backlog];
+            this.mask = backlog - 1;
+            this.snapshot = encodeSnapshot(0);
+        }
+
+        /** Queues a move for the next tick. */
+        public synchronized void move(int cell) {
+            if (ended || pendingCount == pending.length) return;
+            pending[pendingCount++] = (byte) cell;
+        }
+
+        /**
+         * Marks the game finished; the END frame follows the last moves.
+         * @param result {@link Board#X}, {@link Board#O}, 0 for a draw or {@link #ABANDONED}
+         */
+        public synchronized void end(int result) {
+            this.result = result;
+        }
+
+        /** @return true once the END frame is out */
+        private boolean flush() {
+            ByteBuffer frame = null;
+            int finalResult;
+            synchronized (this) {
+                finalResult = result;
+                int count = pendingCount;
+                if (count > 0) {
+                    frame = ByteBuffer.allocate(2 + 10 + count);
+                    frame.putShort((short) (10 + count)).put(MOVES).putInt(gameId).putInt((int) published)
+                            .put((byte) count).put(pending, 0, count);
+                    pendingCount = 0;
+                }
+            }
+            if (frame != null) {
+                for (int i = 12; i < frame.position(); i++) board.play(frame.get(i));
+                publish(frame);
+            }
+            if (finalResult >= 0 && !ended) {
+                ended = true;
+                // The channel gets no more ticks, so leave a final snapshot just before END
+                snapshot = encodeSnapshot(published);
+                snapshotSeq = published;
+                frame = ByteBuffer.allocate(2 + 10);
+                frame.putShort((short) 10).put(END).putInt(gameId).putInt((int) published).put((byte) finalResult);
+                publish(frame);
+                return true;
+            }
+            refreshSnapshot();
+            return false;
+        }
+
+        /** Rebuilds the snapshot if a spectator asked for one since it was last current. */
+        private void refreshSnapshot() {
+            if (snapshotWanted && snapshotSeq != published) {
+                long seq = published;
+                snapshot = encodeSnapshot(seq);
+                snapshotSeq = seq;
+            }
+            snapshotWanted = false;
+        }
+
+        private void publish(ByteBuffer frame) {
+            frame.flip();
+            ring[(int) published & mask] = frame.asReadOnlyBuffer();
+            published++; // volatile write: the frame is visible before the new count
+        }
+
+        private ByteBuffer encodeSnapshot(long seq) {
+            ByteBuffer frame = ByteBuffer.allocate(2 + 27);
+            frame.putShort((short) 27).put(SNAPSHOT).putInt(gameId).putInt((int) seq).put((byte) board.size())
+                    .putLong(board.xBits()).putLong(board.oBits()).put((byte) board.moveCount());
+            frame.flip();
+            return frame.asReadOnlyBuffer();
+        }
+
+        public long published() {
+            return published;
+        }
+    }
+
+    /**
+     * One watcher: a position in a channel's frames. Used by one sender thread.
+     */
+    public final class Spectator {
+        private final Channel channel;
+        private long cursor;
+        private int resyncs;
+        private boolean needsSnapshot = true;
+        private boolean dropped;
+
+        Spectator(Channel channel) {
+            this.channel = channel;
+            // Nothing before the first snapshot is owed to it
+            this.cursor = channel.published;
+        }
+
+        public int gameId() {
+            return channel.gameId;
+        }
+
+        public boolean isDropped() {
+            return dropped;
+        }
+
+        /**
+         * The next frame to send, as a shared read-only buffer the caller must
+         * {@link ByteBuffer#duplicate} before changing its position; null when
+         * caught up, waiting for a snapshot or dropped.
+         */
+        public ByteBuffer next() {
+            if (dropped) return null;
+            if (needsSnapshot) {
+                // Any snapshot will do as long as the frames after it are still in the ring
+                ByteBuffer snapshot = channel.snapshot;
+                long seq = snapshot.getInt(SEQ_OFFSET) & 0xFFFFFFFFL;
+                if (channel.published - seq >= channel.ring.length) {
+                    channel.snapshotWanted = true;
+                    return null;
+                }
+                needsSnapshot = false;
+                cursor = seq;
+                return snapshot;
+            }
+            if (cursor == channel.published) return null;
+            ByteBuffer frame = channel.ring[(int) cursor & channel.mask];
+            // Checked after the read: slot n is overwritten just before frame n + length is counted
+            if (channel.published - cursor >= channel.ring.length) {
+                if (++resyncs > maxResyncs) {
+                    dropped = true;
+                    return null;
+                }
+                needsSnapshot = true;
+                return next();
+            }
+            cursor++;
+            if (resyncs > 0 && cursor == channel.published) resyncs = 0;
+            return frame;
+        }
+
+        /** Frames published that this spectator has not taken yet. */
+        public long behind() {
+            return channel.published - cursor;
+        }
+
+        /**
+         * Drops the spectator if it is further behind than {@link #next}
+         * would ever let it catch up from: a whole ring for each resync it
+         * has left, and one more. For senders that stop calling {@code next}
+         * while a client is not reading.
+         * @return true if the spectator is dropped
+         */
+        public boolean dropIfStalled() {
+            if (!dropped && behind() >= (long) channel.ring.length * (maxResyncs - resyncs + 1)) dropped = true;
+            return dropped;
+        }
+    }
+
+    public static void main(String[] args) {
+        int spectators = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        for (int round = 0; round < 5; round++) {
+            run(spectators, games, round == 4);
+        }
+    }
+
+    /**
+     * Plays {@code games} random 6x6 games a move per tick, with every tenth
+     * spectator reading only every 20th tick, behind a 16-frame ring.
+     */
+    private static void run(int spectators, int games, boolean report) {
+        Runtime runtime = Runtime.getRuntime();
+        SpectatorHub hub = new SpectatorHub(16, 3);
+        Channel[] channels = new Channel[games];
+        Board[] boards = new Board[games];
+        for (int g = 0; g < games; g++) {
+            channels[g] = hub.open(g, 6);
+            boards[g] = new Board(6);
+        }
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        Spectator[] watchers = new Spectator[spectators];
+        for (int s = 0; s < spectators; s++) watchers[s] = hub.watch(s % games);
+        System.gc();
+        long heapPerSpectator = (runtime.totalMemory() - runtime.freeMemory() - heapBefore) / Math.max(1, spectators);
+
+        Random random = new Random(1);
+        long moves = 0, frames = 0, snapshots = 0, bytes = 0, tickNanos = 0, drainNanos = 0;
+        int ticks = 0;
+        boolean playing = true;
+        while (playing) {
+            playing = false;
+            for (int g = 0; g < games; g++) {
+                Board board = boards[g];
+                if (board.isGameOver()) continue;
+                int cell;
+                do cell = random.nextInt(board.cells()); while (!board.isEmpty(cell));
+                board.play(cell);
+                channels[g].move(cell);
+                if (board.isGameOver()) channels[g].end(board.winner());
+                moves++;
+                playing = true;
+            }
+            long start = System.nanoTime();
+            hub.tick();
+            tickNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int s = 0; s < spectators; s++) {
+                if (s % 10 == 0 && playing && ticks % 20 != 19) continue;
+                ByteBuffer frame;
+                while ((frame = watchers[s].next()) != null) {
+                    frames++;
+                    bytes += frame.remaining();
+                    if (frame.get(2) == SNAPSHOT) snapshots++;
+                }
+            }
+            drainNanos += System.nanoTime() - start;
+            ticks++;
+        }
+        if (!report) return;
+        long dropped = 0, behind = 0;
+        for (Spectator s : watchers) {
+            if (s.isDropped()) dropped++;
+            else if (s.behind() > 0) behind++;
+        }
+        System.out.printf("%d spectators on %d games, %d ticks, %d moves%n", spectators, games, ticks, moves);
+        System.out.printf("tick (encode + publish): %.1f us per tick, %.0f ns per game%n",
+                tickNanos / 1e3 / ticks, (double) tickNanos / ticks / games);
+        System.out.printf("fan-out: %.1f ns per spectator per tick, %d frames (%d snapshots), %.1f MB handed out%n",
+                (double) drainNanos / ticks / Math.max(1, spectators), frames, snapshots, bytes / 1e6);
+        System.out.printf("after the last tick: %d dropped, %d behind; heap per spectator %d bytes%n",
+                dropped, behind, heapPerSpectator);
+    }
+}
@@ -0,0 +1,311 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends {@link SpectatorHub} feeds to spectators over TCP. A spectator
+ * connects, sends one line {@code watch <game>} and then receives the game's
+ * frames as described in {@link SpectatorHub}; the connection closes after
+ * the END frame is sent, or straight away if there is no such game.
+ *
+ * One thread runs the hub's tick and all the sockets. After each tick every
+ * spectator gets the frames it is missing in a single gathering write of the
+ * shared buffers, so a tick costs one system call per spectator however many
+ * moves it carried. A spectator whose socket is full keeps its unsent frames
+ * and is written again when the socket drains; until then it falls behind in
+ * the hub, which resyncs or drops it. A spectator that stays stuck that
+ * long without draining is dropped on the tick it passes the hub's limit,
+ * and its connection is closed.
+ *
+ * {@code java SpectatorServer [spectators] [games]} runs a loopback demo.
+ */
+public class SpectatorServer implements Closeable {
+    public static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final int BATCH = 32;
+
+    private final SpectatorHub hub;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final List<Connection> connections = new ArrayList<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final ByteBuffer discard = ByteBuffer.allocate(256);
+
+    /**
+     * Starts serving on the loopback interface.
+     * @param port the port, or 0 for any free one
+     */
+    public SpectatorServer(SpectatorHub hub, int port) throws IOException {
+        this.hub = hub;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        thread = new Thread(this::run, "spectator-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int port() {
+        return server.socket().getLocalPort();
+    }
+
+    public Thread thread() {
+        return thread;
+    }
+
+    /** Gathering writes made so far, at most one per spectator per tick plus retries on full sockets. */
+    public long writes() {
+        return writes.get();
+    }
+
+    public long bytesSent() {
+        return bytesSent.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Connection connection : new ArrayList<>(connections)) connection.close();
+        server.close();
+        selector.close();
+    }
+
+    private void run() {
+        long nextTick = System.nanoTime() + TICK_NANOS;
+        while (running) {
+            try {
+                long wait = TimeUnit.NANOSECONDS.toMillis(nextTick - System.nanoTime());
+                if (wait > 0) selector.select(wait);
+                else selector.selectNow();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) accept();
+                    else if (key.isReadable()) ((Connection) key.attachment()).read();
+                    else if (key.isWritable()) ((Connection) key.attachment()).send();
+                }
+                long now = System.nanoTime();
+                if (now >= nextTick) {
+                    hub.tick();
+                    for (int i = connections.size() - 1; i >= 0; i--) connections.get(i).send();
+                    // Skip ticks rather than bunch them up after a stall
+                    nextTick = Math.max(nextTick + TICK_NANOS, now);
+                }
+            } catch (IOException e) {
+                if (running) System.err.println("Spectator server: " + e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    /** One spectator's socket and the frames handed to it but not yet fully written. */
+    private final class Connection {
+        final SocketChannel channel;
+        SelectionKey key;
+        ByteBuffer request = ByteBuffer.allocate(32);
+        SpectatorHub.Spectator spectator;
+        final ByteBuffer[] batch = new ByteBuffer[BATCH];
+        int first, count;
+        boolean ending;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() {
+            try {
+                if (request == null) {
+                    // Watching already; anything more from the spectator is ignored
+                    discard.clear();
+                    if (channel.read(discard) < 0) close();
+                    return;
+                }
+                if (channel.read(request) < 0) {
+                    close();
+                    return;
+                }
+                String text = new String(request.array(), 0, request.position(), StandardCharsets.US_ASCII);
+                int newline = text.indexOf('\n');
+                if (newline < 0) {
+                    if (!request.hasRemaining()) close();
+                    return;
+                }
+                String[] words = text.substring(0, newline).trim().split("\\s+");
+                request = null;
+                if (words.length == 2 && words[0].equals("watch")) {
+                    spectator = hub.watch(Integer.parseInt(words[1]));
+                }
+                if (spectator == null) close();
+                else connections.add(this);
+            } catch (IOException | NumberFormatException e) {
+                close();
+            }
+        }
+
+        /** Tops up the batch from the hub and writes as much of it as the socket takes. */
+        void send() {
+            if (!channel.isOpen() || spectator == null) return;
+            if (first < count && spectator.dropIfStalled()) {
+                // Still stuck on frames from long ago; next() never runs for it, so check here
+                close();
+                return;
+            }
+            if (first == count) {
+                first = count = 0;
+                ByteBuffer frame;
+                while (count < BATCH && (frame = spectator.next()) != null) {
+                    if (frame.get(2) == SpectatorHub.END) ending = true;
+                    batch[count++] = frame.duplicate();
+                }
+                if (spectator.isDropped()) {
+                    close();
+                    return;
+                }
+                if (count == 0) return;
+            }
+            try {
+                long written = channel.write(batch, first, count - first);
+                writes.incrementAndGet();
+                bytesSent.addAndGet(written);
+                while (first < count && !batch[first].hasRemaining()) batch[first++] = null;
+                if (first < count) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                } else {
+                    key.interestOps(SelectionKey.OP_READ);
+                    if (ending && spectator.behind() == 0) close();
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            connections.remove(this);
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int spectators = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        SpectatorHub hub = new SpectatorHub(64, 3);
+        SpectatorHub.Channel[] channels = new SpectatorHub.Channel[games];
+        Board[] boards = new Board[games];
+        for (int g = 0; g < games; g++) {
+            channels[g] = hub.open(g, 6);
+            boards[g] = new Board(6);
+        }
+        AtomicLong frames = new AtomicLong(), received = new AtomicLong(), ended = new AtomicLong();
+        CountDownLatch connected = new CountDownLatch(spectators);
+        try (SpectatorServer server = new SpectatorServer(hub, 0);
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int s = 0; s < spectators; s++) {
+                int game = s % games;
+                clients.submit(() -> {
+                    try (SocketChannel socket = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.port()))) {
+                        socket.write(ByteBuffer.wrap(("watch " + game + "\n").getBytes(StandardCharsets.US_ASCII)));
+                        connected.countDown();
+                        ByteBuffer in = ByteBuffer.allocate(4096);
+                        while (socket.read(in) >= 0) {
+                            in.flip();
+                            while (in.remaining() >= 2 && in.remaining() >= 2 + in.getShort(in.position())) {
+                                int length = in.getShort();
+                                if (in.get(in.position()) == SpectatorHub.END) ended.incrementAndGet();
+                                in.position(in.position() + length);
+                                frames.incrementAndGet();
+                                received.addAndGet(2 + length);
+                            }
+                            in.compact();
+                        }
+                    } catch (IOException e) {
+                        System.err.println("Spectator: " + e.getMessage());
+                    }
+                    return null;
+                });
+            }
+            connected.await();
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(TICK_NANOS) * 2);
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            long cpuBefore = threads.getThreadCpuTime(server.thread().threadId());
+            long start = System.nanoTime();
+            Random random = new Random(1);
+            int moves = 0;
+            boolean playing = true;
+            while (playing) {
+                playing = false;
+                for (int g = 0; g < games; g++) {
+                    Board board = boards[g];
+                    if (board.isGameOver()) continue;
+                    // Two moves a tick so each frame carries a batch
+                    for (int k = 0; k < 2 && !board.isGameOver(); k++) {
+                        int cell;
+                        do cell = random.nextInt(board.cells()); while (!board.isEmpty(cell));
+                        board.play(cell);
+                        channels[g].move(cell);
+                        moves++;
+                    }
+                    if (board.isGameOver()) channels[g].end(board.winner());
+                    playing = true;
+                }
+                Thread.sleep(TimeUnit.NANOSECONDS.toMillis(TICK_NANOS));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (ended.get() < spectators && System.nanoTime() < deadline) Thread.sleep(10);
+            long elapsed = System.nanoTime() - start;
+            long cpu = threads.getThreadCpuTime(server.thread().threadId()) - cpuBefore;
+            long ticks = elapsed / TICK_NANOS;
+
+            System.out.printf("%d spectators on %d games, %d moves over %d ticks%n", spectators, games, moves, ticks);
+            System.out.printf("received %d frames, %d bytes; %d of %d spectators saw the end%n",
+                    frames.get(), received.get(), ended.get(), spectators);
+            System.out.printf("server: %d writes (%.2f per spectator per tick), %.1f ms CPU, %.2f us per spectator per tick%n",
+                    server.writes(), (double) server.writes() / spectators / ticks, cpu / 1e6, cpu / 1e3 / spectators / ticks);
+            clients.shutdownNow();
+        }
+    }
+}
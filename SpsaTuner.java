@@ -0,0 +1,324 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tunes the {@link LineEvaluator} weights for one board size by
+ * simultaneous perturbation stochastic approximation (SPSA) over headless
+ * self-play.
+ *
+ * Every iteration nudges all weights at once by a random +c or -c each,
+ * giving two evaluators that differ everywhere, and plays game pairs between
+ * them from random openings, colours swapped, on a pool of threads. The
+ * weights then move towards whichever side scored better, in proportion to
+ * how much better. Step sizes shrink over the run as in Spall's recipe:
+ * {@code a / (k + A)^0.602} for the gain and {@code c / k^0.101} for the
+ * perturbation in iteration k, with c per weight. After every step the
+ * weights are scaled back to their starting total, since the levels' noise
+ * is measured against the evaluation: otherwise the quickest way to win
+ * would be to inflate every weight and so turn the noise down.
+ *
+ * Both sides play as a {@link Bot} of one level. Between bots that make no
+ * mistakes these boards are nearly always drawn, which tells SPSA nothing,
+ * so the levels with noise are the ones to tune on: the better evaluation
+ * is the one that still wins after the noise. Each bot has its own cache,
+ * cleared before every game, and its own seeded noise, so a game depends
+ * only on its seed and the two weight sets. A run is therefore the same for
+ * a given seed whatever the number of threads, and the log it writes
+ * (settings, then one line per iteration with the score and the weights) is
+ * enough to repeat it.
+ *
+ * Usage: {@code java SpsaTuner --size N [--level name] [--iterations N]
+ * [--pairs N] [--opening N] [--threads N] [--seed N] [--a X] [--c X]
+ * [--start file] [--out file] [--log file] [--save-every N] [--verify N]},
+ * e.g. {@code java SpsaTuner --size 4 --iterations 200} writes
+ * {@code eval-4.txt} and {@code spsa-4.log} to the working directory. The
+ * game reads tuned weights only from {@code resources/}, so a run never
+ * changes how the bots play until its file is copied there.
+ */
+public class SpsaTuner {
+    /** Weights stay within this, so no evaluation comes near a won score. */
+    private static final int LIMIT = 1000 * LineEvaluator.WEIGHT_SCALE;
+    /** Perturbation of a weight that starts at 0, and the least for any weight. */
+    private static final double MIN_C = LineEvaluator.WEIGHT_SCALE / 2.0;
+    private static final double ALPHA = 0.602;
+    private static final double GAMMA = 0.101;
+    private static final long CACHE_BYTES = 1L << 20;
+
+    private final int size;
+    private final Difficulty level;
+    private final int openingPlies;
+    private final ExecutorService pool;
+    private final ThreadLocal<EvaluationCache[]> caches = ThreadLocal.withInitial(
+            () -> new EvaluationCache[] {new EvaluationCache(CACHE_BYTES), new EvaluationCache(CACHE_BYTES)});
+
+    public SpsaTuner(int size, Difficulty level, int openingPlies, int threads) {
+        this.size = size;
+        this.level = level;
+        this.openingPlies = openingPlies;
+        this.pool = Executors.newFixedThreadPool(threads);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        int size = 4;
+        int iterations = 200;
+        int pairs = 1000;
+        Difficulty level = Difficulty.EASY;
+        int opening = 2;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 42;
+        double a = 8, c = 0.5;
+        Path start = null, out = null, log = null;
+        int saveEvery = 10;
+        int verify = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size": size = Integer.parseInt(args[++i]); break;
+                case "--iterations": iterations = Integer.parseInt(args[++i]); break;
+                case "--pairs": pairs = Integer.parseInt(args[++i]); break;
+                case "--level": level = level(args[++i]); break;
+                case "--opening": opening = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--a": a = Double.parseDouble(args[++i]); break;
+                case "--c": c = Double.parseDouble(args[++i]); break;
+                case "--start": start = Paths.get(args[++i]); break;
+                case "--out": out = Paths.get(args[++i]); break;
+                case "--log": log = Paths.get(args[++i]); break;
+                case "--save-every": saveEvery = Integer.parseInt(args[++i]); break;
+                case "--verify": verify = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        if (size < 3 || size > 6) {
+            System.err.println("Board size must be 3 to 6");
+            System.exit(1);
+        }
+        if (size >= 5 && NTupleNetwork.SELECTED) {
+            System.err.println("Note: with -Dttt.eval=ntuple the game scores " + size + "x" + size
+                    + " with the n-tuple network, not these weights");
+        }
+        Path weightsFile = out != null ? out : Paths.get("eval-" + size + ".txt");
+        Path logFile = log != null ? log : Paths.get("spsa-" + size + ".log");
+        int boardSize = size, total = iterations, every = saveEvery, perIteration = pairs;
+
+        double[] theta = new double[LineEvaluator.parameterNames(size).length];
+        int[] initial;
+        if (start != null) {
+            LineEvaluator loaded = LineEvaluator.load(start);
+            if (loaded.size() != size) {
+                System.err.println(start + " holds weights for " + loaded.size() + "x" + loaded.size());
+                System.exit(1);
+            }
+            initial = loaded.parameters();
+        } else {
+            initial = LineEvaluator.defaultParameters(size);
+        }
+        for (int p = 0; p < theta.length; p++) theta[p] = initial[p];
+
+        SpsaTuner tuner = new SpsaTuner(size, level, opening, threads);
+        try (PrintWriter logOut = new PrintWriter(Files.newBufferedWriter(logFile, StandardCharsets.UTF_8))) {
+            String settings = String.format(Locale.ROOT,
+                    "size %d, %d iterations of %d game pairs, %s bots, %d random opening plies, a %s, c %s, seed %d",
+                    size, iterations, pairs, level, opening, a, c, seed);
+            logOut.println("# java SpsaTuner " + String.join(" ", args));
+            logOut.println("# " + settings + ", " + threads + " threads (the results do not depend on them)");
+            logOut.println("# start " + (start == null ? "default weights" : start.toString()));
+            logOut.println("iteration\tgain\tperturbation\tplus_score\t" + String.join("\t", LineEvaluator.parameterNames(size)));
+            logOut.println("0\t\t\t\t" + join(round(theta)));
+            logOut.flush();
+            System.out.println("== SPSA " + settings + ", " + threads + " threads ==");
+
+            long begin = System.nanoTime();
+            int[] tuned = tuner.tune(theta, iterations, pairs, a, c, new Random(seed), (k, gain, factor, score) -> {
+                logOut.printf(Locale.ROOT, "%d\t%.4f\t%.4f\t%.4f\t%s%n", k, gain, factor, score, join(round(theta)));
+                logOut.flush();
+                double seconds = (System.nanoTime() - begin) / 1e9;
+                System.out.printf("iteration %4d  plus side scored %5.1f%%  %.0f games/s%n",
+                        k, 100 * score, 2.0 * perIteration * k / seconds);
+                if (k % every == 0 || k == total) {
+                    save(boardSize, round(theta), weightsFile, settings, k);
+                }
+            });
+            System.out.printf("Tuned weights saved to %s, log in %s%n", weightsFile, logFile);
+
+            if (verify > 0) {
+                double score = tuner.match(tuned, initial, verify, new Random(seed ^ 0x5DEECE66DL));
+                String result = String.format(Locale.ROOT, "tuned vs start over %d game pairs: %.1f%%, %+.0f Elo",
+                        verify, 100 * score, elo(score));
+                logOut.println("# " + result);
+                System.out.println(result);
+            }
+        } finally {
+            tuner.close();
+        }
+    }
+
+    /** Receives each finished iteration. */
+    interface Progress {
+        /** @param score the plus side's share of the points */
+        void iteration(int k, double gain, double perturbation, double score) throws IOException;
+    }
+
+    /**
+     * Runs SPSA from {@code theta}, updating it in place.
+     * @param a gain: how far a perfect score moves a weight, in units of its perturbation
+     * @param c perturbation as a fraction of each weight's starting value
+     * @return the final weights, rounded
+     */
+    public int[] tune(double[] theta, int iterations, int pairs, double a, double c, Random random, Progress progress)
+            throws InterruptedException, ExecutionException, IOException {
+        int n = theta.length;
+        double[] scale = new double[n];
+        for (int p = 0; p < n; p++) {
+            scale[p] = Math.max(MIN_C, c * Math.abs(theta[p]));
+        }
+        double stability = 0.1 * iterations; // A
+        double norm = norm(theta);
+        int[] delta = new int[n];
+        for (int k = 1; k <= iterations; k++) {
+            double gain = a / Math.pow(k + stability, ALPHA);
+            double factor = 1 / Math.pow(k, GAMMA);
+            for (int p = 0; p < n; p++) delta[p] = random.nextBoolean() ? 1 : -1;
+            int[] plus = new int[n], minus = new int[n];
+            for (int p = 0; p < n; p++) {
+                double step = scale[p] * factor * delta[p];
+                plus[p] = clamp(Math.round(theta[p] + step));
+                minus[p] = clamp(Math.round(theta[p] - step));
+            }
+            double score = match(plus, minus, pairs, random);
+            // 1 for a clean sweep by the plus side, -1 for one by the minus side
+            double result = 2 * score - 1;
+            for (int p = 0; p < n; p++) {
+                theta[p] += gain * scale[p] * factor * result * delta[p];
+            }
+            double rescale = norm / norm(theta);
+            for (int p = 0; p < n; p++) {
+                theta[p] = Math.max(-LIMIT, Math.min(LIMIT, theta[p] * rescale));
+            }
+            progress.iteration(k, gain, factor, score);
+        }
+        return round(theta);
+    }
+
+    /**
+     * Plays game pairs between two weight sets across the pool.
+     * @return the first set's share of the points
+     */
+    public double match(int[] first, int[] second, int pairs, Random random) throws InterruptedException, ExecutionException {
+        LineEvaluator a = new LineEvaluator(size, first);
+        LineEvaluator b = new LineEvaluator(size, second);
+        List<Callable<Integer>> tasks = new ArrayList<>(pairs);
+        for (int i = 0; i < pairs; i++) {
+            long seed = random.nextLong();
+            tasks.add(() -> playPair(a, b, seed));
+        }
+        long halfPoints = 0;
+        for (Future<Integer> future : pool.invokeAll(tasks)) {
+            halfPoints += future.get();
+        }
+        return halfPoints / (4.0 * pairs);
+    }
+
+    /**
+     * Plays one opening twice, {@code a} moving first in the first game.
+     * @return {@code a}'s half points, 0 to 4
+     */
+    private int playPair(LineEvaluator a, LineEvaluator b, long seed) {
+        Random random = new Random(seed);
+        Board opening = randomOpening(random);
+        int first = playGame(opening.copy(), a, b, random.nextLong());
+        return first + 2 - playGame(opening.copy(), b, a, random.nextLong());
+    }
+
+    private Board randomOpening(Random random) {
+        Board board = new Board(size);
+        for (int ply = 0; ply < openingPlies; ply++) {
+            long empty = board.emptyMask();
+            int skip = random.nextInt(Long.bitCount(empty));
+            for (int i = 0; i < skip; i++) empty &= empty - 1;
+            board.play(Long.numberOfTrailingZeros(empty));
+            if (board.isGameOver()) return randomOpening(random);
+        }
+        return board;
+    }
+
+    /** @return the half points of the side to move at the start, 0 to 2 */
+    private int playGame(Board board, LineEvaluator first, LineEvaluator second, long seed) {
+        EvaluationCache[] cache = caches.get();
+        cache[0].clear();
+        cache[1].clear();
+        Random random = new Random(seed);
+        Bot[] bots = {
+                new Bot(level, new Random(random.nextLong()), cache[0], first),
+                new Bot(level, new Random(random.nextLong()), cache[1], second)};
+        int starter = board.sideToMove();
+        for (int turn = 0; !board.isGameOver(); turn ^= 1) {
+            board.play(bots[turn].chooseMove(board));
+        }
+        int winner = board.winner();
+        return winner == 0 ? 1 : winner == starter ? 2 : 0;
+    }
+
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private static void save(int size, int[] weights, Path out, String settings, int iteration) throws IOException {
+        new LineEvaluator(size, weights).save(out,
+                "Tuned by SpsaTuner: " + settings, "after " + iteration + " iterations");
+    }
+
+    private static Difficulty level(String label) {
+        for (Difficulty d : Difficulty.values()) {
+            if (d.label().equalsIgnoreCase(label)) return d;
+        }
+        System.err.println("Unknown level: " + label);
+        System.exit(1);
+        return null;
+    }
+
+    private static double norm(double[] theta) {
+        double sum = 0;
+        for (double value : theta) sum += Math.abs(value);
+        return sum;
+    }
+
+    private static int clamp(long value) {
+        return (int) Math.max(-LIMIT, Math.min(LIMIT, value));
+    }
+
+    private static int[] round(double[] theta) {
+        int[] rounded = new int[theta.length];
+        for (int p = 0; p < theta.length; p++) rounded[p] = (int) Math.round(theta[p]);
+        return rounded;
+    }
+
+    private static String join(int[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (int value : values) {
+            if (sb.length() > 0) sb.append('\t');
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    private static double elo(double score) {
+        double s = Math.max(1e-3, Math.min(1 - 1e-3, score));
+        return -400 * Math.log10(1 / s - 1);
+    }
+}
@@ -0,0 +1,193 @@
+import java.awt.*;
+import java.awt.image.VolatileImage;
+import java.util.Random;
+
+/**
+ * Animated starfield behind the welcome screen. Stars are drawn into a
+ * {@link VolatileImage} back buffer, and each frame only the stars whose
+ * pixel position, size or brightness actually changed are erased and redrawn.
+ * The changed area is returned so the panel can repaint just that region.
+ *
+ * The stars shimmer all the time, so if every star were brought up to date
+ * on every frame, some star near each edge would change and the changed area
+ * would be nearly the whole panel. Instead the panel is split into horizontal
+ * bands and each frame brings only the stars in one band up to date: a star
+ * moves and shimmers at a quarter of the frame rate, and the changed area
+ * stays about a band high.
+ *
+ * Per frame there is no allocation and no {@code Math.sin}: star motion uses
+ * a sine lookup table and brightness uses a preallocated palette of alpha colors.
+ */
+public class StarfieldRenderer {
+    private static final int SINE_STEPS = 1024; // power of two so the index wraps with a mask
+    private static final float[] SINE = new float[SINE_STEPS];
+    private static final float STEPS_PER_RADIAN = (float) (SINE_STEPS / (2 * Math.PI));
+    private static final int ALPHA_LEVELS = 32;
+    private static final Color[] PALETTE = new Color[ALPHA_LEVELS];
+    private static final int BANDS = 4;
+
+    static {
+        for (int i = 0; i < SINE_STEPS; i++) {
+            SINE[i] = (float) Math.sin(i * 2 * Math.PI / SINE_STEPS);
+        }
+        for (int i = 0; i < ALPHA_LEVELS; i++) {
+            PALETTE[i] = new Color(255, 255, 255, 100 + i * 155 / (ALPHA_LEVELS - 1));
+        }
+    }
+
+    private final Color background;
+    private final float[] starX;
+    private final float[] starY;
+
+    // What each star looked like in the back buffer; size 0 means not drawn yet
+    private final int[] drawnX;
+    private final int[] drawnY;
+    private final int[] drawnSize;
+    private final int[] drawnLevel;
+
+    private VolatileImage buffer;
+    private boolean needsFullRedraw = true;
+    private int nextBand;
+    private final Rectangle dirty = new Rectangle();
+
+    public StarfieldRenderer(int count, Color background, Random random) {
+        this.background = background;
+        starX = new float[count];
+        starY = new float[count];
+        drawnX = new int[count];
+        drawnY = new int[count];
+        drawnSize = new int[count];
+        drawnLevel = new int[count];
+        for (int i = 0; i < count; i++) {
+            starX[i] = random.nextFloat();
+            starY[i] = random.nextFloat();
+        }
+    }
+
+    static float sin(float radians) {
+        return SINE[(int) (radians * STEPS_PER_RADIAN) & (SINE_STEPS - 1)];
+    }
+
+    static float cos(float radians) {
+        return SINE[((int) (radians * STEPS_PER_RADIAN) + SINE_STEPS / 4) & (SINE_STEPS - 1)];
+    }
+
+    /**
+     * Moves the stars to animation phase {@code phase} and updates the back buffer.
+     * @return the area of {@code c} that changed, or null if nothing did
+     */
+    public Rectangle update(Component c, float phase) {
+        int width = c.getWidth();
+        int height = c.getHeight();
+        if (width <= 0 || height <= 0) return null;
+        if (!prepareBuffer(c, width, height)) return new Rectangle(0, 0, width, height);
+
+        Graphics2D g = buffer.createGraphics();
+        try {
+            if (needsFullRedraw) {
+                g.setColor(background);
+                g.fillRect(0, 0, width, height);
+                java.util.Arrays.fill(drawnSize, 0);
+            }
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            int band = nextBand;
+            nextBand = (nextBand + 1) % BANDS;
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+            for (int i = 0; i < starX.length; i++) {
+                // By where the star was last drawn, so the changed area stays inside the band
+                if (!needsFullRedraw && drawnY[i] * BANDS / height != band) continue;
+                float shimmer = (sin(phase * 2f + i * 0.5f) + 1f) / 2f;
+                int size = (int) (shimmer * 2) + 1;
+                int level = (int) (shimmer * (ALPHA_LEVELS - 1));
+                float fx = (starX[i] * width + 20 * sin(phase * 0.1f + i * 0.1f)) % width;
+                float fy = (starY[i] * height + 20 * cos(phase * 0.08f + i * 0.15f)) % height;
+                if (fx < 0) fx += width;
+                if (fy < 0) fy += height;
+                int x = (int) fx;
+                int y = (int) fy;
+                if (drawnSize[i] == size && drawnX[i] == x && drawnY[i] == y && drawnLevel[i] == level) continue;
+
+                if (drawnSize[i] > 0) {
+                    // Antialiasing can touch one pixel beyond the oval, so erase with a margin
+                    g.setColor(background);
+                    g.fillRect(drawnX[i] - 1, drawnY[i] - 1, drawnSize[i] + 2, drawnSize[i] + 2);
+                    minX = Math.min(minX, drawnX[i] - 1);
+                    minY = Math.min(minY, drawnY[i] - 1);
+                    maxX = Math.max(maxX, drawnX[i] + drawnSize[i] + 1);
+                    maxY = Math.max(maxY, drawnY[i] + drawnSize[i] + 1);
+                }
+                g.setColor(PALETTE[level]);
+                g.fillOval(x, y, size, size);
+                minX = Math.min(minX, x - 1);
+                minY = Math.min(minY, y - 1);
+                maxX = Math.max(maxX, x + size + 1);
+                maxY = Math.max(maxY, y + size + 1);
+                drawnX[i] = x;
+                drawnY[i] = y;
+                drawnSize[i] = size;
+                drawnLevel[i] = level;
+            }
+            if (needsFullRedraw) {
+                needsFullRedraw = false;
+                dirty.setBounds(0, 0, width, height);
+                return dirty;
+            }
+            if (maxX < 0) return null;
+            dirty.setBounds(minX, minY, maxX - minX, maxY - minY);
+            return dirty;
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Copies the back buffer onto the panel. If the buffer is unavailable or
+     * its contents were lost, the next {@link #update} redraws it in full.
+     */
+    public void paint(Graphics g, Component c) {
+        if (buffer == null) return;
+        if (buffer.validate(c.getGraphicsConfiguration()) != VolatileImage.IMAGE_OK) {
+            needsFullRedraw = true;
+            return;
+        }
+        g.drawImage(buffer, 0, 0, null);
+        if (buffer.contentsLost()) needsFullRedraw = true;
+    }
+
+    /**
+     * Makes sure a back buffer of the right size exists.
+     * @return false if none can be created yet (e.g. the panel is not displayable)
+     */
+    private boolean prepareBuffer(Component c, int width, int height) {
+        if (buffer != null && (buffer.getWidth() != width || buffer.getHeight() != height)) {
+            buffer.flush();
+            buffer = null;
+        }
+        if (buffer == null) {
+            buffer = c.createVolatileImage(width, height);
+            if (buffer == null) return false;
+            needsFullRedraw = true;
+        }
+        int status = buffer.validate(c.getGraphicsConfiguration());
+        if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+            buffer.flush();
+            buffer = c.createVolatileImage(width, height);
+            if (buffer == null) return false;
+            needsFullRedraw = true;
+        } else if (status == VolatileImage.IMAGE_RESTORED) {
+            needsFullRedraw = true;
+        }
+        return true;
+    }
+
+    /**
+     * Releases the back buffer's video memory, e.g. while the panel is hidden.
+     */
+    public void release() {
+        if (buffer != null) {
+            buffer.flush();
+            buffer = null;
+        }
+        needsFullRedraw = true;
+    }
+}
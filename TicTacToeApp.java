@@ -3,11 +3,18 @@ import java.awt.*;
 import java.net.URL;
 import javax.sound.sampled.*;
 import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
 
 public class TicTacToeApp extends JFrame {
     private final CardLayout cardLayout = new CardLayout();
     private final JPanel mainPanel = new JPanel(cardLayout);
     private final Settings settings = new Settings();
+    // One game screen per board size, built the first time that size is played
+    private final Map<Integer, GamePanel> gamePanels = new HashMap<>();
+    private SimulPanel simulPanel;
+    private UltimatePanel ultimatePanel;
+    private QubicPanel qubicPanel;
     private Clip clip; // Optional: for music/sound control
 
     public TicTacToeApp() {
@@ -21,9 +28,18 @@ public class TicTacToeApp extends JFrame {
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
         setAppIcon("resources/my_icon.png");
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                // Keep the clock's last seconds too, and let the writes finish before the JVM exits
+                for (GamePanel panel : gamePanels.values()) {
+                    panel.saveSnapshot();
+                }
+                GameSnapshot.flush();
+            }
+        });
 
         mainPanel.add(new WelcomePanel(this), "Welcome");
-        mainPanel.add(new GamePanel(this), "Game");
         mainPanel.add(new SettingsPanel(this), "Settings");
 
         add(mainPanel);
@@ -45,13 +61,41 @@ public class TicTacToeApp extends JFrame {
     }
 
     /**
-     * Switches the current screen using CardLayout.
+     * Switches the current screen using CardLayout. "Game" shows the game
+     * screen for the board size currently selected in the settings; "Simul",
+     * "Ultimate" and "Qubic" are built the first time they are shown.
      * @param name name of the panel to show
      */
     public void showScreen(String name) {
+        if (name.equals("Game")) {
+            name = "Game" + gamePanel(settings.getBoardSize()).boardSize();
+        } else if (name.equals("Simul") && simulPanel == null) {
+            simulPanel = new SimulPanel(this);
+            mainPanel.add(simulPanel, "Simul");
+        } else if (name.equals("Ultimate") && ultimatePanel == null) {
+            ultimatePanel = new UltimatePanel(this);
+            mainPanel.add(ultimatePanel, "Ultimate");
+        } else if (name.equals("Qubic") && qubicPanel == null) {
+            qubicPanel = new QubicPanel(this);
+            mainPanel.add(qubicPanel, "Qubic");
+        }
         cardLayout.show(mainPanel, name);
     }
 
+    /**
+     * Returns the game screen for a board size, building it on first use.
+     * Fonts and sounds are shared between sizes through {@link GameResources}.
+     * @param size board size
+     * @return the pooled GamePanel for that size
+     */
+    private GamePanel gamePanel(int size) {
+        return gamePanels.computeIfAbsent(size, s -> {
+            GamePanel panel = new GamePanel(this, s);
+            mainPanel.add(panel, "Game" + s);
+            return panel;
+        });
+    }
+
     /**
      * Returns the current settings object used across screens.
      * @return Settings instance
@@ -0,0 +1,63 @@
+/**
+ * Chess-style time controls for a game. A control has a starting time per
+ * player, an increment added after each move, and an optional limit on a
+ * single move; a player whose clock or move time runs out loses on time.
+ */
+public enum TimeControl {
+    UNTIMED("Untimed", 0, 0, 0),
+    BLITZ_3_0("Blitz 3+0", 180_000, 0, 0),
+    BLITZ_3_2("Blitz 3+2", 180_000, 2_000, 0),
+    RAPID_10_5("Rapid 10+5", 600_000, 5_000, 0),
+    MOVE_10S("10 s per move", 0, 0, 10_000);
+
+    private final String label;
+    private final long initialMillis;
+    private final long incrementMillis;
+    private final long moveLimitMillis;
+
+    TimeControl(String label, long initialMillis, long incrementMillis, long moveLimitMillis) {
+        this.label = label;
+        this.initialMillis = initialMillis;
+        this.incrementMillis = incrementMillis;
+        this.moveLimitMillis = moveLimitMillis;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /** Starting time on each player's clock, 0 for no game clock. */
+    public long initialMillis() {
+        return initialMillis;
+    }
+
+    /** Time added to a player's clock after each of their moves. */
+    public long incrementMillis() {
+        return incrementMillis;
+    }
+
+    /** Longest a single move may take, 0 for no limit. */
+    public long moveLimitMillis() {
+        return moveLimitMillis;
+    }
+
+    public boolean isTimed() {
+        return initialMillis > 0 || moveLimitMillis > 0;
+    }
+
+    /**
+     * Looks a control up by its label as stored in the settings database.
+     * Unknown or missing labels fall back to {@link #UNTIMED}.
+     */
+    public static TimeControl fromLabel(String label) {
+        for (TimeControl t : values()) {
+            if (t.label.equals(label)) return t;
+        }
+        return UNTIMED;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
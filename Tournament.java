@@ -0,0 +1,142 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless round-robin between engines found through {@link Engines}. Every
+ * pair plays the same number of games, in pairs from a shared random opening
+ * move with colours swapped, and each engine gets a fixed time per move.
+ * Each game is played by a {@link MatchRunner}, with engines created fresh.
+ *
+ * Games run in parallel; with more threads than cores the engines compete
+ * for the CPU and searches that stop on time see fewer nodes.
+ *
+ * Usage: {@code java Tournament [--size N] [--games N] [--ms N] [--threads N] [engines...]},
+ * e.g. {@code java Tournament --size 4 --games 40 --ms 50 Hard Perfect Greedy}.
+ * Without engine names every available engine takes part.
+ */
+public class Tournament {
+    private final int size;
+    private final MatchRunner runner;
+    private final Map<String, Standing> standings = new LinkedHashMap<>();
+
+    public Tournament(int size, long moveBudgetNanos, List<String> engines) {
+        this.size = size;
+        this.runner = new MatchRunner(size, moveBudgetNanos);
+        for (String name : engines) {
+            standings.put(name, new Standing(name));
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int size = 3;
+        int games = 20;
+        long millis = 100;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> engines = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size": size = Integer.parseInt(args[++i]); break;
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--ms": millis = Long.parseLong(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                default: engines.add(args[i]);
+            }
+        }
+        if (engines.isEmpty()) engines.addAll(Engines.names());
+        for (String name : engines) {
+            if (!Engines.exists(name)) {
+                System.err.println("Unknown engine: " + name + " (available: " + Engines.names() + ")");
+                System.exit(1);
+            }
+        }
+
+        Tournament tournament = new Tournament(size, millis <= 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(millis), engines);
+        long start = System.nanoTime();
+        int played = tournament.play(games, threads, new Random(42));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("== %dx%d round robin, %d games per pairing, %s per move ==%n",
+                size, size, games, millis <= 0 ? "no limit" : millis + " ms");
+        tournament.printStandings();
+        System.out.printf("%d games in %.1f s%n", played, seconds);
+    }
+
+    /**
+     * Plays every pairing {@code games} times.
+     * @return the number of games played
+     */
+    public int play(int games, int threads, Random random) throws InterruptedException, ExecutionException {
+        List<String> names = new ArrayList<>(standings.keySet());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<MatchRunner.GameResult>> results = new ArrayList<>();
+        try {
+            for (int a = 0; a < names.size(); a++) {
+                for (int b = a + 1; b < names.size(); b++) {
+                    int opening = 0;
+                    for (int g = 0; g < games; g++) {
+                        if (g % 2 == 0) opening = random.nextInt(size * size);
+                        String x = g % 2 == 0 ? names.get(a) : names.get(b);
+                        String o = g % 2 == 0 ? names.get(b) : names.get(a);
+                        int firstMove = opening;
+                        long seed = random.nextLong();
+                        results.add(pool.submit(() -> runner.playGame(x, o, firstMove, seed)));
+                    }
+                }
+            }
+            for (Future<MatchRunner.GameResult> future : results) {
+                MatchRunner.GameResult result = future.get();
+                standings.get(result.x).add(result, Board.X);
+                standings.get(result.o).add(result, Board.O);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return results.size();
+    }
+
+    public void printStandings() {
+        List<Standing> table = new ArrayList<>(standings.values());
+        table.sort((p, q) -> Double.compare(q.points(), p.points()));
+        System.out.printf("%-10s %6s %5s %5s %5s %7s %10s %12s%n",
+                "Engine", "Games", "W", "D", "L", "Score%", "ms/move", "nodes/move");
+        for (Standing s : table) {
+            System.out.printf("%-10s %6d %5d %5d %5d %7.1f %10.3f %12d%n", s.name, s.games(),
+                    s.wins, s.draws, s.losses, s.games() == 0 ? 0 : 100 * s.points() / s.games(),
+                    s.moves == 0 ? 0 : s.thinkNanos / 1e6 / s.moves, s.moves == 0 ? 0 : s.nodes / s.moves);
+        }
+    }
+
+    private static final class Standing {
+        final String name;
+        int wins, draws, losses;
+        long thinkNanos, nodes, moves;
+
+        Standing(String name) {
+            this.name = name;
+        }
+
+        void add(MatchRunner.GameResult result, int side) {
+            if (result.winner == 0) draws++;
+            else if (result.winner == side) wins++;
+            else losses++;
+            thinkNanos += result.thinkNanos[side];
+            nodes += result.nodes[side];
+            moves += result.moves[side];
+        }
+
+        int games() {
+            return wins + draws + losses;
+        }
+
+        double points() {
+            return wins + draws / 2.0;
+        }
+    }
+}
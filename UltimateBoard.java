@@ -0,0 +1,208 @@
+/**
+ * Ultimate tic-tac-toe: a 3x3 grid of 3x3 boards. A move is
+ * {@code board * 9 + cell}, and the cell played decides which board the
+ * opponent must play in next, unless that board is already closed (won or
+ * full), in which case any open board will do. Winning a small board claims
+ * that square of the big board; three claimed squares in a line win.
+ *
+ * Each small board is a 9-bit mask per player, and the big board is the same
+ * again, so every win check is one lookup in the 512-entry {@link #WINS}
+ * table. {@link #play} and {@link #undo} are O(1) and allocation-free, and
+ * {@link #moves} fills a caller-supplied array, which is what the search in
+ * {@link UltimateBot} relies on.
+ */
+public class UltimateBoard {
+    public static final int X = Board.X;
+    public static final int O = Board.O;
+    public static final int ANY = -1;
+    public static final int CELLS = 81;
+
+    /** WINS[mask] is true if the 9-bit mask contains a row, column or diagonal. */
+    static final boolean[] WINS = new boolean[512];
+    private static final int[] LINES = {0x007, 0x038, 0x1C0, 0x049, 0x092, 0x124, 0x111, 0x054};
+    private static final int FULL = 0x1FF;
+
+    static {
+        for (int mask = 0; mask < 512; mask++) {
+            for (int line : LINES) {
+                if ((mask & line) == line) WINS[mask] = true;
+            }
+        }
+    }
+
+    private final int[] x = new int[9];
+    private final int[] o = new int[9];
+    private int xBig;
+    private int oBig;
+    private int closed;   // boards won by either side or full
+    private int forced = ANY;
+    private int moveCount;
+    private int winner;
+    private final int[] forcedHistory = new int[CELLS];
+
+    public UltimateBoard copy() {
+        UltimateBoard copy = new UltimateBoard();
+        System.arraycopy(x, 0, copy.x, 0, 9);
+        System.arraycopy(o, 0, copy.o, 0, 9);
+        copy.xBig = xBig;
+        copy.oBig = oBig;
+        copy.closed = closed;
+        copy.forced = forced;
+        copy.moveCount = moveCount;
+        copy.winner = winner;
+        System.arraycopy(forcedHistory, 0, copy.forcedHistory, 0, moveCount);
+        return copy;
+    }
+
+    public int sideToMove() {
+        return (moveCount & 1) == 0 ? X : O;
+    }
+
+    public int moveCount() {
+        return moveCount;
+    }
+
+    /** The board the side to move must play in, or {@link #ANY}. */
+    public int forcedBoard() {
+        return forced;
+    }
+
+    public int get(int move) {
+        int bit = 1 << move % 9;
+        if ((x[move / 9] & bit) != 0) return X;
+        if ((o[move / 9] & bit) != 0) return O;
+        return 0;
+    }
+
+    /** X or O if that side has won small board {@code board}, otherwise 0. */
+    public int boardWinner(int board) {
+        if ((xBig >> board & 1) != 0) return X;
+        if ((oBig >> board & 1) != 0) return O;
+        return 0;
+    }
+
+    public boolean isClosed(int board) {
+        return (closed >> board & 1) != 0;
+    }
+
+    int xMask(int board) {
+        return x[board];
+    }
+
+    int oMask(int board) {
+        return o[board];
+    }
+
+    int xBig() {
+        return xBig;
+    }
+
+    int oBig() {
+        return oBig;
+    }
+
+    int closedMask() {
+        return closed;
+    }
+
+    /** X or O once a side has three boards in a line, otherwise 0. */
+    public int winner() {
+        return winner;
+    }
+
+    public boolean isGameOver() {
+        return winner != 0 || closed == FULL;
+    }
+
+    public boolean isLegal(int move) {
+        if (move < 0 || move >= CELLS || isGameOver()) return false;
+        int board = move / 9;
+        if (forced != ANY && board != forced) return false;
+        return !isClosed(board) && ((x[board] | o[board]) >> move % 9 & 1) == 0;
+    }
+
+    /**
+     * Writes the legal moves into {@code out}.
+     * @return how many there are
+     */
+    public int moves(int[] out) {
+        if (isGameOver()) return 0;
+        int n = 0;
+        int boards = forced == ANY ? ~closed & FULL : 1 << forced;
+        while (boards != 0) {
+            int board = Integer.numberOfTrailingZeros(boards);
+            boards &= boards - 1;
+            int empty = ~(x[board] | o[board]) & FULL;
+            while (empty != 0) {
+                out[n++] = board * 9 + Integer.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Plays {@code move} for the side to move. The caller checks {@link #isLegal}.
+     */
+    public void play(int move) {
+        int board = move / 9;
+        int bit = 1 << move % 9;
+        forcedHistory[moveCount] = forced;
+        if ((moveCount & 1) == 0) {
+            int mask = x[board] |= bit;
+            if (WINS[mask]) {
+                xBig |= 1 << board;
+                closed |= 1 << board;
+                if (WINS[xBig]) winner = X;
+            } else if ((mask | o[board]) == FULL) {
+                closed |= 1 << board;
+            }
+        } else {
+            int mask = o[board] |= bit;
+            if (WINS[mask]) {
+                oBig |= 1 << board;
+                closed |= 1 << board;
+                if (WINS[oBig]) winner = O;
+            } else if ((mask | x[board]) == FULL) {
+                closed |= 1 << board;
+            }
+        }
+        int next = move % 9;
+        forced = (closed >> next & 1) != 0 ? ANY : next;
+        moveCount++;
+    }
+
+    /**
+     * Takes back the last move, which must have been {@code move}.
+     */
+    public void undo(int move) {
+        moveCount--;
+        int board = move / 9;
+        int bit = ~(1 << move % 9);
+        if ((moveCount & 1) == 0) {
+            x[board] &= bit;
+            xBig &= ~(1 << board);
+        } else {
+            o[board] &= bit;
+            oBig &= ~(1 << board);
+        }
+        // The board was open before this move, since moves are only legal there
+        closed &= ~(1 << board);
+        winner = 0;
+        forced = forcedHistory[moveCount];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                int v = get((row / 3 * 3 + col / 3) * 9 + row % 3 * 3 + col % 3);
+                sb.append(v == X ? 'X' : v == O ? 'O' : '.');
+                if (col % 3 == 2 && col != 8) sb.append(' ');
+            }
+            if (row != 8) sb.append('/');
+        }
+        return sb.toString();
+    }
+}
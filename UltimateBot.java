@@ -0,0 +1,220 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alpha-beta bot for {@link UltimateBoard}. Iterative deepening within a
+ * time budget, moves ordered by the previous iteration's best move and a
+ * history table, and a static evaluation read from precomputed tables: each
+ * small board is scored by one lookup on its two 9-bit masks, and the big
+ * board by the same table with drawn boards blocking both sides.
+ *
+ * The search allocates nothing: moves go into per-ply arrays made up front
+ * and positions are walked with {@link UltimateBoard#play}/{@link UltimateBoard#undo}.
+ *
+ * {@code java UltimateBot [seconds]} checks move generation against known
+ * perft counts and measures search speed from the opening.
+ */
+public class UltimateBot {
+    public static final int WIN = 1_000_000;
+    public static final int WIN_THRESHOLD = WIN - 1000;
+
+    private static final int MAX_PLY = UltimateBoard.CELLS + 1;
+    private static final int BIG_WEIGHT = 24;
+    private static final int[] BOARD_WEIGHT = {3, 2, 3, 2, 4, 2, 3, 2, 3};
+    private static final int[] LINES = {0x007, 0x038, 0x1C0, 0x049, 0x092, 0x124, 0x111, 0x054};
+
+    /** POTENTIAL[own << 9 | opp]: how close {@code own} is to a line {@code opp} has not blocked. */
+    private static final short[] POTENTIAL = new short[1 << 18];
+
+    static {
+        for (int own = 0; own < 512; own++) {
+            for (int opp = 0; opp < 512; opp++) {
+                if ((own & opp) != 0) continue;
+                int score = 0;
+                for (int line : LINES) {
+                    if ((opp & line) != 0) continue;
+                    int count = Integer.bitCount(own & line);
+                    score += count == 3 ? 100 : count == 2 ? 8 : count;
+                }
+                POTENTIAL[own << 9 | opp] = (short) score;
+            }
+        }
+    }
+
+    private final Random random;
+    private final int[][] moves = new int[MAX_PLY][UltimateBoard.CELLS];
+    private final int[][] history = new int[3][UltimateBoard.CELLS];
+    private long deadline;
+    private boolean aborted;
+    private long nodes;
+    private int lastDepth;
+
+    public UltimateBot(Random random) {
+        this.random = random;
+    }
+
+    public long lastNodes() {
+        return nodes;
+    }
+
+    public int lastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * Picks a move for the side to move, searching until {@code timeBudgetNanos}
+     * runs out or the result is proven.
+     * @return the move, or -1 if the game is over
+     */
+    public int chooseMove(UltimateBoard board, long timeBudgetNanos) {
+        long start = System.nanoTime();
+        deadline = timeBudgetNanos >= Long.MAX_VALUE - start ? Long.MAX_VALUE : start + timeBudgetNanos;
+        aborted = false;
+        nodes = 0;
+        lastDepth = 0;
+        for (int[] row : history) Arrays.fill(row, 0);
+
+        UltimateBoard position = board.copy();
+        int[] root = moves[0];
+        int count = position.moves(root);
+        if (count == 0) return -1;
+        // Shuffle so equal moves vary from game to game
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = root[i];
+            root[i] = root[j];
+            root[j] = t;
+        }
+        int best = root[0];
+        for (int depth = 1; depth < MAX_PLY - position.moveCount(); depth++) {
+            int alpha = -WIN - 1;
+            int bestThisDepth = -1;
+            for (int i = 0; i < count; i++) {
+                int move = root[i];
+                position.play(move);
+                int score = -search(position, depth - 1, -WIN - 1, -alpha, 1);
+                position.undo(move);
+                if (aborted) break;
+                if (score > alpha) {
+                    alpha = score;
+                    bestThisDepth = move;
+                    // Keep the best move first for the next iteration
+                    System.arraycopy(root, 0, root, 1, i);
+                    root[0] = move;
+                }
+            }
+            if (bestThisDepth >= 0) best = bestThisDepth;
+            if (aborted) break;
+            lastDepth = depth;
+            if (Math.abs(alpha) > WIN_THRESHOLD) break;
+        }
+        return best;
+    }
+
+    private int search(UltimateBoard board, int depth, int alpha, int beta, int ply) {
+        if ((++nodes & 4095) == 0 && System.nanoTime() > deadline) aborted = true;
+        if (aborted) return 0;
+        if (board.winner() != 0) return -WIN + ply; // the previous move won
+        if (board.isGameOver()) return 0;
+        if (depth == 0) return evaluate(board);
+
+        int[] list = moves[ply];
+        int count = board.moves(list);
+        int[] scores = history[board.sideToMove()];
+        // Insertion sort by history score; lists are short
+        for (int i = 1; i < count; i++) {
+            int move = list[i];
+            int j = i - 1;
+            while (j >= 0 && scores[list[j]] < scores[move]) {
+                list[j + 1] = list[j];
+                j--;
+            }
+            list[j + 1] = move;
+        }
+        int best = -WIN - 1;
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            board.play(move);
+            int score = -search(board, depth - 1, -beta, -alpha, ply + 1);
+            board.undo(move);
+            if (aborted) return 0;
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        scores[move] += depth * depth;
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Static score from the side to move's point of view.
+     */
+    static int evaluate(UltimateBoard board) {
+        int xBig = board.xBig(), oBig = board.oBig();
+        int drawn = board.closedMask() & ~(xBig | oBig);
+        int score = BIG_WEIGHT * (POTENTIAL[xBig << 9 | (oBig | drawn)] - POTENTIAL[oBig << 9 | (xBig | drawn)]);
+        int open = ~board.closedMask() & 0x1FF;
+        while (open != 0) {
+            int b = Integer.numberOfTrailingZeros(open);
+            open &= open - 1;
+            int x = board.xMask(b), o = board.oMask(b);
+            score += BOARD_WEIGHT[b] * (POTENTIAL[x << 9 | o] - POTENTIAL[o << 9 | x]);
+        }
+        if (board.sideToMove() == UltimateBoard.O) score = -score;
+        // Choosing the board is worth a little to whoever gets to
+        if (board.forcedBoard() == UltimateBoard.ANY) score += 10;
+        return score;
+    }
+
+    static long perft(UltimateBoard board, int depth, int[][] lists) {
+        if (depth == 0) return 1;
+        int[] list = lists[depth];
+        int count = board.moves(list);
+        if (depth == 1) return count;
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            board.play(list[i]);
+            total += perft(board, depth - 1, lists);
+            board.undo(list[i]);
+        }
+        return total;
+    }
+
+    public static void main(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+        int[][] lists = new int[8][UltimateBoard.CELLS];
+        long[] expected = {1, 81, 720, 6336, 55080, 473256, 4020960};
+        for (int depth = 1; depth < expected.length; depth++) {
+            long start = System.nanoTime();
+            long count = perft(new UltimateBoard(), depth, lists);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.printf("perft(%d) = %d %s (%.0f M moves/s)%n", depth, count,
+                    count == expected[depth] ? "ok" : "EXPECTED " + expected[depth], count / elapsed / 1e6);
+        }
+
+        UltimateBot bot = new UltimateBot(new Random(1));
+        UltimateBoard board = new UltimateBoard();
+        long totalNodes = 0, totalNanos = 0;
+        while (!board.isGameOver()) {
+            long start = System.nanoTime();
+            int move = bot.chooseMove(board, (long) (seconds * 1e9 / 10));
+            totalNanos += System.nanoTime() - start;
+            totalNodes += bot.lastNodes();
+            board.play(move);
+        }
+        System.out.printf("Self-play game: %d moves, winner %s, %.2f M nodes/s on one thread%n", board.moveCount(),
+                board.winner() == 0 ? "none" : board.winner() == UltimateBoard.X ? "X" : "O",
+                totalNodes / (totalNanos / 1e9) / 1e6);
+        System.out.println("Final position: " + board);
+        long budget = TimeUnit.MILLISECONDS.toNanos((long) (seconds * 1000));
+        bot.chooseMove(new UltimateBoard(), budget);
+        System.out.printf("From the opening in %.1f s: depth %d, %d nodes%n", seconds, bot.lastDepth(), bot.lastNodes());
+    }
+}
@@ -0,0 +1,190 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntSupplier;
+
+/**
+ * Ultimate tic-tac-toe screen. In single-player mode the human is X and
+ * {@link UltimateBot} answers as O; in multiplayer both sides click. The
+ * 81 cells are painted by one component, with the boards the side to move
+ * may play in highlighted and won boards covered by a large mark.
+ */
+public class UltimatePanel extends VariantPanel {
+    private static final ExecutorService BOT_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ultimate-bot");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final long BOT_MILLIS = 700;
+    private static final Color ALLOWED = new Color(45, 40, 85);
+
+    private final UltimateBot bot = new UltimateBot(new Random()); // only touched on the bot thread
+    private UltimateBoard board = new UltimateBoard();
+    private final BoardView view = new BoardView();
+
+    public UltimatePanel(TicTacToeApp app) {
+        super(app, BOT_EXECUTOR, BOT_MILLIS);
+        add(view, BorderLayout.CENTER);
+        updateStatus();
+    }
+
+    @Override
+    protected void clearBoard() {
+        board = new UltimateBoard();
+    }
+
+    @Override
+    protected boolean isLegal(int move) {
+        return board.isLegal(move);
+    }
+
+    @Override
+    protected void play(int move) {
+        board.play(move);
+    }
+
+    @Override
+    protected int sideToMove() {
+        return board.sideToMove();
+    }
+
+    @Override
+    protected int winner() {
+        return board.winner();
+    }
+
+    @Override
+    protected boolean isGameOver() {
+        return board.isGameOver();
+    }
+
+    @Override
+    protected String turnDetail() {
+        int forced = board.forcedBoard();
+        return forced == UltimateBoard.ANY ? "any board" : "board " + (forced + 1);
+    }
+
+    @Override
+    protected IntSupplier botSearch(long budgetNanos) {
+        UltimateBoard position = board.copy();
+        return () -> bot.chooseMove(position, budgetNanos);
+    }
+
+    @Override
+    protected long botNodes() {
+        return bot.lastNodes();
+    }
+
+    /**
+     * The 9x9 grid. Cell {@code board * 9 + cell} sits at row
+     * {@code board / 3 * 3 + cell / 3}, column {@code board % 3 * 3 + cell % 3}.
+     */
+    private final class BoardView extends JComponent {
+        private int hover = -1;
+
+        BoardView() {
+            MouseAdapter mouse = new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    int move = moveAt(e.getX(), e.getY());
+                    if (move >= 0) cellClicked(move);
+                }
+
+                @Override
+                public void mouseMoved(MouseEvent e) {
+                    int move = moveAt(e.getX(), e.getY());
+                    if (move != hover) {
+                        hover = move;
+                        repaint();
+                    }
+                }
+
+                @Override
+                public void mouseExited(MouseEvent e) {
+                    hover = -1;
+                    repaint();
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+        }
+
+        private int cellSize() {
+            return Math.max(10, (Math.min(getWidth(), getHeight()) - 20) / 9);
+        }
+
+        private int originX() {
+            return (getWidth() - cellSize() * 9) / 2;
+        }
+
+        private int originY() {
+            return (getHeight() - cellSize() * 9) / 2;
+        }
+
+        private int moveAt(int px, int py) {
+            int cell = cellSize();
+            int col = (px - originX()) / cell, row = (py - originY()) / cell;
+            if (px < originX() || py < originY() || col > 8 || row > 8) return -1;
+            return (row / 3 * 3 + col / 3) * 9 + row % 3 * 3 + col % 3;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setColor(BACKGROUND_DARK);
+            g2.fillRect(0, 0, getWidth(), getHeight());
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            int cell = cellSize();
+            int x0 = originX(), y0 = originY();
+            int inset = Math.max(3, cell / 5);
+            boolean humanToMove = humanToMove();
+            int forced = board.forcedBoard();
+
+            g2.setStroke(new BasicStroke(Math.max(2f, cell / 12f), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            for (int move = 0; move < UltimateBoard.CELLS; move++) {
+                int b = move / 9, c = move % 9;
+                int x = x0 + (b % 3 * 3 + c % 3) * cell;
+                int y = y0 + (b / 3 * 3 + c / 3) * cell;
+                boolean allowed = !board.isGameOver() && !board.isClosed(b) && (forced == UltimateBoard.ANY || forced == b);
+                g2.setColor(move == hover && humanToMove && board.isLegal(move) ? RETRO_PURPLE.darker()
+                        : allowed ? ALLOWED : CARD_BACKGROUND);
+                g2.fillRect(x + 1, y + 1, cell - 2, cell - 2);
+                int mark = board.get(move);
+                if (mark == UltimateBoard.X) {
+                    g2.setColor(move == lastMove ? PIXEL_WHITE : NEON_BLUE);
+                    g2.drawLine(x + inset, y + inset, x + cell - inset, y + cell - inset);
+                    g2.drawLine(x + cell - inset, y + inset, x + inset, y + cell - inset);
+                } else if (mark == UltimateBoard.O) {
+                    g2.setColor(move == lastMove ? PIXEL_WHITE : NEON_PINK);
+                    g2.drawOval(x + inset, y + inset, cell - 2 * inset, cell - 2 * inset);
+                }
+            }
+
+            // Frames around the small boards, then big marks over the won ones
+            int big = cell * 3;
+            for (int b = 0; b < 9; b++) {
+                int x = x0 + b % 3 * big, y = y0 + b / 3 * big;
+                boolean allowed = !board.isGameOver() && !board.isClosed(b) && (forced == UltimateBoard.ANY || forced == b);
+                g2.setStroke(new BasicStroke(allowed ? 4f : 2f));
+                g2.setColor(allowed ? NEON_YELLOW : RETRO_PURPLE);
+                g2.drawRect(x + 2, y + 2, big - 4, big - 4);
+                int winner = board.boardWinner(b);
+                if (winner != 0) {
+                    int pad = big / 6;
+                    g2.setStroke(new BasicStroke(Math.max(4f, big / 14f), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+                    g2.setColor(winner == UltimateBoard.X ? NEON_BLUE : NEON_PINK);
+                    if (winner == UltimateBoard.X) {
+                        g2.drawLine(x + pad, y + pad, x + big - pad, y + big - pad);
+                        g2.drawLine(x + big - pad, y + pad, x + pad, y + big - pad);
+                    } else {
+                        g2.drawOval(x + pad, y + pad, big - 2 * pad, big - 2 * pad);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+import javax.swing.*;
+import javax.swing.border.Border;
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import javax.sound.sampled.Clip;
+
+/**
+ * What the screens for the other board games have in common: the status
+ * line with NEW GAME and HOME buttons, and a bot that answers as O in
+ * single-player mode. Subclasses hold the board, add a component that
+ * paints it to the centre, and call {@link #cellClicked} when a cell is
+ * clicked.
+ */
+abstract class VariantPanel extends JPanel {
+    protected static final Color BACKGROUND_DARK = new Color(15, 12, 28);
+    protected static final Color CARD_BACKGROUND = new Color(33, 29, 55);
+    protected static final Color NEON_BLUE = new Color(0, 255, 255);
+    protected static final Color NEON_PINK = new Color(255, 20, 147);
+    protected static final Color NEON_GREEN = new Color(0, 255, 127);
+    protected static final Color NEON_YELLOW = new Color(255, 255, 0);
+    protected static final Color PIXEL_WHITE = new Color(255, 255, 255);
+    protected static final Color RETRO_PURPLE = new Color(138, 43, 226);
+
+    protected final GameResources resources;
+    private final Settings settings;
+    private final ExecutorService botExecutor;
+    private final long botNanos;
+    private final JLabel statusLabel;
+    /** The last move played, drawn highlighted; -1 at the start. */
+    protected int lastMove = -1;
+    protected boolean botThinking;
+    private int gameGeneration = 0;
+
+    /**
+     * @param botExecutor the thread the bot searches on
+     * @param botMillis   the bot's time per move
+     */
+    protected VariantPanel(TicTacToeApp app, ExecutorService botExecutor, long botMillis) {
+        this.resources = GameResources.get();
+        this.settings = app.getSettings();
+        this.botExecutor = botExecutor;
+        this.botNanos = TimeUnit.MILLISECONDS.toNanos(botMillis);
+        setLayout(new BorderLayout(10, 10));
+        setBackground(BACKGROUND_DARK);
+        setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(NEON_BLUE, 1),
+                BorderFactory.createEmptyBorder(10, 10, 10, 10)
+        ));
+        statusLabel = new JLabel("", JLabel.CENTER);
+        add(createTopPanel(app), BorderLayout.NORTH);
+
+        // A bot reply arriving while another screen is shown still lands; this only resumes a pending one
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && isShowing()) {
+                scheduleBotMove();
+            }
+        });
+    }
+
+    /** Replaces the board with a fresh one. */
+    protected abstract void clearBoard();
+
+    protected abstract boolean isLegal(int move);
+
+    protected abstract void play(int move);
+
+    protected abstract int sideToMove();
+
+    /** {@link Board#X}, {@link Board#O}, or 0 while nobody has won. */
+    protected abstract int winner();
+
+    protected abstract boolean isGameOver();
+
+    /** What the status line says after whose turn it is, e.g. the move number. */
+    protected abstract String turnDetail();
+
+    /**
+     * Called on the EDT; returns the search to run on the bot thread, over a
+     * copy of the position.
+     */
+    protected abstract IntSupplier botSearch(long budgetNanos);
+
+    /** Nodes of the bot's last search, read on the bot thread. */
+    protected abstract long botNodes();
+
+    private JPanel createTopPanel(TicTacToeApp app) {
+        JPanel topPanel = new JPanel(new BorderLayout(10, 0));
+        topPanel.setBackground(BACKGROUND_DARK);
+
+        statusLabel.setFont(resources.pixelFont());
+        statusLabel.setForeground(PIXEL_WHITE);
+        statusLabel.setOpaque(true);
+        statusLabel.setBackground(CARD_BACKGROUND);
+        Border innerBorder = BorderFactory.createLineBorder(NEON_BLUE, 2);
+        Border outerBorder = BorderFactory.createEmptyBorder(5, 8, 5, 8);
+        statusLabel.setBorder(BorderFactory.createCompoundBorder(outerBorder, innerBorder));
+        topPanel.add(statusLabel, BorderLayout.CENTER);
+
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        controlPanel.setBackground(BACKGROUND_DARK);
+
+        JButton restartButton = createStyledButton("NEW GAME", NEON_GREEN);
+        restartButton.addActionListener(e -> resetGame());
+        controlPanel.add(restartButton);
+
+        JButton homeButton = createStyledButton("HOME", RETRO_PURPLE);
+        homeButton.addActionListener(e -> app.showScreen("Welcome"));
+        controlPanel.add(homeButton);
+
+        topPanel.add(controlPanel, BorderLayout.EAST);
+        return topPanel;
+    }
+
+    private JButton createStyledButton(String text, Color accentColor) {
+        JButton button = new JButton(text);
+        button.setFont(resources.headerFont());
+        button.setForeground(PIXEL_WHITE);
+        button.setBackground(CARD_BACKGROUND);
+        button.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(accentColor, 2),
+                BorderFactory.createEmptyBorder(8, 16, 8, 16)
+        ));
+        button.setFocusPainted(false);
+        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
+
+        button.addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseEntered(java.awt.event.MouseEvent e) {
+                button.setBackground(accentColor.darker());
+                playClip(resources.hoverSound());
+            }
+
+            @Override
+            public void mouseExited(java.awt.event.MouseEvent e) {
+                button.setBackground(CARD_BACKGROUND);
+            }
+        });
+
+        return button;
+    }
+
+    private void resetGame() {
+        clearBoard();
+        lastMove = -1;
+        botThinking = false;
+        gameGeneration++;
+        updateStatus();
+        repaint();
+    }
+
+    protected boolean isBotTurn() {
+        return settings.getMode().equals("Singleplayer") && sideToMove() == Board.O;
+    }
+
+    /** True when a click on the board would be played. */
+    protected boolean humanToMove() {
+        return !isGameOver() && !botThinking && !isBotTurn();
+    }
+
+    protected void cellClicked(int move) {
+        if (botThinking || isBotTurn() || !isLegal(move)) return;
+        playClip(resources.humanMoveSound());
+        makeMove(move);
+    }
+
+    private void makeMove(int move) {
+        play(move);
+        lastMove = move;
+        updateStatus();
+        repaint();
+        scheduleBotMove();
+    }
+
+    /**
+     * Searches the bot's reply on the bot thread and plays it on the EDT,
+     * unless a new game was started in the meantime.
+     */
+    private void scheduleBotMove() {
+        if (botThinking || isGameOver() || !isBotTurn()) return;
+        botThinking = true;
+        updateStatus();
+        IntSupplier search = botSearch(botNanos);
+        int generation = gameGeneration;
+        botExecutor.execute(() -> {
+            long start = System.nanoTime();
+            int move = search.getAsInt();
+            Metrics.botMoved(System.nanoTime() - start, botNodes());
+            SwingUtilities.invokeLater(() -> {
+                if (generation != gameGeneration) return;
+                botThinking = false;
+                if (move < 0) return;
+                playClip(resources.botMoveSound());
+                makeMove(move);
+            });
+        });
+    }
+
+    protected void updateStatus() {
+        if (winner() != 0) {
+            statusLabel.setText((winner() == Board.X ? "X" : "O") + " WINS!");
+            statusLabel.setForeground(NEON_GREEN);
+        } else if (isGameOver()) {
+            statusLabel.setText("DRAW GAME!");
+            statusLabel.setForeground(NEON_YELLOW);
+        } else if (botThinking) {
+            statusLabel.setText("BOT IS THINKING...");
+            statusLabel.setForeground(NEON_PINK);
+        } else {
+            boolean x = sideToMove() == Board.X;
+            statusLabel.setText((x ? "X" : "O") + "'s Turn - " + turnDetail());
+            statusLabel.setForeground(x ? NEON_BLUE : NEON_PINK);
+        }
+    }
+
+    private void playClip(Clip clip) {
+        if (clip == null) return;
+        long start = System.nanoTime();
+        clip.stop();
+        clip.setFramePosition(0);
+        clip.start();
+        Metrics.AUDIO_TRIGGER.recordSince(start);
+    }
+}
@@ -1,7 +1,7 @@
 import javax.swing.*;
 import javax.swing.border.Border;
 import java.awt.*;
-import java.awt.geom.Point2D;
+import java.awt.event.HierarchyEvent;
 import java.util.Random;
 import java.io.File; // Required for loading audio files
 import java.io.IOException; // Required for audio file operations
@@ -17,6 +17,7 @@ public class WelcomePanel extends JPanel {
     private static final Color BACKGROUND_DARK = new Color(15, 12, 28);
     private static final Color CARD_BACKGROUND = new Color(33, 29, 55);
     private static final Color NEON_BLUE = new Color(0, 255, 255);
+    private static final Color NEON_GREEN = new Color(0, 255, 127);
     private static final Color NEON_PINK = new Color(255, 20, 147);
     private static final Color RETRO_PURPLE = new Color(138, 43, 226);
     private static final Color PIXEL_WHITE = new Color(255, 255, 255);
@@ -28,10 +29,11 @@ public class WelcomePanel extends JPanel {
     private Font footerFont;
 
     // Animation components
+    private static final int GLOW_STEPS = 64;
     private Timer animationTimer;
     private float pulsePhase = 0;
-    private final Random random = new Random();
-    private final Point2D.Float[] starfield;
+    private final StarfieldRenderer starfield;
+    private final Color[] glowPalette = createGlowPalette();
 
     // Audio clips for sound effects
     private Clip hoverSoundClip;
@@ -43,12 +45,23 @@ public class WelcomePanel extends JPanel {
 
     public WelcomePanel(TicTacToeApp app) {
         initializeFonts();
-        this.starfield = createStarfield(400); // Generate star positions once
+        this.starfield = new StarfieldRenderer(400, BACKGROUND_DARK, new Random()); // Generate star positions once
         loadSoundClips(); // Load audio files at initialization
 
         setupMainLayout();
         setupUI(app);
-        startAnimation();
+
+        // Animate only while the card is on screen; CardLayout hides it when another screen is shown
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                if (isShowing()) {
+                    startAnimation();
+                } else {
+                    stopAnimation();
+                    starfield.release();
+                }
+            }
+        });
     }
 
     private void initializeFonts() {
@@ -188,7 +201,6 @@ public class WelcomePanel extends JPanel {
                 clickSoundClip.setFramePosition(0); // Rewind to start
                 clickSoundClip.start(); // Play the sound
             }
-            stopAnimation();
             app.showScreen("Game");
         });
 
@@ -196,6 +208,57 @@ public class WelcomePanel extends JPanel {
         gbc.insets = new Insets(0, 0, 15, 0); // Margin below the button
         buttonPanel.add(playButton, gbc);
 
+        // Simul Button
+        JButton simulButton = createStyledButton("SIMUL \u25A6", NEON_BLUE);
+        simulButton.setToolTipText("Play the bot on many boards at once");
+        simulButton.addActionListener(e -> {
+            // Play click sound when button is activated
+            if (clickSoundClip != null) {
+                if (clickSoundClip.isRunning()) clickSoundClip.stop();
+                clickSoundClip.setFramePosition(0); // Rewind to start
+                clickSoundClip.start(); // Play the sound
+            }
+            app.showScreen("Simul");
+        });
+
+        gbc.gridy = 1;
+        gbc.insets = new Insets(0, 0, 15, 0);
+        buttonPanel.add(simulButton, gbc);
+
+        // Ultimate Button
+        JButton ultimateButton = createStyledButton("ULTIMATE \u229E", NEON_GREEN);
+        ultimateButton.setToolTipText("Ultimate tic-tac-toe: nine boards, your move picks the opponent's board");
+        ultimateButton.addActionListener(e -> {
+            // Play click sound when button is activated
+            if (clickSoundClip != null) {
+                if (clickSoundClip.isRunning()) clickSoundClip.stop();
+                clickSoundClip.setFramePosition(0); // Rewind to start
+                clickSoundClip.start(); // Play the sound
+            }
+            app.showScreen("Ultimate");
+        });
+
+        gbc.gridy = 2;
+        gbc.insets = new Insets(0, 0, 15, 0);
+        buttonPanel.add(ultimateButton, gbc);
+
+        // Qubic Button
+        JButton qubicButton = createStyledButton("QUBIC 4\u00B3", NEON_PINK);
+        qubicButton.setToolTipText("Four in a row on a 4x4x4 cube");
+        qubicButton.addActionListener(e -> {
+            // Play click sound when button is activated
+            if (clickSoundClip != null) {
+                if (clickSoundClip.isRunning()) clickSoundClip.stop();
+                clickSoundClip.setFramePosition(0); // Rewind to start
+                clickSoundClip.start(); // Play the sound
+            }
+            app.showScreen("Qubic");
+        });
+
+        gbc.gridy = 3;
+        gbc.insets = new Insets(0, 0, 15, 0);
+        buttonPanel.add(qubicButton, gbc);
+
         // Settings Button
         JButton settingsButton = createStyledButton("SETTINGS ⚙\uFE0F", RETRO_PURPLE);
         settingsButton.addActionListener(e -> {
@@ -205,11 +268,10 @@ public class WelcomePanel extends JPanel {
                 clickSoundClip.setFramePosition(0); // Rewind to start
                 clickSoundClip.start(); // Play the sound
             }
-            stopAnimation();
             app.showScreen("Settings");
         });
 
-        gbc.gridy = 1;
+        gbc.gridy = 4;
         gbc.insets = new Insets(0, 0, 0, 0); // No margin for the last button
         buttonPanel.add(settingsButton, gbc);
 
@@ -266,41 +328,21 @@ public class WelcomePanel extends JPanel {
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g); // This will paint the BACKGROUND_DARK
-        Graphics2D g2d = (Graphics2D) g.create();
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Draw the animated starfield background
-        drawStarfield(g2d);
-
-        g2d.dispose();
-    }
-
-    private void drawStarfield(Graphics2D g2d) {
-        // Draw each star
-        for (int i = 0; i < starfield.length; i++) {
-            Point2D.Float star = starfield[i];
-            float shimmer = (float) (Math.sin(pulsePhase * 2.0 + i * 0.5) + 1.0) / 2.0f; // 0.0 to 1.0
-
-            // Pulsate size and color
-            int size = (int)(shimmer * 2) + 1;
-            g2d.setColor(new Color(255, 255, 255, (int)(100 + shimmer * 155)));
-
-            // Slight parallax movement
-            float x = (star.x * getWidth() + (float)(20 * Math.sin(pulsePhase * 0.1 + i * 0.1))) % getWidth();
-            float y = (star.y * getHeight() + (float)(20 * Math.cos(pulsePhase * 0.08 + i * 0.15))) % getHeight();
-            if (x < 0) x += getWidth();
-            if (y < 0) y += getHeight();
-
-            g2d.fillOval((int)x, (int)y, size, size);
-        }
+        // Draw the animated starfield background from its back buffer
+        starfield.paint(g, this);
     }
 
-    private Point2D.Float[] createStarfield(int count) {
-        Point2D.Float[] stars = new Point2D.Float[count];
-        for (int i = 0; i < count; i++) {
-            stars[i] = new Point2D.Float(random.nextFloat(), random.nextFloat());
+    private Color[] createGlowPalette() {
+        // Blend between PIXEL_WHITE and NEON_BLUE once, instead of a new Color every frame
+        Color[] palette = new Color[GLOW_STEPS];
+        for (int i = 0; i < GLOW_STEPS; i++) {
+            float glow = i / (float) (GLOW_STEPS - 1);
+            int r = (int)(PIXEL_WHITE.getRed() * (1 - glow) + NEON_BLUE.getRed() * glow);
+            int g = (int)(PIXEL_WHITE.getGreen() * (1 - glow) + NEON_BLUE.getGreen() * glow);
+            int b = (int)(PIXEL_WHITE.getBlue() * (1 - glow) + NEON_BLUE.getBlue() * glow);
+            palette[i] = new Color(r, g, b);
         }
-        return stars;
+        return palette;
     }
 
     private void startAnimation() {
@@ -310,15 +352,15 @@ public class WelcomePanel extends JPanel {
         animationTimer = new Timer(33, e -> { // ~30 FPS
             pulsePhase += 0.04f;
             // Update the pulsating glow effect for the title text
-            float glow = (float) (Math.sin(pulsePhase * 2.5) + 1.0) / 2.0f; // Varies between 0.0 and 1.0
+            float glow = (StarfieldRenderer.sin(pulsePhase * 2.5f) + 1f) / 2f; // Varies between 0.0 and 1.0
             if (titleLabel != null) {
-                // Blend between PIXEL_WHITE and NEON_BLUE based on glow
-                int r = (int)(PIXEL_WHITE.getRed() * (1 - glow) + NEON_BLUE.getRed() * glow);
-                int g = (int)(PIXEL_WHITE.getGreen() * (1 - glow) + NEON_BLUE.getGreen() * glow);
-                int b = (int)(PIXEL_WHITE.getBlue() * (1 - glow) + NEON_BLUE.getBlue() * glow);
-                titleLabel.setForeground(new Color(r, g, b));
+                // Same palette entry means same Color object, so the label skips the repaint
+                titleLabel.setForeground(glowPalette[(int)(glow * (GLOW_STEPS - 1))]);
+            }
+            Rectangle changed = starfield.update(this, pulsePhase);
+            if (changed != null) {
+                repaint(changed); // Only the area where stars moved or changed brightness
             }
-            repaint(); // Repaint the panel to update starfield animation
         });
         animationTimer.start();
     }